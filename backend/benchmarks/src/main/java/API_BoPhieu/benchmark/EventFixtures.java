@@ -0,0 +1,152 @@
+package API_BoPhieu.benchmark;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import API_BoPhieu.constants.EventManagement;
+import API_BoPhieu.constants.EventStatus;
+import API_BoPhieu.entity.Event;
+import API_BoPhieu.entity.EventManager;
+import API_BoPhieu.entity.User;
+import API_BoPhieu.mapper.EventMapper;
+import API_BoPhieu.repository.AttendantRepository;
+import API_BoPhieu.repository.EventManagerRepository;
+import API_BoPhieu.repository.EventRepository;
+import API_BoPhieu.repository.UserRepository;
+import API_BoPhieu.service.attendant.QRCodeServiceImpl;
+import API_BoPhieu.service.event.EventCounterStore;
+import API_BoPhieu.service.event.EventServiceImpl;
+
+/**
+ * Dữ liệu sự kiện trong bộ nhớ cho các benchmark danh sách sự kiện. Sự kiện không có banner để
+ * không phải gọi Google Cloud Storage.
+ */
+final class EventFixtures {
+    static final String VIEWER_EMAIL = "viewer@example.com";
+
+    private final List<Event> events = new ArrayList<>();
+    private final List<EventManager> managers = new ArrayList<>();
+    private final Map<Integer, User> users = new HashMap<>();
+    private final User viewer;
+
+    EventFixtures(int eventCount, int managersPerEvent) {
+        int userCount = Math.max(100, eventCount / 2);
+        for (int userId = 1; userId <= userCount; userId++) {
+            User user = new User();
+            user.setId(userId);
+            user.setName("Người dùng " + userId);
+            user.setEmail("user" + userId + "@example.com");
+            users.put(userId, user);
+        }
+        viewer = users.get(1);
+        viewer.setEmail(VIEWER_EMAIL);
+
+        EventStatus[] statuses = EventStatus.values();
+        int managerId = 1;
+        for (int eventId = 1; eventId <= eventCount; eventId++) {
+            Event event = new Event();
+            event.setId(eventId);
+            event.setTitle("Sự kiện " + eventId);
+            event.setDescription("Mô tả sự kiện " + eventId);
+            event.setStartTime(Instant.parse("2025-01-01T08:00:00Z").plusSeconds(eventId * 3600L));
+            event.setEndTime(event.getStartTime().plusSeconds(7200));
+            event.setLocation("Hội trường " + (eventId % 10));
+            event.setCreateBy(1 + eventId % userCount);
+            event.setStatus(statuses[eventId % statuses.length]);
+            event.setMaxParticipants(200);
+            event.setQrJoinToken("token" + eventId);
+            event.setCreatedAt(Instant.now());
+            event.setUpdatedAt(Instant.now());
+            events.add(event);
+
+            for (int i = 0; i < managersPerEvent; i++) {
+                EventManager manager = new EventManager();
+                manager.setId(managerId++);
+                manager.setEventId(eventId);
+                manager.setUserId(1 + (eventId + i) % userCount);
+                manager.setRoleType(i == 0 ? EventManagement.MANAGE : EventManagement.STAFF);
+                managers.add(manager);
+            }
+        }
+    }
+
+    EventServiceImpl eventService() {
+        // Bộ đếm thế hệ cache và bộ đếm chỗ chỉ dùng khi ghi, chỉ mục tìm kiếm chỉ dùng khi có từ
+        // khóa; benchmark chỉ đo đường đọc không tìm kiếm
+        return new EventServiceImpl(eventRepository(), new EventMapper(), null,
+                attendantRepository(), new QRCodeServiceImpl(16L << 20), userRepository(),
+                eventManagerRepository(), null, null, null, eventCounterStore(), null, null);
+    }
+
+    /** Bộ đếm đã nạp sẵn, tương ứng trường hợp thường gặp khi hash trong Redis đã có. */
+    private EventCounterStore eventCounterStore() {
+        Map<EventStatus, Long> statusCounts = new EnumMap<>(EventStatus.class);
+        events.forEach(event -> statusCounts.merge(event.getStatus(), 1L, Long::sum));
+        Map<Integer, Long> managedCounts = new HashMap<>();
+        managers.forEach(manager -> managedCounts.merge(manager.getUserId(), 1L, Long::sum));
+        return new EventCounterStore(null, null, null) {
+            @Override
+            public Map<EventStatus, Long> getStatusCounts() {
+                return statusCounts;
+            }
+
+            @Override
+            public long getManagedCount(Integer userId) {
+                return managedCounts.getOrDefault(userId, 0L);
+            }
+        };
+    }
+
+    private EventRepository eventRepository() {
+        return InMemoryRepository.of(EventRepository.class).on("findAll",
+                args -> new PageImpl<>(new ArrayList<>(events), (Pageable) args[1], events.size()))
+                .on("countEventsByStatus", args -> {
+                    Map<EventStatus, Long> counts = new EnumMap<>(EventStatus.class);
+                    events.forEach(event -> counts.merge(event.getStatus(), 1L, Long::sum));
+                    return counts.entrySet().stream()
+                            .map(entry -> new Object[] {entry.getKey(), entry.getValue()})
+                            .collect(Collectors.toList());
+                }).on("countManagedEventsByUserId", args -> managers.stream()
+                        .filter(manager -> manager.getUserId().equals(args[0])).count())
+                .build();
+    }
+
+    private EventManagerRepository eventManagerRepository() {
+        return InMemoryRepository.of(EventManagerRepository.class)
+                .on("findAllByEventIdIn", args -> {
+                    Set<?> eventIds = new HashSet<>((Collection<?>) args[0]);
+                    return managers.stream()
+                            .filter(manager -> eventIds.contains(manager.getEventId()))
+                            .collect(Collectors.toList());
+                }).build();
+    }
+
+    private UserRepository userRepository() {
+        return InMemoryRepository.of(UserRepository.class)
+                .on("findByEmail", args -> VIEWER_EMAIL.equals(args[0]) ? Optional.of(viewer)
+                        : Optional.empty())
+                .on("findAllById", args -> ((Collection<?>) args[0]).stream().map(users::get)
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    private AttendantRepository attendantRepository() {
+        return InMemoryRepository.of(AttendantRepository.class)
+                .on("countParticipantsByEventIds", args -> ((Collection<?>) args[0]).stream()
+                        .map(eventId -> new Object[] {eventId, 120L}).collect(Collectors.toList()))
+                .on("findRegisteredEventIdsByUserId", args -> ((Collection<?>) args[1]).stream()
+                        .filter(eventId -> ((Integer) eventId) % 7 == 0)
+                        .map(eventId -> (Integer) eventId).collect(Collectors.toSet()))
+                .build();
+    }
+}
@@ -0,0 +1,54 @@
+package API_BoPhieu.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import API_BoPhieu.dto.event.EventPageWithCountersResponse;
+import API_BoPhieu.service.event.EventServiceImpl;
+
+/**
+ * Đo việc dựng trang danh sách sự kiện (createPageResponse) với hàng nghìn sự kiện và người quản
+ * lý trên cùng một trang.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventListBenchmark {
+    @Param({"1000", "5000"})
+    private int events;
+
+    @Param({"3"})
+    private int managersPerEvent;
+
+    private EventServiceImpl eventService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        eventService = new EventFixtures(events, managersPerEvent).eventService();
+    }
+
+    @Benchmark
+    public EventPageWithCountersResponse allEvents() {
+        return eventService.getAllEvents(0, events, "startTime", "desc", null, null,
+                EventFixtures.VIEWER_EMAIL);
+    }
+
+    @Benchmark
+    public EventPageWithCountersResponse managedEvents() {
+        return eventService.getManagedEvents(0, events, "startTime", "desc", null, null,
+                EventFixtures.VIEWER_EMAIL);
+    }
+}
@@ -0,0 +1,51 @@
+package API_BoPhieu.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Tạo repository giả bằng dynamic proxy: chỉ những phương thức được khai báo qua {@link #on} mới
+ * có dữ liệu, mọi phương thức khác ném lỗi để benchmark không âm thầm đo một đường xử lý sai.
+ */
+final class InMemoryRepository<T> {
+    private final Class<T> type;
+    private final Map<String, Function<Object[], Object>> handlers = new HashMap<>();
+
+    private InMemoryRepository(Class<T> type) {
+        this.type = type;
+    }
+
+    static <T> InMemoryRepository<T> of(Class<T> type) {
+        return new InMemoryRepository<>(type);
+    }
+
+    InMemoryRepository<T> on(String methodName, Function<Object[], Object> handler) {
+        handlers.put(methodName, handler);
+        return this;
+    }
+
+    T build() {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                (self, method, args) -> {
+                    switch (method.getName()) {
+                        case "toString":
+                            return "InMemory" + type.getSimpleName();
+                        case "hashCode":
+                            return System.identityHashCode(self);
+                        case "equals":
+                            return self == args[0];
+                        default:
+                            break;
+                    }
+                    Function<Object[], Object> handler = handlers.get(method.getName());
+                    if (handler == null) {
+                        throw new UnsupportedOperationException(
+                                type.getSimpleName() + "." + method.getName());
+                    }
+                    return handler.apply(args == null ? new Object[0] : args);
+                });
+        return type.cast(proxy);
+    }
+}
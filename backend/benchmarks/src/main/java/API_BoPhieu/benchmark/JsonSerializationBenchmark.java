@@ -0,0 +1,48 @@
+package API_BoPhieu.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import API_BoPhieu.config.JacksonConfig;
+import API_BoPhieu.dto.event.EventPageWithCountersResponse;
+
+/**
+ * Đo việc tuần tự hóa JSON (SNAKE_CASE, cùng cấu hình với {@link JacksonConfig}) của một trang
+ * danh sách sự kiện.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+    @Param({"100", "1000"})
+    private int events;
+
+    private ObjectMapper objectMapper;
+    private EventPageWithCountersResponse page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = new JacksonConfig().objectMapper();
+        page = new EventFixtures(events, 3).eventService().getAllEvents(0, events, "startTime",
+                "desc", null, null, EventFixtures.VIEWER_EMAIL);
+    }
+
+    @Benchmark
+    public byte[] serializeEventPage() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,219 @@
+package API_BoPhieu.benchmark;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import API_BoPhieu.constants.PollType;
+import API_BoPhieu.dto.poll.PollResponse;
+import API_BoPhieu.dto.poll.PollStatsResponse;
+import API_BoPhieu.entity.Option;
+import API_BoPhieu.entity.Poll;
+import API_BoPhieu.entity.PollCounter;
+import API_BoPhieu.entity.PollOptionCounter;
+import API_BoPhieu.entity.Vote;
+import API_BoPhieu.mapper.PollMapper;
+import API_BoPhieu.repository.OptionRepository;
+import API_BoPhieu.repository.PollCounterRepository;
+import API_BoPhieu.repository.PollOptionCounterRepository;
+import API_BoPhieu.repository.PollRepository;
+import API_BoPhieu.repository.PollResultSnapshotRepository;
+import API_BoPhieu.repository.VoteRepository;
+import API_BoPhieu.service.poll.PendingBallot;
+import API_BoPhieu.service.poll.PollCounterStore;
+import API_BoPhieu.service.poll.PollResultSnapshotStore;
+import API_BoPhieu.service.poll.PollServiceImpl;
+
+/**
+ * Đo việc cộng dồn phiếu vào bộ đếm và dựng kết quả poll của một sự kiện.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PollBenchmark {
+    private static final Integer EVENT_ID = 1;
+
+    @Param({"20"})
+    private int pollsPerEvent;
+
+    @Param({"6"})
+    private int optionsPerPoll;
+
+    @Param({"2000"})
+    private int votersPerPoll;
+
+    @Param({"500"})
+    private int ballotBatchSize;
+
+    private final List<Poll> polls = new ArrayList<>();
+    private final List<Option> options = new ArrayList<>();
+    private final Map<Integer, List<Integer>> optionIdsByPoll = new HashMap<>();
+    private final Map<Integer, Map<Integer, List<Vote>>> votesByPollAndUser = new HashMap<>();
+    private final Map<Integer, PollOptionCounter> optionCounters = new HashMap<>();
+    private final Map<Integer, PollCounter> pollCounters = new HashMap<>();
+
+    private PollServiceImpl pollService;
+    private PollCounterStore pollCounterStore;
+    private List<PendingBallot> ballots;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        int optionId = 1;
+        int voteId = 1;
+        for (int pollId = 1; pollId <= pollsPerEvent; pollId++) {
+            Poll poll = new Poll(pollId, EVENT_ID, "Poll " + pollId, PollType.SINGLE_CHOICE,
+                    Instant.now(), Instant.now().plusSeconds(3600), false, 1, Instant.now(),
+                    Instant.now());
+            polls.add(poll);
+            List<Integer> pollOptionIds = new ArrayList<>();
+            for (int i = 0; i < optionsPerPoll; i++, optionId++) {
+                options.add(new Option(optionId, pollId, "Phương án " + i, null));
+                pollOptionIds.add(optionId);
+                optionCounters.put(optionId, new PollOptionCounter(optionId, pollId, 0));
+            }
+            optionIdsByPoll.put(pollId, pollOptionIds);
+
+            Map<Integer, List<Vote>> votesByUser = new HashMap<>();
+            for (int userId = 1; userId <= votersPerPoll; userId++) {
+                Integer chosen = pollOptionIds.get(random.nextInt(optionsPerPoll));
+                votesByUser.put(userId, new ArrayList<>(
+                        List.of(new Vote(voteId++, pollId, userId, chosen, Instant.now()))));
+                PollOptionCounter counter = optionCounters.get(chosen);
+                counter.setVoteCount(counter.getVoteCount() + 1);
+            }
+            votesByPollAndUser.put(pollId, votesByUser);
+            pollCounters.put(pollId, new PollCounter(pollId, votersPerPoll, votersPerPoll));
+        }
+
+        // Một nửa lô là người bỏ phiếu lại, nửa còn lại là người bỏ phiếu lần đầu
+        ballots = new ArrayList<>(ballotBatchSize);
+        for (int i = 0; i < ballotBatchSize; i++) {
+            int pollId = 1 + random.nextInt(pollsPerEvent);
+            int userId = i % 2 == 0 ? 1 + random.nextInt(votersPerPoll) : votersPerPoll + 1 + i;
+            List<Integer> pollOptionIds = optionIdsByPoll.get(pollId);
+            ballots.add(new PendingBallot(EVENT_ID, pollId, userId,
+                    List.of(pollOptionIds.get(random.nextInt(optionsPerPoll))), Instant.now()));
+        }
+
+        pollCounterStore = new PollCounterStore(pollCounterRepository(), optionCounterRepository(),
+                voteRepository());
+        PollResultSnapshotStore snapshotStore =
+                new PollResultSnapshotStore(snapshotRepository(), new ObjectMapper());
+        // Các phụ thuộc null không được dùng trên đường đọc kết quả
+        pollService = new PollServiceImpl(pollRepository(), null, null, null, optionRepository(),
+                voteRepository(), null, pollCounterStore, null, snapshotStore, null, null);
+    }
+
+    @Benchmark
+    public List<PollStatsResponse> statsByEvent() {
+        return pollService.getPollStatsByEvent(EVENT_ID);
+    }
+
+    @Benchmark
+    public List<PollResponse> pollsByEvent() {
+        return pollService.getPollsByEvent(EVENT_ID);
+    }
+
+    @Benchmark
+    public PollStatsResponse mapPollStats() {
+        Poll poll = polls.get(0);
+        List<Option> pollOptions = options.subList(0, optionsPerPoll);
+        return PollMapper.toPollStatsResponse(poll, pollOptions,
+                pollCounterStore.getOptionCounts(poll.getId()), votersPerPoll, votersPerPoll);
+    }
+
+    @Benchmark
+    public Map<Integer, PollOptionCounter> tallyBallotBatch() {
+        pollCounterStore.applyBallotReplacements(ballots);
+        return optionCounters;
+    }
+
+    private PollRepository pollRepository() {
+        return InMemoryRepository.of(PollRepository.class)
+                .on("findByEventId", args -> new ArrayList<>(polls)).build();
+    }
+
+    private OptionRepository optionRepository() {
+        return InMemoryRepository.of(OptionRepository.class)
+                .on("findByPollIdInOrderByIdAsc", args -> filterByPoll(options,
+                        (Collection<?>) args[0], Option::getPollId))
+                .on("findByPollId", args -> filterByPoll(options, List.of(args[0]),
+                        Option::getPollId))
+                .build();
+    }
+
+    private VoteRepository voteRepository() {
+        return InMemoryRepository.of(VoteRepository.class)
+                .on("findByPollIdAndUserIdInForUpdate", args -> {
+                    Map<Integer, List<Vote>> votesByUser =
+                            votesByPollAndUser.getOrDefault(args[0], Map.of());
+                    List<Vote> votes = new ArrayList<>();
+                    for (Object userId : (Collection<?>) args[1]) {
+                        votes.addAll(votesByUser.getOrDefault(userId, List.of()));
+                    }
+                    return votes;
+                }).build();
+    }
+
+    private PollOptionCounterRepository optionCounterRepository() {
+        return InMemoryRepository.of(PollOptionCounterRepository.class)
+                .on("findByPollId", args -> filterByPoll(optionCounters.values(),
+                        List.of(args[0]), PollOptionCounter::getPollId))
+                .on("findByPollIdIn", args -> filterByPoll(optionCounters.values(),
+                        (Collection<?>) args[0], PollOptionCounter::getPollId))
+                .on("applyDelta", args -> {
+                    PollOptionCounter counter = optionCounters.get(args[0]);
+                    counter.setVoteCount(counter.getVoteCount() + (int) args[2]);
+                    return 1;
+                }).build();
+    }
+
+    private PollCounterRepository pollCounterRepository() {
+        return InMemoryRepository.of(PollCounterRepository.class)
+                .on("findAllById", args -> ((Collection<?>) args[0]).stream()
+                        .map(pollCounters::get).collect(Collectors.toList()))
+                .on("findById", args -> Optional.ofNullable(pollCounters.get(args[0])))
+                .on("applyDelta", args -> {
+                    PollCounter counter = pollCounters.get(args[0]);
+                    counter.setTotalVotes(counter.getTotalVotes() + (int) args[1]);
+                    counter.setTotalVoters(counter.getTotalVoters() + (int) args[2]);
+                    return 1;
+                }).build();
+    }
+
+    private PollResultSnapshotRepository snapshotRepository() {
+        return InMemoryRepository.of(PollResultSnapshotRepository.class)
+                .on("findAllById", args -> new ArrayList<>())
+                .on("findById", args -> Optional.empty()).build();
+    }
+
+    private static <T> List<T> filterByPoll(Collection<T> rows, Collection<?> pollIds,
+            Function<T, Integer> pollIdOf) {
+        return rows.stream().filter(row -> pollIds.contains(pollIdOf.apply(row)))
+                .collect(Collectors.toList());
+    }
+}
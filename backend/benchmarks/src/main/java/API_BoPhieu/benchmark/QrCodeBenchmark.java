@@ -0,0 +1,33 @@
+package API_BoPhieu.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import API_BoPhieu.service.attendant.QRCodeServiceImpl;
+
+/**
+ * Đo việc sinh ảnh PNG mã QR cho token tham gia sự kiện.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QrCodeBenchmark {
+    // Hạn mức cache 0 byte: mọi lần gọi đều render lại ảnh
+    private final QRCodeServiceImpl qrCodeService = new QRCodeServiceImpl(0);
+    private final String token = qrCodeService.generateQRToken();
+
+    @Benchmark
+    public byte[] generateQrCode() throws Exception {
+        return qrCodeService.generateQRCode(token);
+    }
+}
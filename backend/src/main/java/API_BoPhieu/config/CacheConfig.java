@@ -9,7 +9,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.annotation.CachingConfigurer;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.CacheErrorHandler;
 import org.springframework.cache.interceptor.KeyGenerator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -21,7 +26,41 @@ import org.springframework.data.redis.serializer.RedisSerializationContext.Seria
 
 @Configuration
 @EnableCaching
-public class CacheConfig {
+public class CacheConfig implements CachingConfigurer {
+    private static final Logger log = LoggerFactory.getLogger(CacheConfig.class);
+
+    /**
+     * Redis lỗi không làm hỏng request: đọc lỗi được coi như cache miss và phương thức chạy trên DB,
+     * ghi/xóa lỗi chỉ được ghi log. Entry còn sót sau khi xóa lỗi tự hết hạn theo TTL.
+     */
+    @Override
+    public CacheErrorHandler errorHandler() {
+        return new CacheErrorHandler() {
+            @Override
+            public void handleCacheGetError(RuntimeException e, Cache cache, Object key) {
+                log.warn("Không đọc được cache {} (khóa {}), đọc từ DB: {}", cache.getName(), key,
+                        e.getMessage());
+            }
+
+            @Override
+            public void handleCachePutError(RuntimeException e, Cache cache, Object key,
+                    Object value) {
+                log.warn("Không ghi được cache {} (khóa {}): {}", cache.getName(), key,
+                        e.getMessage());
+            }
+
+            @Override
+            public void handleCacheEvictError(RuntimeException e, Cache cache, Object key) {
+                log.error("Không xóa được cache {} (khóa {}): {}", cache.getName(), key,
+                        e.getMessage());
+            }
+
+            @Override
+            public void handleCacheClearError(RuntimeException e, Cache cache) {
+                log.error("Không xóa được toàn bộ cache {}: {}", cache.getName(), e.getMessage());
+            }
+        };
+    }
 
     @Bean
     public ObjectMapper redisObjectMapper() {
@@ -55,6 +94,34 @@ public class CacheConfig {
                 .map(p -> p == null ? "null" : p.toString()).collect(Collectors.joining("|"));
     }
 
+    /** Khóa EVENT_DETAIL (eventId, email) kèm thế hệ của sự kiện và thế hệ chung. */
+    @Bean("eventDetailKeyGen")
+    public KeyGenerator eventDetailKeyGen(CacheGenerations cacheGenerations) {
+        return (target, method, params) -> {
+            Integer eventId = (Integer) params[0];
+            return "event:" + eventId + ":v"
+                    + cacheGenerations.version(CacheGenerations.event(eventId),
+                            CacheGenerations.ALL_EVENT_DETAILS)
+                    + ":user:" + params[1];
+        };
+    }
+
+    @Bean("eventListKeyGen")
+    public KeyGenerator eventListKeyGen(CacheGenerations cacheGenerations) {
+        return versionedListKeyGen(cacheGenerations, CacheGenerations.EVENT_LIST);
+    }
+
+    @Bean("managedEventsKeyGen")
+    public KeyGenerator managedEventsKeyGen(CacheGenerations cacheGenerations) {
+        return versionedListKeyGen(cacheGenerations, CacheGenerations.MANAGED_EVENTS);
+    }
+
+    private KeyGenerator versionedListKeyGen(CacheGenerations cacheGenerations, String scope) {
+        KeyGenerator listKeyGen = listKeyGen();
+        return (target, method, params) -> "v" + cacheGenerations.version(scope) + "|"
+                + listKeyGen.generate(target, method, params);
+    }
+
     @Bean
     public RedisCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
             RedisCacheConfiguration defaultCacheConfiguration) {
@@ -68,8 +135,8 @@ public class CacheConfig {
                 defaultCacheConfiguration.entryTtl(Duration.ofSeconds(90)));
         cacheConfigurations.put("PARTICIPANTS_BY_EVENT",
                 defaultCacheConfiguration.entryTtl(Duration.ofSeconds(20)));
-        cacheConfigurations.put("QR_IMAGE",
-                defaultCacheConfiguration.entryTtl(Duration.ofMinutes(20)));
+        cacheConfigurations.put("POLL_SNAPSHOT",
+                defaultCacheConfiguration.entryTtl(Duration.ofHours(24)));
         cacheConfigurations.put("POLL_DETAIL",
                 defaultCacheConfiguration.entryTtl(Duration.ofSeconds(30)));
         cacheConfigurations.put("POLLS_BY_EVENT",
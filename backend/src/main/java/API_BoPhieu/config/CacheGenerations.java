@@ -0,0 +1,127 @@
+package API_BoPhieu.config;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bộ đếm thế hệ (generation) cho các cache sự kiện. Mỗi sự kiện và mỗi phạm vi danh sách có một
+ * bộ đếm trong Redis được ghép vào khóa cache; tăng bộ đếm làm các entry cũ không còn truy cập được
+ * và TTL của Redis tự dọn chúng, thay cho {@code @CacheEvict(allEntries = true)}.
+ */
+@Component
+public class CacheGenerations {
+    private static final Logger log = LoggerFactory.getLogger(CacheGenerations.class);
+
+    public static final String EVENT_LIST = "EVENT_LIST";
+    public static final String MANAGED_EVENTS = "MANAGED_EVENTS";
+    /** Phạm vi chung cho mọi EVENT_DETAIL, dùng khi nhiều sự kiện đổi cùng lúc. */
+    public static final String ALL_EVENT_DETAILS = "EVENT_DETAIL";
+
+    private static final String KEY_PREFIX = "cache-gen:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration counterTtl;
+
+    public CacheGenerations(StringRedisTemplate redisTemplate,
+            @Value("${app.cache.generation-ttl:P1D}") Duration counterTtl) {
+        this.redisTemplate = redisTemplate;
+        this.counterTtl = counterTtl;
+    }
+
+    public static String event(Integer eventId) {
+        return "event:" + eventId;
+    }
+
+    /**
+     * Đọc các bộ đếm trong một lần MGET và ghép thành chuỗi phiên bản, ví dụ {@code "3.0"}. Khi
+     * Redis lỗi, trả về một phiên bản ngẫu nhiên dùng một lần để lượt đọc bỏ qua cache và đi thẳng
+     * vào DB thay vì ném lỗi.
+     */
+    public String version(String... scopes) {
+        List<String> values;
+        try {
+            values = redisTemplate.opsForValue().multiGet(Arrays.stream(scopes)
+                    .map(scope -> KEY_PREFIX + scope).collect(Collectors.toList()));
+        } catch (DataAccessException e) {
+            log.warn("Không đọc được thế hệ cache {}, bỏ qua cache: {}", Arrays.toString(scopes),
+                    e.getMessage());
+            return "bypass-" + UUID.randomUUID();
+        }
+        if (values == null) {
+            return "0";
+        }
+        return values.stream().map(value -> value == null ? "0" : value)
+                .collect(Collectors.joining("."));
+    }
+
+    /** Thay đổi nội dung chi tiết của một sự kiện (check-in, banner...). */
+    public void bumpEvent(Integer eventId) {
+        bump(event(eventId));
+    }
+
+    /** Thêm sự kiện mới: chỉ các trang danh sách thay đổi. */
+    public void bumpLists() {
+        bump(EVENT_LIST, MANAGED_EVENTS);
+    }
+
+    /** Thay đổi ảnh hưởng cả chi tiết sự kiện lẫn các trang danh sách. */
+    public void bumpEventAndLists(Integer eventId) {
+        bump(event(eventId), EVENT_LIST, MANAGED_EVENTS);
+    }
+
+    /** Thay đổi hàng loạt sự kiện, ví dụ job cập nhật trạng thái. */
+    public void bumpAll() {
+        bump(ALL_EVENT_DETAILS, EVENT_LIST, MANAGED_EVENTS);
+    }
+
+    /**
+     * Tăng bộ đếm; nếu đang trong transaction thì chỉ tăng sau khi commit để request đọc song song
+     * không ghi dữ liệu cũ vào thế hệ mới.
+     */
+    public void bump(String... scopes) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager
+                    .registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            increment(scopes);
+                        }
+                    });
+        } else {
+            increment(scopes);
+        }
+    }
+
+    /**
+     * Tăng bộ đếm ngay, không chờ commit. Dành cho listener chạy sau commit: lúc đó đồng bộ hóa
+     * transaction vẫn đang bật nhưng synchronization đăng ký thêm sẽ không bao giờ chạy.
+     */
+    public void bumpNow(String... scopes) {
+        increment(scopes);
+    }
+
+    private void increment(String... scopes) {
+        for (String scope : scopes) {
+            String key = KEY_PREFIX + scope;
+            try {
+                redisTemplate.opsForValue().increment(key);
+                // Bộ đếm sống lâu hơn mọi entry cache nên khi hết hạn và quay về 0 thì không còn
+                // entry cũ nào cùng phiên bản
+                redisTemplate.expire(key, counterTtl);
+            } catch (RuntimeException e) {
+                log.error("Không thể tăng thế hệ cache '{}'", scope, e);
+            }
+        }
+    }
+}
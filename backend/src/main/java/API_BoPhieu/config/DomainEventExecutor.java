@@ -0,0 +1,38 @@
+package API_BoPhieu.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Luồng riêng chạy phần việc của các listener sau khi transaction commit (SSE, vô hiệu cache, thống
+ * kê), để luồng request trả kết nối DB ngay. Một luồng duy nhất nên các sự kiện được xử lý đúng thứ
+ * tự commit. Không khai báo dưới dạng bean {@code Executor} để không thay thế executor mặc định của
+ * Spring Boot.
+ */
+@Component
+public class DomainEventExecutor {
+    private static final Logger log = LoggerFactory.getLogger(DomainEventExecutor.class);
+
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("domain-events-"));
+
+    public void execute(String eventName, Runnable task) {
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("Lỗi khi xử lý sự kiện miền '{}'", eventName, e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,6 @@
+package API_BoPhieu.constants;
+
+public enum CheckInOutcome {
+    CHECKED_IN, EARLIER_TIME_RECORDED, ALREADY_CHECKED_IN, NOT_REGISTERED, USER_NOT_FOUND,
+    INVALID_ENTRY, DUPLICATE
+}
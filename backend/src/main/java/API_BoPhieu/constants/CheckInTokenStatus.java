@@ -0,0 +1,5 @@
+package API_BoPhieu.constants;
+
+public enum CheckInTokenStatus {
+    VALID, MALFORMED, BAD_SIGNATURE, NOT_YET_VALID, EXPIRED
+}
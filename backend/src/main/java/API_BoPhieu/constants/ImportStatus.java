@@ -0,0 +1,5 @@
+package API_BoPhieu.constants;
+
+public enum ImportStatus {
+    QUEUED, RUNNING, COMPLETED, FAILED
+}
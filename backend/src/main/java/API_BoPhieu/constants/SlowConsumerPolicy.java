@@ -0,0 +1,9 @@
+package API_BoPhieu.constants;
+
+/** Cách xử lý client SSE đọc chậm khi hàng đợi gửi của nó đã đầy. */
+public enum SlowConsumerPolicy {
+    /** Bỏ bản tin cũ nhất trong hàng đợi để nhận bản tin mới. */
+    DROP_OLDEST,
+    /** Đóng kết nối, client sẽ tự kết nối lại. */
+    DISCONNECT
+}
@@ -1,10 +1,12 @@
 package API_BoPhieu.controller;
 
-import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -13,12 +15,33 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import API_BoPhieu.constants.QrImageFormat;
+import API_BoPhieu.dto.attendant.BatchCheckInRequest;
+import API_BoPhieu.dto.attendant.BatchCheckInResponse;
+import API_BoPhieu.dto.attendant.CheckInAnalyticsResponse;
+import API_BoPhieu.dto.attendant.CheckInTokenClaims;
+import API_BoPhieu.dto.attendant.CheckInTokenRequest;
+import API_BoPhieu.dto.attendant.CheckInTokenResponse;
+import API_BoPhieu.dto.attendant.ParticipantFilter;
+import API_BoPhieu.dto.attendant.ParticipantPageResponse;
 import API_BoPhieu.dto.attendant.ParticipantResponse;
+import API_BoPhieu.dto.qr.QrImage;
+import API_BoPhieu.dto.qr.QrRenderOptions;
+import API_BoPhieu.dto.sse.SseConnectionStats;
 import API_BoPhieu.entity.Attendant;
+import API_BoPhieu.exception.IllegalArgumentException;
 import API_BoPhieu.service.attendant.AttendantService;
+import API_BoPhieu.service.attendant.CheckInAnalytics;
+import API_BoPhieu.service.attendant.CheckInTokenService;
+import API_BoPhieu.service.attendant.FastCheckInService;
 import API_BoPhieu.service.sse.SseService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -30,28 +53,35 @@ import lombok.extern.slf4j.Slf4j;
 public class AttendantController {
 
     private final AttendantService attendantService;
+    private final FastCheckInService fastCheckInService;
+    private final CheckInAnalytics checkInAnalytics;
+    private final CheckInTokenService checkInTokenService;
     private final SseService sseService;
 
     @GetMapping("/subscribe/{eventId}")
-    public SseEmitter subscribeToEvents(@PathVariable Integer eventId) {
+    @PreAuthorize("hasRole('ROLE_ADMIN') or @eventAuth.canSubscribe(authentication, #eventId)")
+    public SseEmitter subscribeToEvents(@PathVariable Integer eventId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
         log.info("Client mới yêu cầu kết nối SSE tới sự kiện ID: {}", eventId);
 
-        SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
-
-        sseService.addEmitter(eventId, emitter);
-
-        try {
-            emitter.send(SseEmitter.event().name("INIT")
-                    .data("Kết nối SSE thành công tới sự kiện " + eventId));
-        } catch (IOException e) {
-            log.warn("Không thể gửi sự kiện INIT tới client cho sự kiện ID {}: {}", eventId,
-                    e.getMessage());
+        // Sự kiện INIT và các bản tin bị lỡ được gửi qua hàng đợi của client theo đúng thứ tự
+        Long lastSeenId = null;
+        if (lastEventId != null && lastEventId.matches("\\d{1,18}")) {
+            lastSeenId = Long.valueOf(lastEventId);
         }
+        SseEmitter emitter = sseService.subscribe(eventId, lastSeenId);
 
         log.debug("Đã trả về emitter cho client của sự kiện ID {}", eventId);
         return emitter;
     }
 
+    @GetMapping("/subscribe/stats")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<SseConnectionStats> getSseStats(
+            @RequestParam(defaultValue = "false") boolean clients) {
+        return ResponseEntity.ok(sseService.getStats(clients));
+    }
+
     @GetMapping("/{eventId}")
     @PreAuthorize("hasRole('ROLE_ADMIN') or @eventAuth.hasEventRole(authentication, #eventId, T(API_BoPhieu.constants.EventRole).STAFF)")
     public ResponseEntity<List<ParticipantResponse>> getParticipantsByEventId(
@@ -61,25 +91,114 @@ public class AttendantController {
         return ResponseEntity.ok(responses);
     }
 
+    @GetMapping("/{eventId}/page")
+    @PreAuthorize("hasRole('ROLE_ADMIN') or @eventAuth.hasEventRole(authentication, #eventId, T(API_BoPhieu.constants.EventRole).STAFF)")
+    public ResponseEntity<ParticipantPageResponse> getParticipantPage(@PathVariable Integer eventId,
+            @RequestParam(required = false) Integer after,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) Boolean checkedIn,
+            @RequestParam(required = false) Integer unitId,
+            @RequestParam(required = false) String namePrefix) {
+        ParticipantFilter filter = ParticipantFilter.builder().eventId(eventId).checkedIn(checkedIn)
+                .unitId(unitId).namePrefix(namePrefix).build();
+        return ResponseEntity.ok(attendantService.getParticipantPage(filter, after, size));
+    }
+
+    @GetMapping("/{eventId}/export")
+    @PreAuthorize("hasRole('ROLE_ADMIN') or @eventAuth.hasEventRole(authentication, #eventId, T(API_BoPhieu.constants.EventRole).STAFF)")
+    public ResponseEntity<StreamingResponseBody> exportParticipants(@PathVariable Integer eventId,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) Boolean checkedIn,
+            @RequestParam(required = false) Integer unitId,
+            @RequestParam(required = false) String namePrefix) {
+        boolean json = "json".equalsIgnoreCase(format);
+        if (!json && !"csv".equalsIgnoreCase(format)) {
+            throw new IllegalArgumentException("Định dạng xuất chỉ hỗ trợ csv hoặc json");
+        }
+        ParticipantFilter filter = ParticipantFilter.builder().eventId(eventId).checkedIn(checkedIn)
+                .unitId(unitId).namePrefix(namePrefix).build();
+        StreamingResponseBody body =
+                out -> attendantService.exportParticipants(filter, format, out);
+        String fileName = "participants-event-" + eventId + (json ? ".json" : ".csv");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(json ? MediaType.APPLICATION_JSON
+                        : new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .body(body);
+    }
+
+    @GetMapping("/{eventId}/analytics")
+    @PreAuthorize("hasRole('ROLE_ADMIN') or @eventAuth.hasEventRole(authentication, #eventId, T(API_BoPhieu.constants.EventRole).STAFF)")
+    public ResponseEntity<CheckInAnalyticsResponse> getCheckInAnalytics(
+            @PathVariable Integer eventId, @RequestParam(defaultValue = "60") int minutes) {
+        return ResponseEntity.ok(checkInAnalytics.getAnalytics(eventId, minutes));
+    }
+
     @PostMapping("/check-in/{eventToken}")
     public ResponseEntity<Attendant> checkInEvent(@PathVariable String eventToken,
             Authentication authentication) {
         log.info("Nhận yêu cầu check-in từ người dùng '{}' cho sự kiện với token '{}'",
                 authentication.getName(), eventToken);
-        Attendant attendant = attendantService.checkIn(eventToken, authentication.getName());
+        Attendant attendant = fastCheckInService.isEnabled()
+                ? fastCheckInService.checkIn(eventToken, authentication.getName())
+                : attendantService.checkIn(eventToken, authentication.getName());
         return ResponseEntity.ok(attendant);
     }
 
+    @PostMapping("/{eventId}/check-in/batch")
+    @PreAuthorize("hasRole('ROLE_ADMIN') or @eventAuth.hasEventRole(authentication, #eventId, T(API_BoPhieu.constants.EventRole).STAFF)")
+    public ResponseEntity<BatchCheckInResponse> batchCheckIn(@PathVariable Integer eventId,
+            @RequestBody BatchCheckInRequest request, Authentication authentication) {
+        log.info("Người dùng '{}' đồng bộ lượt quét check-in cho sự kiện ID {}",
+                authentication.getName(), eventId);
+        return ResponseEntity
+                .ok(attendantService.batchCheckIn(eventId, request, authentication.getName()));
+    }
+
+    @GetMapping("/{eventId}/check-in-tokens")
+    @PreAuthorize("hasRole('ROLE_ADMIN') or @eventAuth.hasEventRole(authentication, #eventId, T(API_BoPhieu.constants.EventRole).STAFF)")
+    public ResponseEntity<List<CheckInTokenResponse>> generateCheckInTokens(
+            @PathVariable Integer eventId) {
+        return ResponseEntity.ok(checkInTokenService.generateTokens(eventId));
+    }
+
+    @PostMapping("/{eventId}/check-in/token")
+    @PreAuthorize("hasRole('ROLE_ADMIN') or @eventAuth.hasEventRole(authentication, #eventId, T(API_BoPhieu.constants.EventRole).STAFF)")
+    public ResponseEntity<ParticipantResponse> checkInWithToken(@PathVariable Integer eventId,
+            @RequestBody CheckInTokenRequest request) {
+        return ResponseEntity.ok(checkInTokenService.checkInWithToken(eventId, request.getToken()));
+    }
+
+    @PostMapping("/check-in-tokens/verify")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CheckInTokenClaims> verifyCheckInToken(
+            @RequestBody CheckInTokenRequest request) {
+        return ResponseEntity.ok(checkInTokenService.verify(request.getToken()));
+    }
+
     @GetMapping("/get-qr-check/{eventId}")
     @PreAuthorize("hasRole('ROLE_ADMIN') or @eventAuth.hasEventRole(authentication, #eventId, T(API_BoPhieu.constants.EventRole).STAFF)")
-    public ResponseEntity<byte[]> getQrCheck(@PathVariable Integer eventId) throws Exception {
+    public ResponseEntity<byte[]> getQrCheck(@PathVariable Integer eventId,
+            @RequestParam(defaultValue = "png") String format,
+            @RequestParam(defaultValue = "300") int size,
+            @RequestParam(defaultValue = "4") int margin, WebRequest request) {
         log.debug("Nhận yêu cầu tạo QR check-in cho sự kiện ID: {}", eventId);
-        byte[] qrCodeImage = attendantService.generateQrCheck(eventId);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.IMAGE_PNG);
-        headers.setContentLength(qrCodeImage.length);
-        return new ResponseEntity<>(qrCodeImage, headers, HttpStatus.OK);
+        QrImageFormat imageFormat;
+        try {
+            imageFormat = QrImageFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (java.lang.IllegalArgumentException e) {
+            throw new IllegalArgumentException("Định dạng QR chỉ hỗ trợ png, svg hoặc matrix");
+        }
+        QrImage qrImage = attendantService.generateQrCheck(eventId, QrRenderOptions.builder()
+                .format(imageFormat).size(size).margin(margin).build());
+        // Mã tham gia của sự kiện không đổi nên cùng URL luôn cho cùng một ảnh
+        if (request.checkNotModified(qrImage.getEtag())) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(qrImage.getEtag())
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable())
+                .contentType(MediaType.parseMediaType(qrImage.getContentType()))
+                .contentLength(qrImage.getContent().length).body(qrImage.getContent());
     }
 
     @DeleteMapping("/{eventId}/{userId}")
@@ -20,6 +20,7 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 import API_BoPhieu.constants.EventStatus;
+import API_BoPhieu.dto.attendant.ParticipantImportResponse;
 import API_BoPhieu.dto.attendant.ParticipantResponse;
 import API_BoPhieu.dto.attendant.ParticipantsDto;
 import API_BoPhieu.dto.event.EventDetailResponse;
@@ -28,6 +29,7 @@ import API_BoPhieu.dto.event.EventPageWithCountersResponse;
 import API_BoPhieu.dto.event.EventResponse;
 import API_BoPhieu.entity.Attendant;
 import API_BoPhieu.service.attendant.AttendantService;
+import API_BoPhieu.service.attendant.ParticipantImportService;
 import API_BoPhieu.service.event.EventService;
 import lombok.RequiredArgsConstructor;
 
@@ -39,6 +41,7 @@ public class EventController {
 
     private final EventService eventService;
     private final AttendantService attendantService;
+    private final ParticipantImportService participantImportService;
 
     @PutMapping("/{id}/upload-banner")
     public ResponseEntity<?> uploadBanner(@PathVariable("id") Integer eventId,
@@ -71,6 +74,23 @@ public class EventController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/{eventId}/participants/import")
+    @PreAuthorize("hasRole('ROLE_ADMIN') or @eventAuth.hasEventRole(authentication, #eventId, T(API_BoPhieu.constants.EventRole).STAFF)")
+    public ResponseEntity<ParticipantImportResponse> importParticipants(
+            @PathVariable Integer eventId, @RequestParam("file") MultipartFile file,
+            Authentication authentication) {
+        ParticipantImportResponse response =
+                participantImportService.startImport(eventId, file, authentication.getName());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    @GetMapping("/{eventId}/participants/import/{jobId}")
+    @PreAuthorize("hasRole('ROLE_ADMIN') or @eventAuth.hasEventRole(authentication, #eventId, T(API_BoPhieu.constants.EventRole).STAFF)")
+    public ResponseEntity<ParticipantImportResponse> getImportProgress(
+            @PathVariable Integer eventId, @PathVariable String jobId) {
+        return ResponseEntity.ok(participantImportService.getImportJob(eventId, jobId));
+    }
+
     @DeleteMapping(("/{eventId}/participants"))
     public ResponseEntity<?> deleteParticipants(@PathVariable Integer eventId,
             @RequestBody ParticipantsDto participantsDto, Authentication authentication) {
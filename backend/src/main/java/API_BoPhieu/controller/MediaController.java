@@ -10,7 +10,6 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 import API_BoPhieu.service.file.FileStorageService;
-import API_BoPhieu.service.file.FileStorageServiceImpl;
 import lombok.RequiredArgsConstructor;
 
 @RestController
@@ -32,7 +31,7 @@ public class MediaController {
         }
 
         String fileName = fileStorageService.storeFile(file, "images", "img_");
-        String publicUrl = ((FileStorageServiceImpl) fileStorageService).getSignedUrl("images", fileName);
+        String publicUrl = fileStorageService.getSignedUrl("images", fileName);
 
         log.info("Upload ảnh thành công. URL: {}", publicUrl);
 
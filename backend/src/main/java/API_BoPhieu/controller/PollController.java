@@ -3,7 +3,9 @@ package API_BoPhieu.controller;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,8 +16,10 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import API_BoPhieu.dto.poll.PollDTO;
 import API_BoPhieu.dto.poll.PollResponse;
+import API_BoPhieu.dto.poll.PollResultSnapshotResponse;
 import API_BoPhieu.dto.poll.PollStatsResponse;
 import API_BoPhieu.dto.poll.UpdatePollDTO;
 import API_BoPhieu.dto.poll.VoteDTO;
@@ -56,6 +60,14 @@ public class PollController {
         return ResponseEntity.ok(pollResponses);
     }
 
+    @GetMapping("/events/{eventId}/voted")
+    public ResponseEntity<Map<Integer, Boolean>> getVotedPollsByEvent(
+            @PathVariable Integer eventId, Authentication authentication) {
+        User user = userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new AuthException("Không tìm thấy user"));
+        return ResponseEntity.ok(pollService.getVotedPollsByEvent(eventId, user.getId()));
+    }
+
     @PostMapping("/{pollId}/vote")
     public ResponseEntity<?> votePoll(@PathVariable Integer pollId, @RequestBody VoteDTO voteDTO,
             @RequestHeader("Authorization") String token) {
@@ -77,6 +89,23 @@ public class PollController {
         return ResponseEntity.ok(Map.of("optionIds", optionIds));
     }
 
+    @GetMapping("/{pollId}/results")
+    public ResponseEntity<PollStatsResponse> getPollResults(@PathVariable Integer pollId,
+            WebRequest webRequest) {
+        PollResultSnapshotResponse snapshot = pollService.getPollResults(pollId);
+        if (snapshot.getEtag() == null) {
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache())
+                    .body(snapshot.getResults());
+        }
+        // Kết quả poll đã đóng không bao giờ thay đổi
+        if (webRequest.checkNotModified(snapshot.getEtag())) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(snapshot.getEtag())
+                .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable())
+                .body(snapshot.getResults());
+    }
+
     @GetMapping("/{eventId}/stats")
     public ResponseEntity<List<PollStatsResponse>> getPollStatsByEvent(
             @PathVariable Integer eventId) {
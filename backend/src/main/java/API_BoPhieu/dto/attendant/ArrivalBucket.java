@@ -0,0 +1,17 @@
+package API_BoPhieu.dto.attendant;
+
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArrivalBucket {
+    private Instant minute;
+    private long arrivals;
+    private long cumulative;
+}
@@ -0,0 +1,22 @@
+package API_BoPhieu.dto.attendant;
+
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Một lượt quét tại cửa: xác định người bằng mã check-in cá nhân, userId hoặc email; scanTime trống
+ * thì lấy giờ nhận.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchCheckInEntry {
+    private String token;
+    private Integer userId;
+    private String email;
+    private Instant scanTime;
+}
@@ -0,0 +1,20 @@
+package API_BoPhieu.dto.attendant;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchCheckInResponse {
+    private Integer eventId;
+    private int total;
+    private int checkedIn;
+    private int alreadyCheckedIn;
+    private int failed;
+    private List<BatchCheckInResult> results;
+}
@@ -0,0 +1,21 @@
+package API_BoPhieu.dto.attendant;
+
+import java.time.Instant;
+import API_BoPhieu.constants.CheckInOutcome;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchCheckInResult {
+    /** Vị trí của lượt quét trong request. */
+    private int index;
+    private Integer userId;
+    private CheckInOutcome outcome;
+    /** Giờ check-in đang được lưu sau khi xử lý lượt quét. */
+    private Instant checkInTime;
+}
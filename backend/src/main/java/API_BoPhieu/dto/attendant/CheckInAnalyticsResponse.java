@@ -0,0 +1,26 @@
+package API_BoPhieu.dto.attendant;
+
+import java.time.Instant;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CheckInAnalyticsResponse {
+    private Integer eventId;
+    private long registered;
+    private long checkedIn;
+    private double attendancePercent;
+    /** Số người check-in trung bình mỗi phút trong 5 phút gần nhất. */
+    private double arrivalRatePerMinute;
+    private Instant peakMinute;
+    private long peakArrivals;
+    private List<ArrivalBucket> arrivals;
+    private List<UnitTurnout> units;
+    private Instant generatedAt;
+}
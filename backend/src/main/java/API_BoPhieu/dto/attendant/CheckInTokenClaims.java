@@ -0,0 +1,25 @@
+package API_BoPhieu.dto.attendant;
+
+import java.time.Instant;
+import API_BoPhieu.constants.CheckInTokenStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Kết quả kiểm tra mã check-in cá nhân; các trường định danh chỉ có khi chữ ký hợp lệ. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CheckInTokenClaims {
+    private CheckInTokenStatus status;
+    private Integer eventId;
+    private Integer userId;
+    private Instant validFrom;
+    private Instant validUntil;
+
+    public boolean isValid() {
+        return status == CheckInTokenStatus.VALID;
+    }
+}
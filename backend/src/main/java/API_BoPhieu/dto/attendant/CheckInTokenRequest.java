@@ -0,0 +1,14 @@
+package API_BoPhieu.dto.attendant;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CheckInTokenRequest {
+    private String token;
+}
@@ -0,0 +1,20 @@
+package API_BoPhieu.dto.attendant;
+
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CheckInTokenResponse {
+    private Integer userId;
+    private String email;
+    private String name;
+    private String token;
+    private Instant validFrom;
+    private Instant validUntil;
+}
@@ -0,0 +1,17 @@
+package API_BoPhieu.dto.attendant;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ParticipantFilter {
+    private Integer eventId;
+    private Boolean checkedIn;
+    private Integer unitId;
+    private String namePrefix;
+}
@@ -0,0 +1,29 @@
+package API_BoPhieu.dto.attendant;
+
+import java.time.Instant;
+import java.util.List;
+import API_BoPhieu.constants.ImportStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ParticipantImportResponse {
+    private String jobId;
+    private Integer eventId;
+    private String fileName;
+    private ImportStatus status;
+    private long processedRows;
+    private long importedCount;
+    private long alreadyRegisteredCount;
+    private long failedCount;
+    private List<ParticipantImportRowError> errors;
+    private boolean errorsTruncated;
+    private String message;
+    private Instant startedAt;
+    private Instant finishedAt;
+}
@@ -0,0 +1,16 @@
+package API_BoPhieu.dto.attendant;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ParticipantImportRowError {
+    private long rowNumber;
+    private String email;
+    private String message;
+}
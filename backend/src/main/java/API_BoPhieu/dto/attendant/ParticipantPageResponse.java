@@ -0,0 +1,19 @@
+package API_BoPhieu.dto.attendant;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ParticipantPageResponse {
+    private List<ParticipantResponse> content;
+    private int size;
+    private boolean hasNext;
+    /** ID người tham gia cuối trang, truyền vào tham số {@code after} để lấy trang tiếp theo. */
+    private Integer nextCursor;
+}
@@ -0,0 +1,18 @@
+package API_BoPhieu.dto.attendant;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UnitTurnout {
+    private Integer unitId;
+    private String unitName;
+    private long registered;
+    private long checkedIn;
+    private double turnoutPercent;
+}
@@ -1,5 +1,6 @@
 package API_BoPhieu.dto.common;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
@@ -27,7 +28,8 @@ public class PageResponse<T> {
     private boolean empty;
 
     public PageResponse(Page<T> page) {
-        this.content = page.getContent();
+        // Sao chép sang ArrayList để giá trị đọc lại được từ cache Redis
+        this.content = new ArrayList<>(page.getContent());
         this.page = page.getNumber();
         this.size = page.getSize();
         this.totalElements = page.getTotalElements();
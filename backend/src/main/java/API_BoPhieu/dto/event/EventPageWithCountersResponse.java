@@ -13,4 +13,6 @@ import lombok.NoArgsConstructor;
 public class EventPageWithCountersResponse {
     private PageResponse<EventResponse> pagination;
     private EventCountersResponse counters;
+    /** True khi từ khóa quá rộng và chỉ các sự kiện liên quan nhất được tính vào kết quả. */
+    private boolean searchTruncated;
 }
@@ -0,0 +1,15 @@
+package API_BoPhieu.dto.poll;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PollResultSnapshotResponse {
+    private String etag;
+    private PollStatsResponse results;
+}
@@ -0,0 +1,19 @@
+package API_BoPhieu.dto.poll;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PollResultsDelta {
+    private Integer pollId;
+    private Integer totalVotes;
+    private Integer totalVoters;
+    /** Số phiếu hiện tại của các phương án đã thay đổi kể từ lần gửi trước, theo option ID. */
+    private Map<Integer, Integer> options;
+}
@@ -0,0 +1,13 @@
+package API_BoPhieu.dto.qr;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class QrImage {
+    private final byte[] content;
+    private final String contentType;
+    /** ETag mạnh, tính từ nội dung mã hóa và tùy chọn hiển thị. */
+    private final String etag;
+}
@@ -0,0 +1,22 @@
+package API_BoPhieu.dto.qr;
+
+import API_BoPhieu.constants.QrImageFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QrRenderOptions {
+    @Builder.Default
+    private QrImageFormat format = QrImageFormat.PNG;
+    /** Kích thước mong muốn tính bằng pixel; ảnh thực tế là bội số nguyên của số module. */
+    @Builder.Default
+    private int size = 300;
+    /** Số module trắng bao quanh mã (quiet zone). */
+    @Builder.Default
+    private int margin = 4;
+}
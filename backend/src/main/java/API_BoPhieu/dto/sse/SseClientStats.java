@@ -0,0 +1,19 @@
+package API_BoPhieu.dto.sse;
+
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SseClientStats {
+    private Instant connectedAt;
+    private Instant lastSentAt;
+    private int queuedEvents;
+    private long queuedBytes;
+    private long sentBytes;
+}
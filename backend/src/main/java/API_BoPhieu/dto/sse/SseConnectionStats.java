@@ -0,0 +1,22 @@
+package API_BoPhieu.dto.sse;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SseConnectionStats {
+    private int connections;
+    private int maxConnections;
+    private int maxConnectionsPerEvent;
+    /** Tổng số byte bản tin đang chờ gửi trong hàng đợi của mọi client. */
+    private long queuedBytes;
+    /** Tổng số byte giữ trong vòng đệm phát lại của mọi sự kiện. */
+    private long replayBytes;
+    private List<SseEventConnections> events;
+}
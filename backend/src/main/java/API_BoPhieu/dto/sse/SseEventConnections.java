@@ -0,0 +1,19 @@
+package API_BoPhieu.dto.sse;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SseEventConnections {
+    private Integer eventId;
+    private int connections;
+    private long queuedBytes;
+    private long replayBytes;
+    private List<SseClientStats> clients;
+}
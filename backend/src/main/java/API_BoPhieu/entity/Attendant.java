@@ -8,6 +8,7 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
@@ -22,6 +23,9 @@ import lombok.Setter;
 @Entity
 @Table(name = "attendants", uniqueConstraints = {
         @UniqueConstraint(columnNames = { "event_id", "user_id" })
+}, indexes = {
+        // (event_id, id) cho phân trang keyset danh sách người tham gia
+        @Index(name = "idx_attendants_event", columnList = "event_id")
 })
 public class Attendant {
 
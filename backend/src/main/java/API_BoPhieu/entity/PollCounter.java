@@ -0,0 +1,28 @@
+package API_BoPhieu.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "poll_counters")
+public class PollCounter {
+    @Id
+    @Column(name = "poll_id")
+    private Integer pollId;
+
+    @Column(name = "total_votes", nullable = false)
+    private Integer totalVotes = 0;
+
+    @Column(name = "total_voters", nullable = false)
+    private Integer totalVoters = 0;
+}
@@ -0,0 +1,30 @@
+package API_BoPhieu.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "poll_option_counters",
+        indexes = {@Index(name = "idx_poll_option_counters_poll", columnList = "poll_id")})
+public class PollOptionCounter {
+    @Id
+    @Column(name = "option_id")
+    private Integer optionId;
+
+    @Column(name = "poll_id", nullable = false)
+    private Integer pollId;
+
+    @Column(name = "vote_count", nullable = false)
+    private Integer voteCount = 0;
+}
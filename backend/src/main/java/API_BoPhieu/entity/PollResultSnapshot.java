@@ -0,0 +1,43 @@
+package API_BoPhieu.entity;
+
+import java.time.Instant;
+import org.hibernate.annotations.Immutable;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Immutable
+@Table(name = "poll_result_snapshots")
+public class PollResultSnapshot {
+    @Id
+    @Column(name = "poll_id")
+    private Integer pollId;
+
+    @Column(name = "event_id", nullable = false)
+    private Integer eventId;
+
+    @Column(name = "total_votes", nullable = false)
+    private Integer totalVotes;
+
+    @Column(name = "total_voters", nullable = false)
+    private Integer totalVoters;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "etag", nullable = false, length = 64)
+    private String etag;
+
+    @Column(name = "closed_at", nullable = false)
+    private Instant closedAt;
+}
@@ -0,0 +1,46 @@
+package API_BoPhieu.entity;
+
+import java.time.Instant;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Phiếu bầu đã được xác nhận nhưng chưa ghi vào bảng votes. Id tự tăng là thứ tự nhận phiếu, dùng
+ * để phiếu mới hơn của cùng một người luôn thắng.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "staged_ballots",
+        indexes = {@Index(name = "idx_staged_ballots_poll_user", columnList = "poll_id, user_id")})
+public class StagedBallot {
+    @Id
+    @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false)
+    private Integer eventId;
+
+    @Column(name = "poll_id", nullable = false)
+    private Integer pollId;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    /** Danh sách option ID, phân cách bằng dấu phẩy. */
+    @Column(name = "option_ids", nullable = false, length = 1000)
+    private String optionIds;
+
+    @Column(name = "accepted_at", nullable = false)
+    private Instant acceptedAt;
+}
@@ -5,8 +5,10 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -17,7 +19,10 @@ import lombok.Setter;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "votes")
+@Table(name = "votes",
+        uniqueConstraints = {@UniqueConstraint(name = "uk_votes_poll_user_option",
+                columnNames = {"poll_id", "user_id", "option_id"})},
+        indexes = {@Index(name = "idx_votes_poll_user", columnList = "poll_id, user_id")})
 public class Vote {
     @Id
     @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
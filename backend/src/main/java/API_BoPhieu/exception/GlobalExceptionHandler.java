@@ -1,5 +1,6 @@
 package API_BoPhieu.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
@@ -71,6 +72,17 @@ public class GlobalExceptionHandler {
         return build(HttpStatus.CONFLICT, "Xung đột dữ liệu", ex.getMessage(), req);
     }
 
+    @ExceptionHandler(SseCapacityException.class)
+    public ResponseEntity<ErrorResponse> handleSseCapacity(SseCapacityException ex,
+            HttpServletRequest req) {
+        log.warn("503 {} {} - {}", req.getMethod(), req.getRequestURI(), ex.getMessage());
+        ErrorResponse body = new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Máy chủ đang quá tải", ex.getMessage(), req.getRequestURI());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(body);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleOther(Exception ex, HttpServletRequest req) {
         log.error("500 {} {} - {}", req.getMethod(), req.getRequestURI(), ex.getMessage(), ex);
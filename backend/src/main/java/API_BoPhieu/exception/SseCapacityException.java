@@ -0,0 +1,19 @@
+package API_BoPhieu.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/** Máy chủ đã đủ số kết nối SSE cho phép; client nên thử lại sau {@code retryAfterSeconds}. */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class SseCapacityException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public SseCapacityException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
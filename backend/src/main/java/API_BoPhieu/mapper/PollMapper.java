@@ -1,9 +1,12 @@
 package API_BoPhieu.mapper;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import API_BoPhieu.dto.poll.OptionStatsResponse;
 import API_BoPhieu.dto.poll.PollResponse;
+import API_BoPhieu.dto.poll.PollStatsResponse;
 import API_BoPhieu.entity.Poll;
 import API_BoPhieu.entity.Option;
 
@@ -23,4 +26,30 @@ public class PollMapper {
         response.setUpdatedAt(poll.getUpdatedAt());
         return response;
     }
+
+    public static PollStatsResponse toPollStatsResponse(Poll poll, List<Option> options,
+            Map<Integer, Integer> optionVoteCounts, int totalVotes, int totalVoters) {
+        List<OptionStatsResponse> optionStats = new ArrayList<>();
+        for (Option option : options) {
+            int voteCount = optionVoteCounts.getOrDefault(option.getId(), 0);
+            double percentage = totalVotes > 0 ? (voteCount * 100.0 / totalVotes) : 0.0;
+            OptionStatsResponse stat = new OptionStatsResponse();
+            stat.setId(option.getId());
+            stat.setContent(option.getContent());
+            stat.setVoteCount(voteCount);
+            stat.setPercentage(percentage);
+            optionStats.add(stat);
+        }
+        PollStatsResponse statsResponse = new PollStatsResponse();
+        statsResponse.setId(poll.getId());
+        statsResponse.setTitle(poll.getTitle());
+        statsResponse.setPollType(poll.getPollType());
+        statsResponse.setIsDelete(poll.getIsDelete());
+        statsResponse.setTotalVotes(totalVotes);
+        statsResponse.setTotalVoters(totalVoters);
+        statsResponse.setOptions(optionStats);
+        statsResponse.setStartTime(poll.getStartTime());
+        statsResponse.setEndTime(poll.getEndTime());
+        return statsResponse;
+    }
 }
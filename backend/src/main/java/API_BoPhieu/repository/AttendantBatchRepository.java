@@ -0,0 +1,75 @@
+package API_BoPhieu.repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import lombok.RequiredArgsConstructor;
+
+@Repository
+@RequiredArgsConstructor
+public class AttendantBatchRepository {
+    private static final String INSERT_ATTENDANT_SQL =
+            "INSERT INTO attendants (event_id, user_id, joined_at) VALUES %s "
+                    + "ON DUPLICATE KEY UPDATE id = id";
+    private static final String CHECK_IN_EARLIEST_SQL = "UPDATE attendants a JOIN (VALUES %s) "
+            + "AS v (user_id, checked_time) ON a.user_id = v.user_id "
+            + "SET a.checked_time = LEAST(COALESCE(a.checked_time, v.checked_time), v.checked_time) "
+            + "WHERE a.event_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Thêm người tham gia bằng một câu INSERT nhiều dòng. Chỉ bản ghi trùng (event_id, user_id) bị
+     * bỏ qua; lỗi khác như khóa ngoại hay dữ liệu quá dài vẫn được ném ra. Phía gọi khóa trước các
+     * dòng (event_id, user_id) nên không còn bản ghi trùng chen vào và số dòng ảnh hưởng là số dòng
+     * được thêm.
+     */
+    public int insertSkippingDuplicates(Integer eventId, Collection<Integer> userIds,
+            Instant joinedAt) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        List<Integer> userIdList = new ArrayList<>(userIds);
+        String sql = String.format(INSERT_ATTENDANT_SQL,
+                String.join(", ", Collections.nCopies(userIdList.size(), "(?, ?, ?)")));
+        Timestamp joinedTimestamp = Timestamp.from(joinedAt);
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        return jdbcTemplate.update(sql, ps -> {
+            int index = 1;
+            for (Integer userId : userIdList) {
+                ps.setInt(index++, eventId);
+                ps.setInt(index++, userId);
+                ps.setTimestamp(index++, joinedTimestamp, utc);
+            }
+        });
+    }
+
+    /**
+     * Ghi giờ check-in cho nhiều người bằng một câu UPDATE nối với bảng giá trị, chỉ ghi đè khi giờ
+     * mới sớm hơn giờ đã lưu. Trả về tổng số dòng khớp.
+     */
+    public int markCheckedInEarliest(Integer eventId, List<Integer> userIds,
+            List<Instant> checkedTimes) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        String sql = String.format(CHECK_IN_EARLIEST_SQL,
+                String.join(", ", Collections.nCopies(userIds.size(), "ROW(?, ?)")));
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        return jdbcTemplate.update(sql, ps -> {
+            int index = 1;
+            for (int i = 0; i < userIds.size(); i++) {
+                ps.setInt(index++, userIds.get(i));
+                ps.setTimestamp(index++, Timestamp.from(checkedTimes.get(i)), utc);
+            }
+            ps.setInt(index, eventId);
+        });
+    }
+}
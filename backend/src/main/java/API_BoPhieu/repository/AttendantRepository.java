@@ -1,23 +1,47 @@
 package API_BoPhieu.repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import API_BoPhieu.entity.Attendant;
+import jakarta.persistence.LockModeType;
 
 public interface AttendantRepository extends JpaRepository<Attendant, Integer> {
     boolean existsByUserIdAndEventId(Integer userId, Integer eventId);
 
     List<Attendant> findByEventIdAndCheckedTimeIsNotNullOrderByCheckedTimeAsc(Integer eventId);
 
+    /** Mỗi dòng gồm eventId, userId, checkedTime, unitId của người đã check-in. */
+    @Query("SELECT a.eventId, a.userId, a.checkedTime, u.unitId FROM Attendant a, User u "
+            + "WHERE u.id = a.userId AND a.eventId IN :eventIds AND a.checkedTime IS NOT NULL")
+    List<Object[]> findCheckInsByEventIds(@Param("eventIds") Collection<Integer> eventIds);
+
+    @Query("SELECT u.unitId, COUNT(a.id) FROM Attendant a, User u "
+            + "WHERE u.id = a.userId AND a.eventId = :eventId GROUP BY u.unitId")
+    List<Object[]> countParticipantsByUnit(@Param("eventId") Integer eventId);
+
     List<Attendant> findByEventId(Integer eventId);
 
+    /** Mỗi dòng gồm userId, email, name của người tham gia. */
+    @Query("SELECT a.userId, u.email, u.name FROM Attendant a, User u "
+            + "WHERE u.id = a.userId AND a.eventId = :eventId ORDER BY a.id")
+    List<Object[]> findParticipantIdentities(@Param("eventId") Integer eventId);
+
+    @Query("SELECT COUNT(a) > 0 FROM Attendant a, User u "
+            + "WHERE u.id = a.userId AND a.eventId = :eventId AND u.email = :email")
+    boolean existsByEventIdAndUserEmail(@Param("eventId") Integer eventId,
+            @Param("email") String email);
+
     Optional<Attendant> findByUserIdAndEventId(Integer userId, Integer eventId);
 
     boolean existsByEventIdAndUserId(Integer eventId, Integer userId);
@@ -28,6 +52,12 @@ public interface AttendantRepository extends JpaRepository<Attendant, Integer> {
 
     List<Attendant> findAllByEventIdAndUserIdIn(Integer eventId, List<Integer> userIds);
 
+    /** Khóa dòng của những người trong một lô check-in cho tới khi transaction ghi xong. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Attendant a WHERE a.eventId = :eventId AND a.userId IN :userIds")
+    List<Attendant> findAllByEventIdAndUserIdInForUpdate(@Param("eventId") Integer eventId,
+            @Param("userIds") List<Integer> userIds);
+
     @Query("SELECT a.eventId, COUNT(a.userId) FROM Attendant a WHERE a.eventId IN :eventIds GROUP BY a.eventId")
     List<Object[]> countParticipantsByEventIds(@Param("eventIds") List<Integer> eventIds);
 
@@ -35,6 +65,14 @@ public interface AttendantRepository extends JpaRepository<Attendant, Integer> {
     Set<Integer> findRegisteredEventIdsByUserId(@Param("userId") Integer userId,
             @Param("eventIds") List<Integer> eventIds);
 
+    /** Trả về 0 nếu người dùng chưa đăng ký hoặc đã check-in từ trước. */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Attendant a SET a.checkedTime = :checkedTime "
+            + "WHERE a.eventId = :eventId AND a.userId = :userId AND a.checkedTime IS NULL")
+    int markCheckedIn(@Param("eventId") Integer eventId, @Param("userId") Integer userId,
+            @Param("checkedTime") Instant checkedTime);
+
     @Modifying
     long deleteByEventIdAndUserIdIn(Integer eventId, List<Integer> userIds);
 
@@ -10,19 +10,31 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import API_BoPhieu.entity.Event;
+import jakarta.persistence.LockModeType;
 
 @Repository
 public interface EventRepository extends JpaRepository<Event, Integer>, JpaSpecificationExecutor<Event> {
         Optional<Event> findByQrJoinToken(String qrJoinToken);
 
+        @Query("SELECT e.id FROM Event e WHERE e.qrJoinToken = :qrJoinToken")
+        Optional<Integer> findIdByQrJoinToken(@Param("qrJoinToken") String qrJoinToken);
+
+        @Lock(LockModeType.PESSIMISTIC_WRITE)
+        @Query("SELECT e FROM Event e WHERE e.id = :id")
+        Optional<Event> findByIdForUpdate(@Param("id") Integer id);
+
         long countByStatus(EventStatus status);
 
+        @Query("SELECT e.id FROM Event e WHERE e.status = :status")
+        List<Integer> findIdsByStatus(@Param("status") EventStatus status);
+
         Optional<Event> findByIdAndStatus(Integer id, EventStatus status);
 
         Page<Event> findByCreateBy(Integer userId, Pageable pageable);
@@ -38,9 +50,25 @@ public interface EventRepository extends JpaRepository<Event, Integer>, JpaSpeci
         @Query("UPDATE Event e SET e.status = 'COMPLETED' WHERE e.status = 'ONGOING' AND e.endTime <= :now")
         int updateOngoingToCompleted(@Param("now") Instant now);
 
+        /** Hủy sự kiện chỉ khi trạng thái vẫn là {@code previous}; trả về số dòng đã đổi. */
+        @Modifying
+        @Query("UPDATE Event e SET e.status = 'CANCELLED' WHERE e.id = :id AND e.status = :previous")
+        int markCancelled(@Param("id") Integer id, @Param("previous") EventStatus previous);
+
         @Query("SELECT e.status, COUNT(e.id) FROM Event e GROUP BY e.status")
         List<Object[]> countEventsByStatus();
 
         @Query("SELECT COUNT(e.id) FROM Event e JOIN EventManager em ON em.eventId = e.id WHERE em.userId = :userId AND e.status <> 'CANCELLED'")
         long countManagedEventsByUserId(@Param("userId") Integer userId);
+
+        /** Mỗi dòng gồm userId và số sự kiện chưa hủy mà user đó quản lý. */
+        @Query("SELECT em.userId, COUNT(e.id) FROM Event e JOIN EventManager em ON em.eventId = e.id WHERE e.status <> 'CANCELLED' GROUP BY em.userId")
+        List<Object[]> countManagedEventsGroupByUserId();
+
+        /** Mỗi dòng gồm id, title, location, description; phân trang keyset theo id. */
+        @Query("SELECT e.id, e.title, e.location, e.description FROM Event e WHERE e.id > :afterId ORDER BY e.id")
+        List<Object[]> findSearchDocumentsAfterId(@Param("afterId") Integer afterId, Pageable pageable);
+
+        @Query("SELECT e.id, e.title, e.location, e.description FROM Event e WHERE e.updatedAt >= :since")
+        List<Object[]> findSearchDocumentsUpdatedSince(@Param("since") Instant since);
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package API_BoPhieu.repository;
+
+import java.util.List;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+import API_BoPhieu.entity.Event;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+
+@Repository
+@RequiredArgsConstructor
+public class EventSearchRepository {
+    private final EntityManager entityManager;
+
+    /**
+     * Id các sự kiện thỏa {@code spec}, sắp tăng dần theo {@code orderBy}; chỉ đọc cột id để không
+     * phải nạp cả description khi xếp hạng kết quả tìm kiếm.
+     */
+    public List<Integer> findIds(Specification<Event> spec, String orderBy) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Integer> query = criteriaBuilder.createQuery(Integer.class);
+        Root<Event> root = query.from(Event.class);
+        query.select(root.get("id")).where(spec.toPredicate(root, query, criteriaBuilder))
+                .orderBy(criteriaBuilder.asc(root.get(orderBy)), criteriaBuilder.asc(root.get("id")));
+        return entityManager.createQuery(query).getResultList();
+    }
+}
@@ -1,8 +1,11 @@
 package API_BoPhieu.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import API_BoPhieu.entity.Option;
@@ -10,4 +13,9 @@ import API_BoPhieu.entity.Option;
 @Repository
 public interface OptionRepository extends JpaRepository<Option, Integer> {
     List<Option> findByPollId(Integer pollId);
+
+    List<Option> findByPollIdInOrderByIdAsc(Collection<Integer> pollIds);
+
+    @Query("SELECT o.id FROM Option o WHERE o.pollId = :pollId")
+    List<Integer> findIdsByPollId(@Param("pollId") Integer pollId);
 }
@@ -0,0 +1,120 @@
+package API_BoPhieu.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import API_BoPhieu.constants.UnitType;
+import API_BoPhieu.dto.attendant.ParticipantFilter;
+import API_BoPhieu.dto.attendant.ParticipantResponse;
+import API_BoPhieu.dto.unit.UnitResponseDTO;
+import API_BoPhieu.dto.user.UserResponseDTO;
+
+/**
+ * Truy vấn danh sách người tham gia bằng SQL thuần: phân trang keyset theo attendants.id và xuất
+ * toàn bộ qua cursor của MySQL, không dựng entity hay nạp cả danh sách vào bộ nhớ.
+ */
+@Repository
+public class ParticipantQueryRepository {
+    private static final String SELECT_PARTICIPANTS = "SELECT a.id, a.event_id, a.joined_at, "
+            + "a.checked_time, u.id AS user_id, u.name, u.email, u.phone_number, u.enabled, "
+            + "un.id AS unit_id, un.unit_name, un.unit_type, un.parent_id "
+            + "FROM attendants a JOIN users u ON u.id = a.user_id "
+            + "LEFT JOIN units un ON un.id = u.unit_id WHERE a.event_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    public ParticipantQueryRepository(JdbcTemplate jdbcTemplate, DataSource dataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        // fetchSize = Integer.MIN_VALUE bật chế độ đọc từng dòng của MySQL Connector/J
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    /** Lấy tối đa {@code limit} người tham gia có ID lớn hơn {@code afterId}, theo thứ tự ID. */
+    public List<ParticipantResponse> findPage(ParticipantFilter filter, Integer afterId,
+            int limit) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = buildQuery(filter, args);
+        if (afterId != null) {
+            sql.append(" AND a.id > ?");
+            args.add(afterId);
+        }
+        sql.append(" ORDER BY a.id LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), participantMapper(), args.toArray());
+    }
+
+    /** Duyệt toàn bộ người tham gia khớp bộ lọc, mỗi dòng được chuyển cho {@code consumer}. */
+    public void streamAll(ParticipantFilter filter, Consumer<ParticipantResponse> consumer) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = buildQuery(filter, args).append(" ORDER BY a.id");
+        RowMapper<ParticipantResponse> mapper = participantMapper();
+        streamingJdbcTemplate.query(sql.toString(),
+                (RowCallbackHandler) rs -> consumer.accept(mapper.mapRow(rs, rs.getRow())),
+                args.toArray());
+    }
+
+    private StringBuilder buildQuery(ParticipantFilter filter, List<Object> args) {
+        StringBuilder sql = new StringBuilder(SELECT_PARTICIPANTS);
+        args.add(filter.getEventId());
+        if (filter.getCheckedIn() != null) {
+            sql.append(filter.getCheckedIn() ? " AND a.checked_time IS NOT NULL"
+                    : " AND a.checked_time IS NULL");
+        }
+        if (filter.getUnitId() != null) {
+            sql.append(" AND u.unit_id = ?");
+            args.add(filter.getUnitId());
+        }
+        if (filter.getNamePrefix() != null && !filter.getNamePrefix().isBlank()) {
+            sql.append(" AND u.name LIKE ?");
+            args.add(escapeLike(filter.getNamePrefix().trim()) + "%");
+        }
+        return sql;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static RowMapper<ParticipantResponse> participantMapper() {
+        // Instant được Hibernate lưu dưới dạng DATETIME theo UTC nên đọc lại theo UTC
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        return (rs, rowNum) -> {
+            UnitResponseDTO unit = null;
+            int unitId = rs.getInt("unit_id");
+            if (!rs.wasNull()) {
+                int parentId = rs.getInt("parent_id");
+                Integer parent = rs.wasNull() ? null : parentId;
+                String unitType = rs.getString("unit_type");
+                unit = UnitResponseDTO.builder().id(unitId).unitName(rs.getString("unit_name"))
+                        .unitType(unitType != null ? UnitType.valueOf(unitType) : null)
+                        .parentId(parent).build();
+            }
+            UserResponseDTO user = UserResponseDTO.builder().id(rs.getInt("user_id"))
+                    .name(rs.getString("name")).email(rs.getString("email"))
+                    .phoneNumber(rs.getString("phone_number")).enabled(rs.getBoolean("enabled"))
+                    .unit(unit).build();
+            return ParticipantResponse.builder().id(rs.getInt("id"))
+                    .eventId(rs.getInt("event_id")).joinedAt(toInstant(rs, "joined_at", utc))
+                    .checkInTime(toInstant(rs, "checked_time", utc)).user(user).build();
+        };
+    }
+
+    private static Instant toInstant(ResultSet rs, String column, Calendar utc)
+            throws SQLException {
+        Timestamp timestamp = rs.getTimestamp(column, utc);
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+}
@@ -0,0 +1,27 @@
+package API_BoPhieu.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import API_BoPhieu.entity.PollCounter;
+
+@Repository
+public interface PollCounterRepository extends JpaRepository<PollCounter, Integer> {
+    @Modifying
+    @Query(value = "INSERT INTO poll_counters (poll_id, total_votes, total_voters) "
+            + "VALUES (:pollId, GREATEST(:voteDelta, 0), GREATEST(:voterDelta, 0)) "
+            + "ON DUPLICATE KEY UPDATE total_votes = total_votes + :voteDelta, "
+            + "total_voters = total_voters + :voterDelta", nativeQuery = true)
+    int applyDelta(@Param("pollId") Integer pollId, @Param("voteDelta") int voteDelta,
+            @Param("voterDelta") int voterDelta);
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO poll_counters (poll_id, total_votes, total_voters) "
+            + "SELECT p.id, COUNT(v.id), COUNT(DISTINCT v.user_id) FROM polls p "
+            + "LEFT JOIN poll_counters pc ON pc.poll_id = p.id "
+            + "LEFT JOIN votes v ON v.poll_id = p.id " + "WHERE pc.poll_id IS NULL "
+            + "GROUP BY p.id", nativeQuery = true)
+    int backfillMissing();
+}
@@ -0,0 +1,33 @@
+package API_BoPhieu.repository;
+
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import API_BoPhieu.entity.PollOptionCounter;
+
+@Repository
+public interface PollOptionCounterRepository extends JpaRepository<PollOptionCounter, Integer> {
+    List<PollOptionCounter> findByPollId(Integer pollId);
+
+    List<PollOptionCounter> findByPollIdIn(Collection<Integer> pollIds);
+
+    @Modifying
+    @Query(value = "INSERT INTO poll_option_counters (option_id, poll_id, vote_count) "
+            + "VALUES (:optionId, :pollId, GREATEST(:delta, 0)) "
+            + "ON DUPLICATE KEY UPDATE vote_count = vote_count + :delta", nativeQuery = true)
+    int applyDelta(@Param("optionId") Integer optionId, @Param("pollId") Integer pollId,
+            @Param("delta") int delta);
+
+    /** Phải chạy trước {@link PollCounterRepository#backfillMissing()}. */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO poll_option_counters (option_id, poll_id, vote_count) "
+            + "SELECT o.id, o.poll_id, COUNT(v.id) FROM options o "
+            + "LEFT JOIN votes v ON v.option_id = o.id AND v.poll_id = o.poll_id "
+            + "WHERE NOT EXISTS (SELECT 1 FROM poll_counters pc WHERE pc.poll_id = o.poll_id) "
+            + "GROUP BY o.id, o.poll_id", nativeQuery = true)
+    int backfillMissing();
+}
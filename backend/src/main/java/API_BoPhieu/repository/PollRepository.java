@@ -1,17 +1,40 @@
 package API_BoPhieu.repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import API_BoPhieu.entity.Poll;
+import jakarta.persistence.LockModeType;
 
 @Repository
 public interface PollRepository extends JpaRepository<Poll, Integer> {
     List<Poll> findByEventId(Integer eventId);
 
+    List<Poll> findByIsDeleteFalse();
+
+    /** Khóa chia sẻ: nhiều phiếu bầu chạy song song, nhưng việc đóng poll phải chờ chúng commit. */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT p FROM Poll p WHERE p.id = :id")
+    Optional<Poll> findByIdForShare(@Param("id") Integer id);
+
+    /** Đóng poll nếu đang mở; trả về 0 khi poll đã được đóng bởi lời gọi khác. */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Poll p SET p.isDelete = true, p.updatedAt = :now WHERE p.id = :id AND p.isDelete = false")
+    int markClosed(@Param("id") Integer id, @Param("now") Instant now);
+
+    @Query("SELECT p.id FROM Poll p WHERE p.id IN :ids AND p.isDelete = true")
+    List<Integer> findClosedIdsByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Query("SELECT p.id FROM Poll p WHERE p.eventId = :eventId")
+    List<Integer> findIdsByEventId(@Param("eventId") Integer eventId);
+
     @Query("SELECT p FROM Poll p WHERE p.startTime <= :now AND p.endTime >= :now AND p.isDelete = false")
     List<Poll> findActivePollsByTime(@Param("now") Instant now);
 }
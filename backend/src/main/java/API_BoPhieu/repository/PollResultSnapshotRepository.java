@@ -0,0 +1,9 @@
+package API_BoPhieu.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import API_BoPhieu.entity.PollResultSnapshot;
+
+@Repository
+public interface PollResultSnapshotRepository extends JpaRepository<PollResultSnapshot, Integer> {
+}
@@ -1,8 +1,11 @@
 package API_BoPhieu.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import API_BoPhieu.entity.User;
 
@@ -10,8 +13,15 @@ import API_BoPhieu.entity.User;
 public interface UserRepository extends JpaRepository<User, Integer> {
     Optional<User> findByEmail(String email);
 
+    @Query("SELECT u.id FROM User u WHERE u.email = :email")
+    Optional<Integer> findIdByEmail(@Param("email") String email);
+
     Boolean existsByEmail(String email);
 
+    /** Mỗi dòng gồm userId và unitId (có thể null). */
+    @Query("SELECT u.id, u.unitId FROM User u WHERE u.id IN :ids")
+    List<Object[]> findUnitIdsByIds(@Param("ids") Collection<Integer> ids);
+
     List<User> findAllByEmailIn(List<String> emails);
 
     List<User> findByUnitId(Integer unitId);
@@ -0,0 +1,196 @@
+package API_BoPhieu.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.TimeZone;
+import java.util.stream.Collectors;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import API_BoPhieu.service.poll.PendingBallot;
+import lombok.RequiredArgsConstructor;
+
+@Repository
+@RequiredArgsConstructor
+public class VoteBatchRepository {
+    private static final String DELETE_BALLOT_SQL =
+            "DELETE FROM votes WHERE poll_id = ? AND user_id = ?";
+    private static final String INSERT_VOTE_SQL =
+            "INSERT INTO votes (poll_id, user_id, option_id, created_at) VALUES (?, ?, ?, ?)";
+
+    private static final String STAGE_BALLOT_SQL = "INSERT INTO staged_ballots "
+            + "(event_id, poll_id, user_id, option_ids, accepted_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String LOCK_STAGED_SQL =
+            "SELECT id, event_id, poll_id, user_id, option_ids, accepted_at FROM staged_ballots "
+                    + "ORDER BY id LIMIT ? FOR UPDATE";
+    private static final String LOCK_STAGED_BY_POLL_SQL =
+            "SELECT id, event_id, poll_id, user_id, option_ids, accepted_at FROM staged_ballots "
+                    + "WHERE poll_id = ? ORDER BY id FOR UPDATE";
+    private static final String LOCK_STAGED_BY_ID_SQL =
+            "SELECT id, event_id, poll_id, user_id, option_ids, accepted_at FROM staged_ballots "
+                    + "WHERE id = ? FOR UPDATE";
+    private static final String DELETE_STAGED_SQL = "DELETE FROM staged_ballots WHERE id = ?";
+    private static final String DISCARD_STAGED_SQL =
+            "DELETE FROM staged_ballots WHERE poll_id = ? AND user_id = ?";
+    private static final String COUNT_STAGED_SQL = "SELECT COUNT(*) FROM staged_ballots";
+    private static final String VOTED_POLL_IDS_SQL =
+            "SELECT poll_id FROM votes WHERE user_id = ? AND poll_id IN (%1$s) UNION "
+                    + "SELECT poll_id FROM staged_ballots WHERE user_id = ? AND poll_id IN (%1$s)";
+    private static final String VOTER_IDS_SQL = "SELECT user_id FROM votes WHERE poll_id = ? "
+            + "UNION SELECT user_id FROM staged_ballots WHERE poll_id = ?";
+    private static final String LATEST_STAGED_OPTIONS_SQL = "SELECT option_ids FROM staged_ballots "
+            + "WHERE poll_id = ? AND user_id = ? ORDER BY id DESC LIMIT 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Lưu tạm phiếu vào staged_ballots trong transaction của người gọi. */
+    public void stage(PendingBallot ballot) {
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        jdbcTemplate.update(STAGE_BALLOT_SQL, ps -> {
+            ps.setInt(1, ballot.getEventId());
+            ps.setInt(2, ballot.getPollId());
+            ps.setInt(3, ballot.getUserId());
+            ps.setString(4, ballot.getOptionIds().stream().map(String::valueOf)
+                    .collect(Collectors.joining(",")));
+            ps.setTimestamp(5, Timestamp.from(ballot.getAcceptedAt()), utc);
+        });
+    }
+
+    /** Khóa tối đa {@code limit} phiếu lưu tạm cũ nhất, theo thứ tự nhận phiếu. */
+    public List<PendingBallot> lockStaged(int limit) {
+        return jdbcTemplate.query(LOCK_STAGED_SQL, this::mapStaged, limit);
+    }
+
+    /** Khóa mọi phiếu lưu tạm của một poll, theo thứ tự nhận phiếu. */
+    public List<PendingBallot> lockStagedByPoll(Integer pollId) {
+        return jdbcTemplate.query(LOCK_STAGED_BY_POLL_SQL, this::mapStaged, pollId);
+    }
+
+    /** Khóa một phiếu lưu tạm; rỗng khi phiếu đã được replica khác ghi. */
+    public List<PendingBallot> lockStagedById(Long stagedId) {
+        return jdbcTemplate.query(LOCK_STAGED_BY_ID_SQL, this::mapStaged, stagedId);
+    }
+
+    public void deleteStaged(Collection<PendingBallot> ballots) {
+        if (ballots.isEmpty()) {
+            return;
+        }
+        List<Object[]> ids = ballots.stream().map(ballot -> new Object[] {ballot.getStagedId()})
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(DELETE_STAGED_SQL, ids);
+    }
+
+    /** Bỏ các phiếu lưu tạm của (poll, user), dùng khi phiếu mới hơn được ghi thẳng vào votes. */
+    public int discardStaged(Integer pollId, Integer userId) {
+        return jdbcTemplate.update(DISCARD_STAGED_SQL, pollId, userId);
+    }
+
+    /**
+     * Các poll trong danh sách mà user đã có phiếu, trong votes hoặc đang lưu tạm, trong một truy
+     * vấn.
+     */
+    public List<Integer> findVotedPollIds(Collection<Integer> pollIds, Integer userId) {
+        if (pollIds.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = pollIds.stream().map(id -> "?").collect(Collectors.joining(","));
+        List<Object> args = new ArrayList<>(pollIds.size() * 2 + 2);
+        args.add(userId);
+        args.addAll(pollIds);
+        args.add(userId);
+        args.addAll(pollIds);
+        return jdbcTemplate.queryForList(String.format(VOTED_POLL_IDS_SQL, placeholders),
+                Integer.class, args.toArray());
+    }
+
+    /** Mọi user đã có phiếu cho poll, trong votes hoặc đang lưu tạm. */
+    public List<Integer> findVoterIds(Integer pollId) {
+        return jdbcTemplate.queryForList(VOTER_IDS_SQL, Integer.class, pollId, pollId);
+    }
+
+    /** Lựa chọn trong phiếu lưu tạm mới nhất của (poll, user); rỗng khi không có phiếu lưu tạm. */
+    public Optional<List<Integer>> findLatestStagedOptionIds(Integer pollId, Integer userId) {
+        return jdbcTemplate
+                .query(LATEST_STAGED_OPTIONS_SQL,
+                        (rs, rowNum) -> parseOptionIds(rs.getString("option_ids")), pollId, userId)
+                .stream().findFirst();
+    }
+
+    public long countStaged() {
+        Long count = jdbcTemplate.queryForObject(COUNT_STAGED_SQL, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Thay thế toàn bộ phiếu của từng (poll, user) bằng lựa chọn mới, dùng JDBC batch cho cả
+     * DELETE và INSERT. Phải được gọi trong một transaction.
+     */
+    public void replaceBallots(Collection<PendingBallot> ballots) {
+        if (ballots.isEmpty()) {
+            return;
+        }
+        List<PendingBallot> ballotList = new ArrayList<>(ballots);
+        jdbcTemplate.batchUpdate(DELETE_BALLOT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                PendingBallot ballot = ballotList.get(i);
+                ps.setInt(1, ballot.getPollId());
+                ps.setInt(2, ballot.getUserId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return ballotList.size();
+            }
+        });
+
+        List<Object[]> rows = new ArrayList<>();
+        for (PendingBallot ballot : ballotList) {
+            for (Integer optionId : ballot.getOptionIds()) {
+                rows.add(new Object[] {ballot.getPollId(), ballot.getUserId(), optionId,
+                        ballot.getAcceptedAt()});
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        // Instant được Hibernate lưu dưới dạng DATETIME theo UTC, ghi tương tự để created_at khớp
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        jdbcTemplate.batchUpdate(INSERT_VOTE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Object[] row = rows.get(i);
+                ps.setInt(1, (Integer) row[0]);
+                ps.setInt(2, (Integer) row[1]);
+                ps.setInt(3, (Integer) row[2]);
+                ps.setTimestamp(4, Timestamp.from((Instant) row[3]), utc);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    private PendingBallot mapStaged(ResultSet rs, int rowNum) throws SQLException {
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        return new PendingBallot(rs.getLong("id"), rs.getInt("event_id"), rs.getInt("poll_id"),
+                rs.getInt("user_id"), parseOptionIds(rs.getString("option_ids")),
+                rs.getTimestamp("accepted_at", utc).toInstant());
+    }
+
+    private List<Integer> parseOptionIds(String optionIds) {
+        return Arrays.stream(optionIds.split(",")).map(Integer::valueOf)
+                .collect(Collectors.toList());
+    }
+}
@@ -1,13 +1,16 @@
 package API_BoPhieu.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import API_BoPhieu.entity.Vote;
+import jakarta.persistence.LockModeType;
 
 @Repository
 public interface VoteRepository extends JpaRepository<Vote, Integer> {
@@ -15,8 +18,31 @@ public interface VoteRepository extends JpaRepository<Vote, Integer> {
 
     List<Vote> findByPollIdAndUserId(Integer pollId, Integer userId);
 
+    List<Vote> findByPollIdAndUserIdIn(Integer pollId, Collection<Integer> userIds);
+
+    /**
+     * Khóa phiếu hiện có của người bỏ phiếu (kể cả khoảng trống trên chỉ mục khi chưa có phiếu) để
+     * hai lần bỏ phiếu đồng thời của cùng người không cùng đọc một phiếu cũ.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM Vote v WHERE v.pollId = :pollId AND v.userId = :userId")
+    List<Vote> findByPollIdAndUserIdForUpdate(@Param("pollId") Integer pollId,
+            @Param("userId") Integer userId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM Vote v WHERE v.pollId = :pollId AND v.userId IN :userIds")
+    List<Vote> findByPollIdAndUserIdInForUpdate(@Param("pollId") Integer pollId,
+            @Param("userIds") Collection<Integer> userIds);
+
     boolean existsByPollIdAndUserId(Integer pollId, Integer userId);
 
+    @Query("SELECT DISTINCT v.pollId FROM Vote v WHERE v.pollId IN :pollIds AND v.userId = :userId")
+    List<Integer> findPollIdsVotedByUser(@Param("pollIds") Collection<Integer> pollIds,
+            @Param("userId") Integer userId);
+
+    @Query("SELECT DISTINCT v.userId FROM Vote v WHERE v.pollId = :pollId")
+    List<Integer> findDistinctUserIdsByPollId(@Param("pollId") Integer pollId);
+
     @Query("SELECT COUNT(v) FROM Vote v WHERE v.pollId = :pollId")
     Integer countVotesByPollId(@Param("pollId") Integer pollId);
 
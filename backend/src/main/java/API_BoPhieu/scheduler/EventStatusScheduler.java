@@ -8,7 +8,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import API_BoPhieu.config.CacheGenerations;
+import API_BoPhieu.constants.EventStatus;
 import API_BoPhieu.repository.EventRepository;
+import API_BoPhieu.service.event.EventCounterStore;
 import jakarta.transaction.Transactional;
 
 @Component
@@ -19,6 +22,12 @@ public class EventStatusScheduler {
     @Autowired
     private EventRepository eventRepository;
 
+    @Autowired
+    private CacheGenerations cacheGenerations;
+
+    @Autowired
+    private EventCounterStore eventCounterStore;
+
     @Scheduled(cron = "0 * * * * *")
     @Transactional
     public void updateEventStatuses() {
@@ -27,14 +36,20 @@ public class EventStatusScheduler {
 
         try {
             int toOngoingCount = eventRepository.updateUpcomingToOngoing(now);
+            eventCounterStore.statusChanged(EventStatus.UPCOMING, EventStatus.ONGOING, toOngoingCount);
             if (toOngoingCount > 0) {
                 LOG.info("[CRON JOB] Đã cập nhật {} sự kiện từ SẮP DIỄN RA thành ĐANG DIỄN RA.", toOngoingCount);
             }
 
             int toCompletedCount = eventRepository.updateOngoingToCompleted(now);
+            eventCounterStore.statusChanged(EventStatus.ONGOING, EventStatus.COMPLETED, toCompletedCount);
             if (toCompletedCount > 0) {
                 LOG.info("[CRON JOB] Đã cập nhật {} sự kiện từ ĐANG DIỄN RA thành ĐÃ HOÀN THÀNH.", toCompletedCount);
             }
+
+            if (toOngoingCount > 0 || toCompletedCount > 0) {
+                cacheGenerations.bumpAll();
+            }
         } catch (Exception e) {
             LOG.error("[CRON JOB] Lỗi trong quá trình cập nhật trạng thái sự kiện", e);
         }
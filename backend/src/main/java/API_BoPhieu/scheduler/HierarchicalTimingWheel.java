@@ -0,0 +1,140 @@
+package API_BoPhieu.scheduler;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bánh xe thời gian phân cấp: tầng thấp nhất có {@code wheelSize} ô, mỗi ô rộng {@code tickMillis};
+ * mỗi tầng phía trên có ô rộng bằng cả vòng của tầng dưới và chỉ được tạo khi cần. Thêm, hủy và
+ * lấy các khóa đến hạn đều có chi phí O(1) trên mỗi khóa, không cần quét toàn bộ danh sách.
+ *
+ * <p>
+ * Thời điểm đến hạn được làm tròn lên theo {@code tickMillis}, nên một khóa không bao giờ đến hạn
+ * sớm hơn thời điểm đã đặt. Lớp này được đồng bộ hóa và có thể gọi từ nhiều luồng.
+ */
+public class HierarchicalTimingWheel<K> {
+    private final long tickMillis;
+    private final int wheelSize;
+    private final Level lowest;
+    private final Map<K, Entry<K>> entries = new HashMap<>();
+    /** Các khóa được đặt với thời điểm đã qua, trả về ở lần advance kế tiếp. */
+    private final List<Entry<K>> overdue = new ArrayList<>();
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, Instant start) {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.lowest = new Level(tickMillis, start.toEpochMilli());
+    }
+
+    /** Đặt (hoặc đặt lại) thời điểm đến hạn của khóa. */
+    public synchronized void schedule(K key, Instant deadline) {
+        long deadlineMillis =
+                Math.floorDiv(deadline.toEpochMilli() + tickMillis - 1, tickMillis) * tickMillis;
+        Entry<K> entry = new Entry<>(key, deadlineMillis);
+        Entry<K> previous = entries.put(key, entry);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        if (!lowest.add(entry)) {
+            overdue.add(entry);
+        }
+    }
+
+    public synchronized void cancel(K key) {
+        Entry<K> previous = entries.remove(key);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** Quay bánh xe tới thời điểm {@code now} và trả về các khóa đã đến hạn theo thứ tự thời gian. */
+    public synchronized List<K> advance(Instant now) {
+        List<Entry<K>> due = new ArrayList<>(overdue);
+        overdue.clear();
+        lowest.advanceTo(now.toEpochMilli(), due);
+
+        List<K> keys = new ArrayList<>(due.size());
+        for (Entry<K> entry : due) {
+            if (!entry.cancelled && entries.remove(entry.key, entry)) {
+                keys.add(entry.key);
+            }
+        }
+        return keys;
+    }
+
+    private static final class Entry<K> {
+        private final K key;
+        private final long deadline;
+        private boolean cancelled;
+
+        private Entry(K key, long deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+    }
+
+    private final class Level {
+        private final long tick;
+        private final long interval;
+        private final List<List<Entry<K>>> buckets;
+        private long currentTime;
+        private Level overflow;
+
+        private Level(long tick, long startMillis) {
+            this.tick = tick;
+            this.interval = tick * wheelSize;
+            this.currentTime = startMillis - (startMillis % tick);
+            this.buckets = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                buckets.add(new ArrayList<>());
+            }
+        }
+
+        /** Trả về false nếu khóa đã đến hạn ở ô hiện tại. */
+        private boolean add(Entry<K> entry) {
+            if (entry.deadline < currentTime + tick) {
+                return false;
+            }
+            if (entry.deadline < currentTime + interval) {
+                buckets.get(indexOf(entry.deadline)).add(entry);
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Level(interval, currentTime);
+            }
+            return overflow.add(entry);
+        }
+
+        private void advanceTo(long time, List<Entry<K>> due) {
+            while (currentTime + tick <= time) {
+                currentTime += tick;
+                if (overflow != null) {
+                    overflow.advanceTo(currentTime, due);
+                }
+                List<Entry<K>> bucket = buckets.get(indexOf(currentTime));
+                if (bucket.isEmpty()) {
+                    continue;
+                }
+                List<Entry<K>> expired = new ArrayList<>(bucket);
+                bucket.clear();
+                // Khóa từ tầng trên được hạ xuống tầng dưới cùng; khóa không còn chỗ là đã đến hạn
+                for (Entry<K> entry : expired) {
+                    if (!entry.cancelled && !lowest.add(entry)) {
+                        due.add(entry);
+                    }
+                }
+            }
+        }
+
+        private int indexOf(long time) {
+            return (int) ((time / tick) % wheelSize);
+        }
+    }
+}
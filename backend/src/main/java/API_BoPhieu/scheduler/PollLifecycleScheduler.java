@@ -0,0 +1,122 @@
+package API_BoPhieu.scheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import API_BoPhieu.entity.Poll;
+import API_BoPhieu.repository.PollRepository;
+import API_BoPhieu.service.poll.PollClosedEvent;
+import API_BoPhieu.service.poll.PollScheduleChangedEvent;
+import API_BoPhieu.service.poll.PollService;
+import API_BoPhieu.service.sse.SseService;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Mở/đóng poll đúng thời điểm startTime/endTime. Các mốc sắp tới được nạp từ DB một lần khi khởi
+ * động, sau đó được cập nhật qua {@link PollScheduleChangedEvent} và giữ trong bánh xe thời gian,
+ * nên mỗi giây chỉ xử lý các poll thực sự đến hạn.
+ */
+@Component
+@RequiredArgsConstructor
+public class PollLifecycleScheduler {
+    public static final String POLL_OPENED_EVENT = "poll-opened";
+    public static final String POLL_CLOSED_EVENT = "poll-closed";
+
+    private static final Logger LOG = LoggerFactory.getLogger(PollLifecycleScheduler.class);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+
+    private final PollRepository pollRepository;
+    private final PollService pollService;
+    private final SseService sseService;
+
+    private final HierarchicalTimingWheel<PollTransition> timingWheel =
+            new HierarchicalTimingWheel<>(1000, 60, Instant.now());
+
+    private enum Phase {
+        OPEN, CLOSE
+    }
+
+    private record PollTransition(Integer pollId, Integer eventId, Phase phase) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPendingTransitions() {
+        List<Poll> openPolls = pollRepository.findByIsDeleteFalse();
+        Instant now = Instant.now();
+        for (Poll poll : openPolls) {
+            schedule(poll.getId(), poll.getEventId(), poll.getStartTime(), poll.getEndTime(), now);
+        }
+        LOG.info("[POLL SCHEDULER] Đã nạp {} mốc mở/đóng của {} poll đang mở", timingWheel.size(),
+                openPolls.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPollScheduleChanged(PollScheduleChangedEvent event) {
+        if (event.isClosed()) {
+            timingWheel.cancel(new PollTransition(event.getPollId(), event.getEventId(), Phase.OPEN));
+            timingWheel
+                    .cancel(new PollTransition(event.getPollId(), event.getEventId(), Phase.CLOSE));
+            return;
+        }
+        schedule(event.getPollId(), event.getEventId(), event.getStartTime(), event.getEndTime(),
+                Instant.now());
+    }
+
+    /**
+     * Chỉ lời gọi thực sự đóng poll mới phát sự kiện này, nên dù mọi replica cùng đến hạn đóng,
+     * client chỉ nhận một bản tin poll-closed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPollClosed(PollClosedEvent event) {
+        sseService.sendEventToClients(event.getEventId(), POLL_CLOSED_EVENT, event.getResults());
+    }
+
+    @Scheduled(fixedRate = 1000)
+    public void tick() {
+        for (PollTransition transition : timingWheel.advance(Instant.now())) {
+            try {
+                if (transition.phase() == Phase.OPEN) {
+                    open(transition);
+                } else {
+                    close(transition);
+                }
+            } catch (Exception e) {
+                LOG.error("[POLL SCHEDULER] Lỗi khi xử lý mốc {} của poll ID {}, thử lại sau {} giây",
+                        transition.phase(), transition.pollId(), RETRY_DELAY.toSeconds(), e);
+                timingWheel.schedule(transition, Instant.now().plus(RETRY_DELAY));
+            }
+        }
+    }
+
+    private void schedule(Integer pollId, Integer eventId, Instant startTime, Instant endTime,
+            Instant now) {
+        PollTransition open = new PollTransition(pollId, eventId, Phase.OPEN);
+        if (startTime.isAfter(now)) {
+            timingWheel.schedule(open, startTime);
+        } else {
+            timingWheel.cancel(open);
+        }
+        timingWheel.schedule(new PollTransition(pollId, eventId, Phase.CLOSE), endTime);
+    }
+
+    private void open(PollTransition transition) {
+        LOG.info("[POLL SCHEDULER] Poll ID {} đã đến giờ mở", transition.pollId());
+        sseService.sendEventToClients(transition.eventId(), POLL_OPENED_EVENT,
+                Map.of("pollId", transition.pollId()));
+    }
+
+    private void close(PollTransition transition) {
+        pollService.closePoll(transition.pollId());
+        LOG.info("[POLL SCHEDULER] Poll ID {} đã đến giờ đóng", transition.pollId());
+    }
+}
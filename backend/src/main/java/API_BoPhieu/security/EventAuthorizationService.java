@@ -1,6 +1,7 @@
 package API_BoPhieu.security;
 
 import API_BoPhieu.constants.EventRole;
+import API_BoPhieu.repository.AttendantRepository;
 import API_BoPhieu.repository.EventManagerRepo;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
@@ -11,6 +12,7 @@ import org.springframework.stereotype.Component;
 public class EventAuthorizationService {
 
     private final EventManagerRepo repo;
+    private final AttendantRepository attendantRepository;
 
     public boolean hasEventRole(Authentication authentication,
             Integer eventId,
@@ -23,4 +25,11 @@ public class EventAuthorizationService {
                 .isPresent();
 
     }
+
+    /** Người quản lý/nhân viên của sự kiện hoặc người tham gia đã đăng ký. */
+    public boolean canSubscribe(Authentication authentication, Integer eventId) {
+        String email = authentication.getName();
+        return repo.findRoleTypeByEmail(eventId, email).isPresent()
+                || attendantRepository.existsByEventIdAndUserEmail(eventId, email);
+    }
 }
@@ -0,0 +1,96 @@
+package API_BoPhieu.service.attendant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import API_BoPhieu.config.CacheGenerations;
+import API_BoPhieu.config.DomainEventExecutor;
+import API_BoPhieu.dto.attendant.ParticipantResponse;
+import API_BoPhieu.service.attendant.ParticipantCheckedInEvent.Arrival;
+import API_BoPhieu.service.sse.SseService;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Xử lý các thay đổi người tham gia sau khi transaction commit. Cache được vô hiệu ngay trên luồng
+ * commit, nên request tiếp theo của cùng client không đọc lại dữ liệu cũ; thống kê check-in và
+ * thông báo SSE chạy trên {@link DomainEventExecutor} để không kéo dài thời gian giữ kết nối DB hay
+ * khóa dòng của request. Client không bao giờ thấy thay đổi bị rollback.
+ */
+@Component
+@RequiredArgsConstructor
+public class AttendantEventListener {
+    private static final Logger log = LoggerFactory.getLogger(AttendantEventListener.class);
+    static final String CHECKED_IN_EVENT = "participant-checked-in";
+    static final String BATCH_CHECKED_IN_EVENT = "participants-checked-in";
+
+    private final DomainEventExecutor domainEventExecutor;
+    private final CacheGenerations cacheGenerations;
+    private final CacheManager cacheManager;
+    private final CheckInAnalytics checkInAnalytics;
+    private final ParticipantDetailsLoader participantDetailsLoader;
+    private final SseService sseService;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onParticipantCheckedIn(ParticipantCheckedInEvent event) {
+        Integer eventId = event.getEventId();
+        // Check-in chỉ đổi chi tiết sự kiện, số người tham gia trên trang danh sách giữ nguyên
+        evictParticipants(eventId);
+        cacheGenerations.bumpNow(CacheGenerations.event(eventId));
+        domainEventExecutor.execute(CHECKED_IN_EVENT, () -> {
+            for (Arrival arrival : event.getArrivals()) {
+                checkInAnalytics.recordCheckIn(eventId, arrival.userId(), arrival.unitId(),
+                        arrival.checkedTime(), arrival.unitKnown());
+            }
+            if (event.isBatch()) {
+                sseService.sendEventToClients(eventId, BATCH_CHECKED_IN_EVENT,
+                        event.getParticipants());
+            } else {
+                event.getParticipants().forEach(participant -> sseService.sendEventToClients(
+                        eventId, CHECKED_IN_EVENT, resolve(event, participant)));
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onParticipantAdded(ParticipantAddedEvent event) {
+        participantsChanged(event.getEventId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onParticipantRemoved(ParticipantRemovedEvent event) {
+        participantsChanged(event.getEventId());
+    }
+
+    /** Số người tham gia đổi: cả chi tiết sự kiện lẫn các trang danh sách đều cũ. */
+    private void participantsChanged(Integer eventId) {
+        evictParticipants(eventId);
+        cacheGenerations.bumpNow(CacheGenerations.event(eventId), CacheGenerations.EVENT_LIST,
+                CacheGenerations.MANAGED_EVENTS);
+    }
+
+    /** Nạp đủ thông tin cho check-in từ đường chỉ có userId, để mọi bản tin cùng một dạng. */
+    private ParticipantResponse resolve(ParticipantCheckedInEvent event,
+            ParticipantResponse participant) {
+        if (!event.isDetailsPending() || !sseService.hasClients(event.getEventId())) {
+            return participant;
+        }
+        return participantDetailsLoader.load(event.getEventId(), participant.getUser().getId())
+                .orElse(participant);
+    }
+
+    private void evictParticipants(Integer eventId) {
+        Cache participants = cacheManager.getCache("PARTICIPANTS_BY_EVENT");
+        if (participants != null) {
+            // evictIfPresent xóa ngay; evict của cache transaction-aware sẽ chờ một commit không
+            // còn tới
+            try {
+                participants.evictIfPresent("event:" + eventId);
+            } catch (RuntimeException e) {
+                log.error("Không thể xóa cache người tham gia của sự kiện ID {}", eventId, e);
+            }
+        }
+    }
+}
@@ -1,17 +1,33 @@
 package API_BoPhieu.service.attendant;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import API_BoPhieu.dto.attendant.BatchCheckInRequest;
+import API_BoPhieu.dto.attendant.BatchCheckInResponse;
+import API_BoPhieu.dto.attendant.ParticipantFilter;
+import API_BoPhieu.dto.attendant.ParticipantPageResponse;
 import API_BoPhieu.dto.attendant.ParticipantResponse;
 import API_BoPhieu.dto.attendant.ParticipantsDto;
+import API_BoPhieu.dto.qr.QrImage;
+import API_BoPhieu.dto.qr.QrRenderOptions;
 import API_BoPhieu.entity.Attendant;
 
 public interface AttendantService {
 
     List<ParticipantResponse> getParticipantByEventId(Integer eventId);
 
+    ParticipantPageResponse getParticipantPage(ParticipantFilter filter, Integer after, int size);
+
+    void exportParticipants(ParticipantFilter filter, String format, OutputStream out)
+            throws IOException;
+
     Attendant checkIn(String eventToken, String userEmail);
 
-    byte[] generateQrCheck(Integer eventId) throws Exception;
+    BatchCheckInResponse batchCheckIn(Integer eventId, BatchCheckInRequest request,
+            String staffEmail);
+
+    QrImage generateQrCheck(Integer eventId, QrRenderOptions options);
 
     void deleteParticipantByEventIdAndUserId(Integer eventId, Integer userId);
 
@@ -1,25 +1,51 @@
 package API_BoPhieu.service.attendant;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import API_BoPhieu.constants.CheckInOutcome;
 import API_BoPhieu.constants.EventManagement;
 import API_BoPhieu.constants.EventStatus;
+import API_BoPhieu.dto.attendant.BatchCheckInEntry;
+import API_BoPhieu.dto.attendant.BatchCheckInRequest;
+import API_BoPhieu.dto.attendant.BatchCheckInResponse;
+import API_BoPhieu.dto.attendant.BatchCheckInResult;
+import API_BoPhieu.dto.attendant.CheckInTokenClaims;
 import API_BoPhieu.dto.attendant.ParticipantDto;
+import API_BoPhieu.dto.attendant.ParticipantFilter;
+import API_BoPhieu.dto.attendant.ParticipantPageResponse;
 import API_BoPhieu.dto.attendant.ParticipantResponse;
 import API_BoPhieu.dto.attendant.ParticipantsDto;
+import API_BoPhieu.dto.qr.QrImage;
+import API_BoPhieu.dto.qr.QrRenderOptions;
 import API_BoPhieu.dto.unit.UnitResponseDTO;
 import API_BoPhieu.dto.user.UserResponseDTO;
 import API_BoPhieu.entity.Attendant;
@@ -29,13 +55,17 @@ import API_BoPhieu.entity.Unit;
 import API_BoPhieu.entity.User;
 import API_BoPhieu.exception.AuthException;
 import API_BoPhieu.exception.ConflictException;
+import API_BoPhieu.exception.IllegalArgumentException;
 import API_BoPhieu.exception.NotFoundException;
+import API_BoPhieu.repository.AttendantBatchRepository;
 import API_BoPhieu.repository.AttendantRepository;
 import API_BoPhieu.repository.EventManagerRepository;
 import API_BoPhieu.repository.EventRepository;
+import API_BoPhieu.repository.ParticipantQueryRepository;
 import API_BoPhieu.repository.UnitRepository;
 import API_BoPhieu.repository.UserRepository;
-import API_BoPhieu.service.sse.SseService;
+import API_BoPhieu.service.attendant.ParticipantCheckedInEvent.Arrival;
+import API_BoPhieu.service.event.EventAdmissionControl;
 import lombok.RequiredArgsConstructor;
 
 @Service
@@ -43,18 +73,34 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class AttendantServiceImpl implements AttendantService {
     private static final Logger log = LoggerFactory.getLogger(AttendantServiceImpl.class);
+    private static final int MAX_PAGE_SIZE = 200;
 
     private final AttendantRepository attendantRepository;
-    private final SseService sseService;
+    private final AttendantBatchRepository attendantBatchRepository;
     private final QRCodeService qrCodeService;
     private final UserRepository userRepository;
     private final EventRepository eventRepository;
     private final EventManagerRepository eventManagerRepository;
     private final UnitRepository unitRepository;
+    private final EventAdmissionControl eventAdmissionControl;
+    private final ParticipantQueryRepository participantQueryRepository;
+    private final ObjectMapper objectMapper;
+    private final CheckInTokenSigner checkInTokenSigner;
+    private final ParticipantDetailsLoader participantDetailsLoader;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${api.prefix}")
     private String apiPrefix;
 
+    @Value("${app.checkin.batch.max-entries:1000}")
+    private int batchCheckInMaxEntries;
+
+    @Value("${app.checkin.batch.max-clock-skew:PT5M}")
+    private Duration batchCheckInMaxClockSkew;
+
+    @Value("${app.checkin.token.valid-before-start:PT2H}")
+    private Duration checkInValidBeforeStart;
+
     @Override
     @Transactional(readOnly = true)
     @Cacheable(cacheNames = "PARTICIPANTS_BY_EVENT", key = "'event:' + #eventId")
@@ -93,13 +139,91 @@ public class AttendantServiceImpl implements AttendantService {
     }
 
     @Override
-    @Caching(evict = {
-            @CacheEvict(cacheNames = "PARTICIPANTS_BY_EVENT", key = "'event:' + #result.eventId",
-                    condition = "#result != null"),
-            @CacheEvict(cacheNames = "EVENT_DETAIL", allEntries = true), // vì currentParticipants &
-                                                                         // isRegistered thay đổi
-            @CacheEvict(cacheNames = "EVENT_LIST", allEntries = true),
-            @CacheEvict(cacheNames = "MANAGED_EVENTS", allEntries = true)})
+    @Transactional(readOnly = true)
+    public ParticipantPageResponse getParticipantPage(ParticipantFilter filter, Integer after,
+            int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        // Lấy dư một dòng để biết còn trang sau mà không cần COUNT
+        List<ParticipantResponse> rows =
+                participantQueryRepository.findPage(filter, after, pageSize + 1);
+        boolean hasNext = rows.size() > pageSize;
+        List<ParticipantResponse> content =
+                hasNext ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+        Integer nextCursor = content.isEmpty() ? null : content.get(content.size() - 1).getId();
+        return ParticipantPageResponse.builder().content(content).size(content.size())
+                .hasNext(hasNext).nextCursor(hasNext ? nextCursor : null).build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportParticipants(ParticipantFilter filter, String format, OutputStream out)
+            throws IOException {
+        log.info("Bắt đầu xuất danh sách người tham gia sự kiện ID {} dạng {}", filter.getEventId(),
+                format);
+        try {
+            if ("json".equalsIgnoreCase(format)) {
+                writeJson(filter, out);
+            } else {
+                writeCsv(filter, out);
+            }
+        } catch (UncheckedIOException e) {
+            // Client ngắt kết nối giữa chừng
+            throw e.getCause();
+        }
+    }
+
+    private void writeJson(ParticipantFilter filter, OutputStream out) throws IOException {
+        try (JsonGenerator generator =
+                objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartArray();
+            participantQueryRepository.streamAll(filter, participant -> {
+                try {
+                    objectMapper.writeValue(generator, participant);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        }
+    }
+
+    private void writeCsv(ParticipantFilter filter, OutputStream out) throws IOException {
+        Writer writer =
+                new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        // BOM để Excel nhận đúng tiếng Việt
+        writer.write('\uFEFF');
+        writer.write(
+                "id,user_id,name,email,phone_number,unit_id,unit_name,joined_at,check_in_time\r\n");
+        participantQueryRepository.streamAll(filter, participant -> {
+            UserResponseDTO user = participant.getUser();
+            UnitResponseDTO unit = user.getUnit();
+            try {
+                writer.write(String.join(",", csv(participant.getId()), csv(user.getId()),
+                        csv(user.getName()), csv(user.getEmail()), csv(user.getPhoneNumber()),
+                        csv(unit != null ? unit.getId() : null),
+                        csv(unit != null ? unit.getUnitName() : null),
+                        csv(participant.getJoinedAt()), csv(participant.getCheckInTime())));
+                writer.write("\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n")
+                || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+
+    @Override
     public Attendant checkIn(String eventToken, String userEmail) {
         log.debug("Bắt đầu check-in cho người dùng '{}' với event token '{}'", userEmail,
                 eventToken);
@@ -123,42 +247,210 @@ public class AttendantServiceImpl implements AttendantService {
         log.info("Người dùng '{}' (ID: {}) đã check-in thành công sự kiện '{}' (ID: {})",
                 user.getEmail(), user.getId(), event.getTitle(), event.getId());
 
-        ParticipantResponse response = mapToParticipantResponse(updatedAttendant, user);
-        sseService.sendEventToClients(event.getId(), "participant-checked-in", response);
+        Unit unit = user.getUnitId() != null
+                ? unitRepository.findById(user.getUnitId()).orElse(null)
+                : null;
+        // Cache, thống kê và SSE được xử lý sau khi commit
+        eventPublisher.publishEvent(ParticipantCheckedInEvent.single(event.getId(),
+                mapToParticipantResponse(updatedAttendant, user, unit), new Arrival(user.getId(),
+                        user.getUnitId(), true, updatedAttendant.getCheckedTime())));
         return updatedAttendant;
     }
 
     @Override
-    @Cacheable(cacheNames = "QR_IMAGE", key = "'checkin:' + #eventId")
-    public byte[] generateQrCheck(Integer eventId) throws Exception {
+    public BatchCheckInResponse batchCheckIn(Integer eventId, BatchCheckInRequest request,
+            String staffEmail) {
+        List<BatchCheckInEntry> entries =
+                request.getEntries() != null ? request.getEntries() : Collections.emptyList();
+        if (entries.isEmpty()) {
+            throw new IllegalArgumentException("Danh sách lượt quét đang trống.");
+        }
+        if (entries.size() > batchCheckInMaxEntries) {
+            throw new IllegalArgumentException(
+                    "Mỗi lần đồng bộ tối đa " + batchCheckInMaxEntries + " lượt quét.");
+        }
+        Event event = eventRepository.findById(eventId).orElseThrow(
+                () -> new NotFoundException("Không tìm thấy sự kiện với ID: " + eventId));
+        if (event.getStatus() == EventStatus.CANCELLED) {
+            throw new ConflictException("Sự kiện đã bị hủy.");
+        }
+
+        // Mã cá nhân chỉ cần kiểm tra HMAC; mã sai hoặc của sự kiện khác bị đánh dấu không hợp lệ
+        Integer[] entryUserIds = new Integer[entries.size()];
+        boolean[] invalidTokens = new boolean[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            BatchCheckInEntry entry = entries.get(i);
+            if (entry.getToken() == null) {
+                entryUserIds[i] = entry.getUserId();
+                continue;
+            }
+            CheckInTokenClaims claims = checkInTokenSigner.verify(entry.getToken());
+            if (claims.isValid() && claims.getEventId().equals(eventId)) {
+                entryUserIds[i] = claims.getUserId();
+            } else {
+                invalidTokens[i] = true;
+            }
+        }
+
+        // Tra toàn bộ người dùng bằng hai truy vấn IN thay vì mỗi lượt quét một truy vấn
+        Map<Integer, User> usersById = new HashMap<>();
+        List<Integer> requestedIds = Arrays.stream(entryUserIds).filter(Objects::nonNull)
+                .distinct().collect(Collectors.toList());
+        if (!requestedIds.isEmpty()) {
+            userRepository.findAllById(requestedIds)
+                    .forEach(user -> usersById.put(user.getId(), user));
+        }
+        Map<String, User> usersByEmail = new HashMap<>();
+        List<String> requestedEmails = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            if (entryUserIds[i] == null && !invalidTokens[i] && entries.get(i).getEmail() != null) {
+                requestedEmails.add(entries.get(i).getEmail().trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        if (!requestedEmails.isEmpty()) {
+            userRepository.findAllByEmailIn(requestedEmails).forEach(user -> {
+                usersByEmail.put(user.getEmail().toLowerCase(Locale.ROOT), user);
+                usersById.put(user.getId(), user);
+            });
+        }
+
+        Instant now = Instant.now();
+        Instant latestAccepted = now.plus(batchCheckInMaxClockSkew);
+        // Không nhận giờ quét trước khi mã check-in bắt đầu có hiệu lực
+        Instant earliestAccepted = event.getStartTime().minus(checkInValidBeforeStart);
+        BatchCheckInResult[] results = new BatchCheckInResult[entries.size()];
+        Map<Integer, Integer> earliestIndexByUser = new LinkedHashMap<>();
+        Instant[] scanTimes = new Instant[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            BatchCheckInEntry entry = entries.get(i);
+            User user = entryUserIds[i] != null ? usersById.get(entryUserIds[i])
+                    : entry.getEmail() != null && !invalidTokens[i]
+                            ? usersByEmail.get(entry.getEmail().trim().toLowerCase(Locale.ROOT))
+                            : null;
+            Integer userId = user != null ? user.getId() : entryUserIds[i];
+            scanTimes[i] = entry.getScanTime() != null ? entry.getScanTime() : now;
+            if (invalidTokens[i] || (entryUserIds[i] == null && entry.getEmail() == null)
+                    || scanTimes[i].isAfter(latestAccepted)
+                    || scanTimes[i].isBefore(earliestAccepted)) {
+                results[i] = batchResult(i, userId, CheckInOutcome.INVALID_ENTRY, null);
+            } else if (user == null) {
+                results[i] = batchResult(i, userId, CheckInOutcome.USER_NOT_FOUND, null);
+            } else {
+                // Cùng một người quét nhiều lần thì chỉ giữ lượt sớm nhất
+                Integer previous = earliestIndexByUser.get(userId);
+                if (previous == null || scanTimes[i].isBefore(scanTimes[previous])) {
+                    earliestIndexByUser.put(userId, i);
+                    if (previous != null) {
+                        results[previous] =
+                                batchResult(previous, userId, CheckInOutcome.DUPLICATE, null);
+                    }
+                } else {
+                    results[i] = batchResult(i, userId, CheckInOutcome.DUPLICATE, null);
+                }
+            }
+        }
+
+        Map<Integer, Attendant> attendantsByUser = earliestIndexByUser.isEmpty()
+                ? Collections.emptyMap()
+                : attendantRepository.findAllByEventIdAndUserIdInForUpdate(eventId,
+                        new ArrayList<>(earliestIndexByUser.keySet())).stream()
+                        .collect(Collectors.toMap(Attendant::getUserId, attendant -> attendant));
+        List<Integer> updateUserIds = new ArrayList<>();
+        List<Instant> updateTimes = new ArrayList<>();
+        earliestIndexByUser.forEach((userId, index) -> {
+            Attendant attendant = attendantsByUser.get(userId);
+            if (attendant == null) {
+                results[index] = batchResult(index, userId, CheckInOutcome.NOT_REGISTERED, null);
+            } else if (attendant.getCheckedTime() != null
+                    && !attendant.getCheckedTime().isAfter(scanTimes[index])) {
+                results[index] = batchResult(index, userId, CheckInOutcome.ALREADY_CHECKED_IN,
+                        attendant.getCheckedTime());
+            } else {
+                updateUserIds.add(userId);
+                updateTimes.add(scanTimes[index]);
+            }
+        });
+
+        // Các dòng đã bị khóa khi đọc nên mọi người trong updateUserIds đều được ghi giờ mới
+        attendantBatchRepository.markCheckedInEarliest(eventId, updateUserIds, updateTimes);
+        Map<Integer, Unit> unitsById = participantDetailsLoader.loadUnits(updateUserIds.stream()
+                .map(usersById::get).collect(Collectors.toList()));
+        List<ParticipantResponse> checkedInParticipants = new ArrayList<>();
+        List<Arrival> arrivals = new ArrayList<>();
+        for (int i = 0; i < updateUserIds.size(); i++) {
+            Integer userId = updateUserIds.get(i);
+            int index = earliestIndexByUser.get(userId);
+            Attendant attendant = attendantsByUser.get(userId);
+            boolean firstCheckIn = attendant.getCheckedTime() == null;
+            results[index] = batchResult(index, userId, firstCheckIn ? CheckInOutcome.CHECKED_IN
+                    : CheckInOutcome.EARLIER_TIME_RECORDED, updateTimes.get(i));
+            User user = usersById.get(userId);
+            if (firstCheckIn) {
+                arrivals.add(new Arrival(userId, user.getUnitId(), true, updateTimes.get(i)));
+            }
+            // Cùng dạng bản tin với các đường check-in khác; giờ check-in là giờ vừa ghi
+            ParticipantResponse participant = ParticipantDetailsLoader.toResponse(attendant, user,
+                    user.getUnitId() != null ? unitsById.get(user.getUnitId()) : null);
+            participant.setCheckInTime(updateTimes.get(i));
+            checkedInParticipants.add(participant);
+        }
+
+        int checkedIn = 0;
+        int alreadyCheckedIn = 0;
+        for (BatchCheckInResult result : results) {
+            if (result.getOutcome() == CheckInOutcome.CHECKED_IN
+                    || result.getOutcome() == CheckInOutcome.EARLIER_TIME_RECORDED) {
+                checkedIn++;
+            } else if (result.getOutcome() == CheckInOutcome.ALREADY_CHECKED_IN
+                    || result.getOutcome() == CheckInOutcome.DUPLICATE) {
+                alreadyCheckedIn++;
+            }
+        }
+        if (!checkedInParticipants.isEmpty()) {
+            eventPublisher.publishEvent(
+                    new ParticipantCheckedInEvent(eventId, checkedInParticipants, arrivals, true,
+                            false));
+        }
+        log.info(
+                "Người dùng '{}' đồng bộ {} lượt quét cho sự kiện ID {}: {} check-in, {} đã check-in, {} lỗi",
+                staffEmail, entries.size(), eventId, checkedIn, alreadyCheckedIn,
+                entries.size() - checkedIn - alreadyCheckedIn);
+        return BatchCheckInResponse.builder().eventId(eventId).total(entries.size())
+                .checkedIn(checkedIn).alreadyCheckedIn(alreadyCheckedIn)
+                .failed(entries.size() - checkedIn - alreadyCheckedIn)
+                .results(Arrays.asList(results)).build();
+    }
+
+    private static BatchCheckInResult batchResult(int index, Integer userId,
+            CheckInOutcome outcome, Instant checkInTime) {
+        return BatchCheckInResult.builder().index(index).userId(userId).outcome(outcome)
+                .checkInTime(checkInTime).build();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public QrImage generateQrCheck(Integer eventId, QrRenderOptions options) {
+        // Chỉ việc đọc sự kiện cần kết nối DB, phần vẽ ảnh chạy ngoài transaction
         Event event = eventRepository.findById(eventId)
                 .orElseThrow(() -> new NotFoundException("Không tìm thấy sự kiện ID: " + eventId));
         String checkInUrl = apiPrefix + "/attendants/check-in/" + event.getQrJoinToken();
         log.debug("Tạo QR code cho URL check-in: {}", checkInUrl);
-        return qrCodeService.generateQRCode(checkInUrl);
+        return qrCodeService.render(checkInUrl, options);
     }
 
     @Override
-    @Caching(
-            evict = {@CacheEvict(cacheNames = "PARTICIPANTS_BY_EVENT", key = "'event:' + #eventId"),
-                    @CacheEvict(cacheNames = "EVENT_DETAIL", allEntries = true),
-                    @CacheEvict(cacheNames = "EVENT_LIST", allEntries = true),
-                    @CacheEvict(cacheNames = "MANAGED_EVENTS", allEntries = true)})
     public void deleteParticipantByEventIdAndUserId(Integer eventId, Integer userId) {
         log.debug("Bắt đầu xóa người tham gia ID {} khỏi sự kiện ID {}", userId, eventId);
         Attendant attendant =
                 attendantRepository.findByUserIdAndEventId(userId, eventId).orElseThrow(
                         () -> new NotFoundException("Người tham gia không tồn tại trong sự kiện."));
         attendantRepository.delete(attendant);
+        eventAdmissionControl.release(eventId, 1);
+        eventPublisher.publishEvent(new ParticipantRemovedEvent(eventId, 1));
         log.info("Đã xóa thành công người tham gia ID {} khỏi sự kiện ID {}", userId, eventId);
     }
 
     @Override
-    @Caching(
-            evict = {@CacheEvict(cacheNames = "PARTICIPANTS_BY_EVENT", key = "'event:' + #eventId"),
-                    @CacheEvict(cacheNames = "EVENT_DETAIL", allEntries = true),
-                    @CacheEvict(cacheNames = "EVENT_LIST", allEntries = true),
-                    @CacheEvict(cacheNames = "MANAGED_EVENTS", allEntries = true)})
     public List<ParticipantResponse> addParticipants(Integer eventId,
             ParticipantsDto participantsDto, String adderEmail) {
         log.info("Người dùng '{}' bắt đầu quá trình thêm {} người tham gia vào sự kiện ID {}",
@@ -201,9 +493,8 @@ public class AttendantServiceImpl implements AttendantService {
                     eventId);
             return Collections.emptyList();
         }
-        int currentParticipantsCount = attendantRepository.countByEventId(eventId);
-        if (event.getMaxParticipants() != null
-                && currentParticipantsCount + newParticipants.size() > event.getMaxParticipants()) {
+        if (!eventAdmissionControl.tryReserve(eventId, event.getMaxParticipants(),
+                newParticipants.size())) {
             log.warn(
                     "Thêm người tham gia thất bại: Vượt quá số lượng tối đa cho phép của sự kiện ID {}",
                     eventId);
@@ -217,6 +508,7 @@ public class AttendantServiceImpl implements AttendantService {
             return attendant;
         }).collect(Collectors.toList());
         List<Attendant> savedAttendants = attendantRepository.saveAll(attendantsToSave);
+        eventPublisher.publishEvent(new ParticipantAddedEvent(eventId, savedAttendants.size()));
         log.info("Đã thêm thành công {} người tham gia mới vào sự kiện ID {}",
                 savedAttendants.size(), eventId);
         Map<Integer, User> userMap =
@@ -226,11 +518,6 @@ public class AttendantServiceImpl implements AttendantService {
     }
 
     @Override
-    @Caching(
-            evict = {@CacheEvict(cacheNames = "PARTICIPANTS_BY_EVENT", key = "'event:' + #eventId"),
-                    @CacheEvict(cacheNames = "EVENT_DETAIL", allEntries = true),
-                    @CacheEvict(cacheNames = "EVENT_LIST", allEntries = true),
-                    @CacheEvict(cacheNames = "MANAGED_EVENTS", allEntries = true)})
     public void deleteParticipantsByEventIdAndUsersId(Integer eventId,
             ParticipantsDto participantsDto, String removerEmail) {
         log.info("Người dùng '{}' bắt đầu quá trình xóa {} người tham gia khỏi sự kiện ID {}",
@@ -280,6 +567,8 @@ public class AttendantServiceImpl implements AttendantService {
         if (!finalUserIdsToDelete.isEmpty()) {
             long deletedCount =
                     attendantRepository.deleteByEventIdAndUserIdIn(eventId, finalUserIdsToDelete);
+            eventAdmissionControl.release(eventId, (int) deletedCount);
+            eventPublisher.publishEvent(new ParticipantRemovedEvent(eventId, (int) deletedCount));
             log.info("Đã xóa thành công {}/{} người tham gia khỏi sự kiện ID {}. Yêu cầu bởi '{}'.",
                     deletedCount, userIdsToDelete.size(), eventId, removerEmail);
         } else {
@@ -289,11 +578,6 @@ public class AttendantServiceImpl implements AttendantService {
     }
 
     @Override
-    @Caching(
-            evict = {@CacheEvict(cacheNames = "PARTICIPANTS_BY_EVENT", key = "'event:' + #eventId"),
-                    @CacheEvict(cacheNames = "EVENT_DETAIL", allEntries = true),
-                    @CacheEvict(cacheNames = "EVENT_LIST", allEntries = true),
-                    @CacheEvict(cacheNames = "MANAGED_EVENTS", allEntries = true)})
     public void cancelMyRegistration(Integer eventId, String userEmail) {
         log.debug("Bắt đầu xử lý tự hủy đăng ký cho user '{}' tại sự kiện ID {}", userEmail,
                 eventId);
@@ -318,36 +602,20 @@ public class AttendantServiceImpl implements AttendantService {
                     userEmail, eventId);
             throw new NotFoundException("Bạn chưa đăng ký tham gia sự kiện này.");
         }
+        eventAdmissionControl.release(eventId, (int) deletedCount);
+        eventPublisher.publishEvent(new ParticipantRemovedEvent(eventId, (int) deletedCount));
 
         log.info("Người dùng '{}' đã tự hủy đăng ký thành công khỏi sự kiện '{}' (ID: {})",
                 userEmail, event.getTitle(), eventId);
     }
 
     private ParticipantResponse mapToParticipantResponse(Attendant attendant, User user) {
-        UserResponseDTO userResponse = UserResponseDTO.builder().id(user.getId())
-                .email(user.getEmail()).name(user.getName()).phoneNumber(user.getPhoneNumber())
-                .enabled(user.getEnabled()).roles(user.getRoles()).build();
-
-        return ParticipantResponse.builder().id(attendant.getId()).eventId(attendant.getEventId())
-                .joinedAt(attendant.getJoinedAt()).checkInTime(attendant.getCheckedTime())
-                .user(userResponse).build();
+        return ParticipantDetailsLoader.toResponse(attendant, user, null);
     }
 
     private ParticipantResponse mapToParticipantResponse(Attendant attendant, User user,
             Unit unit) {
-        UnitResponseDTO unitResponse = null;
-        if (unit != null) {
-            unitResponse = UnitResponseDTO.builder().id(unit.getId()).unitName(unit.getUnitName())
-                    .unitType(unit.getUnitType()).parentId(unit.getParentId()).build();
-        }
-
-        UserResponseDTO userResponse = UserResponseDTO.builder().id(user.getId())
-                .email(user.getEmail()).name(user.getName()).phoneNumber(user.getPhoneNumber())
-                .enabled(user.getEnabled()).roles(user.getRoles()).unit(unitResponse).build();
-
-        return ParticipantResponse.builder().id(attendant.getId()).eventId(attendant.getEventId())
-                .joinedAt(attendant.getJoinedAt()).checkInTime(attendant.getCheckedTime())
-                .user(userResponse).build();
+        return ParticipantDetailsLoader.toResponse(attendant, user, unit);
     }
 
     private EventStatus getDisplayStatus(Event event) {
@@ -0,0 +1,343 @@
+package API_BoPhieu.service.attendant;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import API_BoPhieu.constants.EventStatus;
+import API_BoPhieu.dto.attendant.ArrivalBucket;
+import API_BoPhieu.dto.attendant.CheckInAnalyticsResponse;
+import API_BoPhieu.dto.attendant.UnitTurnout;
+import API_BoPhieu.entity.Unit;
+import API_BoPhieu.exception.NotFoundException;
+import API_BoPhieu.repository.AttendantRepository;
+import API_BoPhieu.repository.EventRepository;
+import API_BoPhieu.repository.UnitRepository;
+import API_BoPhieu.repository.UserRepository;
+import API_BoPhieu.service.sse.SseService;
+
+/**
+ * Thống kê lượt check-in theo thời gian thực: mỗi sự kiện giữ một vòng bucket theo phút, tập
+ * userId đã check-in và số check-in theo đơn vị. Dữ liệu được cộng dồn khi check-in, dựng lại từ
+ * DB khi khởi động (sự kiện đang diễn ra) hoặc khi được hỏi lần đầu, và đẩy qua kênh SSE của sự
+ * kiện theo chu kỳ. Với {@code app.sse.mode=redis}, {@link CheckInArrivalRelay} chuyển lượt
+ * check-in giữa các replica và chọn một replica đẩy snapshot mỗi chu kỳ.
+ */
+@Component
+public class CheckInAnalytics {
+    public static final String EVENT_NAME = "checkin-analytics";
+
+    private static final Logger log = LoggerFactory.getLogger(CheckInAnalytics.class);
+    private static final int RATE_WINDOW_MINUTES = 5;
+    private static final int PUSH_WINDOW_MINUTES = 60;
+
+    private final AttendantRepository attendantRepository;
+    private final UserRepository userRepository;
+    private final UnitRepository unitRepository;
+    private final EventRepository eventRepository;
+    private final SseService sseService;
+    private final CheckInArrivalRelay arrivalRelay;
+    private final int windowMinutes;
+    private final Duration registrationRefresh;
+    private final Duration idleTtl;
+
+    private final Map<Integer, EventArrivals> arrivalsByEvent = new ConcurrentHashMap<>();
+    private final Set<Integer> dirtyEvents = ConcurrentHashMap.newKeySet();
+
+    public CheckInAnalytics(AttendantRepository attendantRepository, UserRepository userRepository,
+            UnitRepository unitRepository, EventRepository eventRepository, SseService sseService,
+            Optional<CheckInArrivalRelay> arrivalRelay,
+            @Value("${app.checkin.analytics.window-minutes:240}") int windowMinutes,
+            @Value("${app.checkin.analytics.registration-refresh:PT30S}") Duration registrationRefresh,
+            @Value("${app.checkin.analytics.idle-ttl:PT6H}") Duration idleTtl) {
+        this.attendantRepository = attendantRepository;
+        this.userRepository = userRepository;
+        this.unitRepository = unitRepository;
+        this.eventRepository = eventRepository;
+        this.sseService = sseService;
+        this.windowMinutes = windowMinutes;
+        this.registrationRefresh = registrationRefresh;
+        this.idleTtl = idleTtl;
+        this.arrivalRelay = arrivalRelay.orElse(null);
+        if (this.arrivalRelay != null) {
+            this.arrivalRelay.setLocalDelivery(this::apply);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Integer> ongoingEventIds = eventRepository.findIdsByStatus(EventStatus.ONGOING);
+        if (ongoingEventIds.isEmpty()) {
+            return;
+        }
+        arrivalsByEvent.putAll(load(ongoingEventIds));
+        log.info("Đã dựng lại thống kê check-in cho {} sự kiện đang diễn ra", ongoingEventIds.size());
+    }
+
+    /**
+     * Ghi nhận một lượt check-in; nếu đang trong transaction thì chỉ ghi nhận sau khi commit.
+     * {@code unitId} có thể null khi phía gọi không có sẵn thông tin user, đơn vị sẽ được tra sau.
+     */
+    public void recordCheckIn(Integer eventId, Integer userId, Integer unitId, Instant checkedTime,
+            boolean unitKnown) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager
+                    .registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            record(eventId, userId, unitId, checkedTime, unitKnown);
+                        }
+                    });
+        } else {
+            record(eventId, userId, unitId, checkedTime, unitKnown);
+        }
+    }
+
+    public CheckInAnalyticsResponse getAnalytics(Integer eventId, int minutes) {
+        EventArrivals arrivals = arrivalsByEvent.get(eventId);
+        if (arrivals == null) {
+            if (!eventRepository.existsById(eventId)) {
+                throw new NotFoundException("Không tìm thấy sự kiện với ID: " + eventId);
+            }
+            arrivals = arrivalsByEvent.computeIfAbsent(eventId, id -> load(List.of(id)).get(id));
+        }
+        return snapshot(eventId, arrivals, minutes);
+    }
+
+    @Scheduled(fixedDelayString = "${app.checkin.analytics.push-interval-ms:2000}")
+    public void push() {
+        if (dirtyEvents.isEmpty()) {
+            return;
+        }
+        for (Integer eventId : new ArrayList<>(dirtyEvents)) {
+            dirtyEvents.remove(eventId);
+            EventArrivals arrivals = arrivalsByEvent.get(eventId);
+            if (arrivals == null || !sseService.hasClients(eventId)) {
+                continue;
+            }
+            // Bản tin SSE tới client của mọi replica nên chỉ một replica đẩy mỗi chu kỳ
+            if (arrivalRelay != null && !arrivalRelay.claimPush(eventId)) {
+                continue;
+            }
+            try {
+                sseService.sendEventToClients(eventId, EVENT_NAME,
+                        snapshot(eventId, arrivals, PUSH_WINDOW_MINUTES));
+            } catch (RuntimeException e) {
+                log.error("Không thể đẩy thống kê check-in cho sự kiện ID {}", eventId, e);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.checkin.analytics.sweep-interval-ms:600000}")
+    public void evictIdle() {
+        Instant threshold = Instant.now().minus(idleTtl);
+        arrivalsByEvent.values().removeIf(arrivals -> arrivals.lastAccess.isBefore(threshold));
+    }
+
+    /** Cộng vào thống kê cục bộ ngay, rồi phát cho replica khác; bản nhận lại bị bỏ như bản trùng. */
+    private void record(Integer eventId, Integer userId, Integer unitId, Instant checkedTime,
+            boolean unitKnown) {
+        apply(eventId, userId, unitId, checkedTime, unitKnown);
+        if (arrivalRelay != null) {
+            arrivalRelay.publish(eventId, userId, unitId, checkedTime, unitKnown);
+        }
+    }
+
+    private void apply(Integer eventId, Integer userId, Integer unitId, Instant checkedTime,
+            boolean unitKnown) {
+        // Sự kiện chưa được nạp sẽ đọc lượt check-in này từ DB khi được hỏi lần đầu
+        EventArrivals arrivals = arrivalsByEvent.get(eventId);
+        if (arrivals != null && arrivals.add(userId, unitId, checkedTime, unitKnown)) {
+            dirtyEvents.add(eventId);
+        }
+    }
+
+    private Map<Integer, EventArrivals> load(Collection<Integer> eventIds) {
+        Map<Integer, EventArrivals> loaded = new HashMap<>();
+        eventIds.forEach(id -> loaded.put(id, new EventArrivals(windowMinutes)));
+        for (Object[] row : attendantRepository.findCheckInsByEventIds(eventIds)) {
+            EventArrivals arrivals = loaded.get((Integer) row[0]);
+            arrivals.add((Integer) row[1], (Integer) row[3], (Instant) row[2], true);
+        }
+        return loaded;
+    }
+
+    private CheckInAnalyticsResponse snapshot(Integer eventId, EventArrivals arrivals,
+            int minutes) {
+        resolvePendingUnits(arrivals);
+        refreshRegistrations(eventId, arrivals);
+
+        int window = Math.min(Math.max(minutes, 1), windowMinutes);
+        long nowMinute = Math.floorDiv(Instant.now().getEpochSecond(), 60);
+        long[] counts = new long[window];
+        long checkedIn;
+        Map<Integer, Long> checkedInByUnit;
+        Map<Integer, Long> registeredByUnit;
+        Map<Integer, String> unitNames;
+        synchronized (arrivals) {
+            arrivals.lastAccess = Instant.now();
+            for (int i = 0; i < window; i++) {
+                counts[i] = arrivals.countAt(nowMinute - window + 1 + i);
+            }
+            checkedIn = arrivals.checkedInUsers.getLongCardinality();
+            checkedInByUnit = new HashMap<>(arrivals.checkedInByUnit);
+            registeredByUnit = new HashMap<>(arrivals.registeredByUnit);
+            unitNames = arrivals.unitNames;
+        }
+
+        List<ArrivalBucket> buckets = new ArrayList<>(window);
+        long cumulative = checkedIn;
+        long peak = 0;
+        Instant peakMinute = null;
+        for (int i = window - 1; i >= 0; i--) {
+            Instant minute = Instant.ofEpochSecond((nowMinute - window + 1 + i) * 60);
+            buckets.add(new ArrivalBucket(minute, counts[i], cumulative));
+            cumulative -= counts[i];
+            if (counts[i] > peak) {
+                peak = counts[i];
+                peakMinute = minute;
+            }
+        }
+        Collections.reverse(buckets);
+
+        long recent = 0;
+        for (int i = Math.max(0, window - RATE_WINDOW_MINUTES); i < window; i++) {
+            recent += counts[i];
+        }
+
+        long registered = registeredByUnit.values().stream().mapToLong(Long::longValue).sum();
+        Set<Integer> unitIds = new HashSet<>(registeredByUnit.keySet());
+        unitIds.addAll(checkedInByUnit.keySet());
+        List<UnitTurnout> units = unitIds.stream().map(unitId -> {
+            long unitRegistered = registeredByUnit.getOrDefault(unitId, 0L);
+            long unitCheckedIn = checkedInByUnit.getOrDefault(unitId, 0L);
+            return UnitTurnout.builder().unitId(unitId).unitName(unitNames.get(unitId))
+                    .registered(unitRegistered).checkedIn(unitCheckedIn)
+                    .turnoutPercent(percent(unitCheckedIn, unitRegistered)).build();
+        }).sorted(Comparator.comparingLong(UnitTurnout::getRegistered).reversed())
+                .collect(Collectors.toList());
+
+        return CheckInAnalyticsResponse.builder().eventId(eventId).registered(registered)
+                .checkedIn(checkedIn).attendancePercent(percent(checkedIn, registered))
+                .arrivalRatePerMinute((double) recent / Math.min(RATE_WINDOW_MINUTES, window))
+                .peakMinute(peakMinute).peakArrivals(peak).arrivals(buckets).units(units)
+                .generatedAt(Instant.now()).build();
+    }
+
+    /** Tra đơn vị cho các lượt check-in từ đường check-in nhanh bằng một truy vấn IN. */
+    private void resolvePendingUnits(EventArrivals arrivals) {
+        List<Integer> pending;
+        synchronized (arrivals) {
+            if (arrivals.unresolvedUsers.isEmpty()) {
+                return;
+            }
+            pending = new ArrayList<>(arrivals.unresolvedUsers);
+            arrivals.unresolvedUsers.clear();
+        }
+        Map<Integer, Integer> unitByUser = new HashMap<>();
+        for (Object[] row : userRepository.findUnitIdsByIds(pending)) {
+            unitByUser.put((Integer) row[0], (Integer) row[1]);
+        }
+        synchronized (arrivals) {
+            pending.forEach(userId -> arrivals.checkedInByUnit
+                    .merge(unitByUser.get(userId), 1L, Long::sum));
+        }
+    }
+
+    /** Số người đăng ký theo đơn vị thay đổi chậm nên chỉ được đọc lại sau mỗi khoảng ngắn. */
+    private void refreshRegistrations(Integer eventId, EventArrivals arrivals) {
+        Instant now = Instant.now();
+        if (arrivals.registrationsLoadedAt != null
+                && arrivals.registrationsLoadedAt.plus(registrationRefresh).isAfter(now)) {
+            return;
+        }
+        Map<Integer, Long> registeredByUnit = new HashMap<>();
+        for (Object[] row : attendantRepository.countParticipantsByUnit(eventId)) {
+            registeredByUnit.put((Integer) row[0], (Long) row[1]);
+        }
+        List<Integer> unitIds = registeredByUnit.keySet().stream().filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        Map<Integer, String> unitNames = unitIds.isEmpty() ? Map.of()
+                : unitRepository.findAllById(unitIds).stream()
+                        .collect(Collectors.toMap(Unit::getId, Unit::getUnitName));
+        synchronized (arrivals) {
+            arrivals.registeredByUnit = registeredByUnit;
+            arrivals.unitNames = unitNames;
+            arrivals.registrationsLoadedAt = now;
+        }
+    }
+
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 0 : Math.round(part * 10000.0 / whole) / 100.0;
+    }
+
+    /** Vòng bucket theo phút: ô {@code minute % size} chỉ hợp lệ khi {@code slotMinute} khớp. */
+    private static final class EventArrivals {
+        private final long[] counts;
+        private final long[] slotMinute;
+        private final RoaringBitmap checkedInUsers = new RoaringBitmap();
+        private final Map<Integer, Long> checkedInByUnit = new HashMap<>();
+        private final List<Integer> unresolvedUsers = new ArrayList<>();
+        private Map<Integer, Long> registeredByUnit = Map.of();
+        private Map<Integer, String> unitNames = Map.of();
+        private Instant registrationsLoadedAt;
+        private volatile Instant lastAccess = Instant.now();
+
+        private EventArrivals(int size) {
+            counts = new long[size];
+            slotMinute = new long[size];
+            Arrays.fill(slotMinute, Long.MIN_VALUE);
+        }
+
+        /** Trả về false nếu user đã được tính, tránh đếm trùng giữa lúc nạp từ DB và sau commit. */
+        synchronized boolean add(Integer userId, Integer unitId, Instant checkedTime,
+                boolean unitKnown) {
+            if (!checkedInUsers.checkedAdd(userId)) {
+                return false;
+            }
+            long minute = Math.floorDiv(checkedTime.getEpochSecond(), 60);
+            int slot = (int) Math.floorMod(minute, (long) counts.length);
+            if (slotMinute[slot] < minute) {
+                slotMinute[slot] = minute;
+                counts[slot] = 0;
+            }
+            if (slotMinute[slot] == minute) {
+                counts[slot]++;
+            }
+            if (unitKnown) {
+                checkedInByUnit.merge(unitId, 1L, Long::sum);
+            } else {
+                unresolvedUsers.add(userId);
+            }
+            lastAccess = Instant.now();
+            return true;
+        }
+
+        long countAt(long minute) {
+            int slot = (int) Math.floorMod(minute, (long) counts.length);
+            return slotMinute[slot] == minute ? counts[slot] : 0;
+        }
+    }
+}
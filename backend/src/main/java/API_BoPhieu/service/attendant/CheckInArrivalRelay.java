@@ -0,0 +1,125 @@
+package API_BoPhieu.service.attendant;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Đồng bộ {@link CheckInAnalytics} giữa các replica khi {@code app.sse.mode=redis}: mỗi lượt
+ * check-in được phát lên một kênh Redis chung để mọi replica cộng vào thống kê của mình, và mỗi chu
+ * kỳ chỉ replica giữ khóa đẩy của sự kiện gửi snapshot qua SSE, nên client không nhận nhiều bản
+ * tin từng phần từ nhiều replica.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sse.mode", havingValue = "redis")
+public class CheckInArrivalRelay implements MessageListener {
+    private static final Logger log = LoggerFactory.getLogger(CheckInArrivalRelay.class);
+    private static final String CHANNEL = "checkin-analytics:arrivals";
+    private static final String PUSH_LOCK_PREFIX = "checkin-analytics:push:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer container;
+    private final ExecutorService publishExecutor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("checkin-relay-pub-"));
+    private final ExecutorService receiveExecutor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("checkin-relay-"));
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Duration pushLease;
+    private volatile ArrivalHandler localDelivery;
+
+    public CheckInArrivalRelay(StringRedisTemplate redisTemplate,
+            RedisConnectionFactory connectionFactory,
+            @Value("${app.checkin.analytics.push-interval-ms:2000}") long pushIntervalMillis) {
+        this.redisTemplate = redisTemplate;
+        this.pushLease = Duration.ofMillis(pushIntervalMillis);
+        this.container = new RedisMessageListenerContainer();
+        this.container.setConnectionFactory(connectionFactory);
+        this.container.setTaskExecutor(new ConcurrentTaskExecutor(receiveExecutor));
+        this.container.addMessageListener(this, new ChannelTopic(CHANNEL));
+        this.container.afterPropertiesSet();
+        this.container.start();
+    }
+
+    /** Đăng ký nơi nhận lượt check-in từ replica khác; được gọi một lần bởi {@link CheckInAnalytics}. */
+    void setLocalDelivery(ArrivalHandler localDelivery) {
+        this.localDelivery = localDelivery;
+    }
+
+    /** Phát lượt check-in (đã commit) cho mọi replica, kể cả replica này. */
+    void publish(Integer eventId, Integer userId, Integer unitId, Instant checkedTime,
+            boolean unitKnown) {
+        String message = eventId + "," + userId + "," + (unitId == null ? "" : unitId) + ","
+                + checkedTime.toEpochMilli() + "," + (unitKnown ? 1 : 0);
+        publishExecutor.execute(() -> {
+            try {
+                redisTemplate.convertAndSend(CHANNEL, message);
+            } catch (DataAccessException e) {
+                log.warn("Không thể phát lượt check-in của sự kiện ID {} lên Redis: {}", eventId,
+                        e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Giành quyền đẩy snapshot của sự kiện trong chu kỳ hiện tại. Khi Redis lỗi, bản tin SSE cũng
+     * chỉ tới client cục bộ nên replica nào cũng tự đẩy.
+     */
+    boolean claimPush(Integer eventId) {
+        try {
+            Boolean claimed = redisTemplate.opsForValue()
+                    .setIfAbsent(PUSH_LOCK_PREFIX + eventId, instanceId, pushLease);
+            return Boolean.TRUE.equals(claimed);
+        } catch (DataAccessException e) {
+            log.warn("Không thể giành quyền đẩy thống kê check-in của sự kiện ID {}: {}", eventId,
+                    e.getMessage());
+            return true;
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        ArrivalHandler delivery = this.localDelivery;
+        if (delivery == null) {
+            return;
+        }
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(",", -1);
+        try {
+            delivery.onArrival(Integer.valueOf(parts[0]), Integer.valueOf(parts[1]),
+                    parts[2].isEmpty() ? null : Integer.valueOf(parts[2]),
+                    Instant.ofEpochMilli(Long.parseLong(parts[3])), "1".equals(parts[4]));
+        } catch (RuntimeException e) {
+            log.warn("Bỏ qua lượt check-in không hợp lệ từ Redis: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws Exception {
+        container.destroy();
+        publishExecutor.shutdown();
+        receiveExecutor.shutdownNow();
+    }
+
+    @FunctionalInterface
+    interface ArrivalHandler {
+        void onArrival(Integer eventId, Integer userId, Integer unitId, Instant checkedTime,
+                boolean unitKnown);
+    }
+}
@@ -0,0 +1,55 @@
+package API_BoPhieu.service.attendant;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import API_BoPhieu.repository.EventRepository;
+import API_BoPhieu.repository.UserRepository;
+
+/**
+ * Tra cứu trong bộ nhớ cho đường check-in nhanh: qrJoinToken -> eventId và email -> userId. Cả hai
+ * giá trị đều không đổi sau khi tạo nên không cần hết hạn; chỉ kết quả tìm thấy mới được lưu.
+ */
+@Component
+public class CheckInLookupIndex {
+    private final EventRepository eventRepository;
+    private final UserRepository userRepository;
+    private final Map<String, Integer> eventIdByToken = new ConcurrentHashMap<>();
+    private final Map<String, Integer> userIdByEmail;
+
+    public CheckInLookupIndex(EventRepository eventRepository, UserRepository userRepository,
+            @Value("${app.checkin.fast-mode.user-cache-size:50000}") int userCacheSize) {
+        this.eventRepository = eventRepository;
+        this.userRepository = userRepository;
+        this.userIdByEmail = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > userCacheSize;
+            }
+        });
+    }
+
+    public Optional<Integer> findEventIdByToken(String qrJoinToken) {
+        Integer eventId = eventIdByToken.get(qrJoinToken);
+        if (eventId != null) {
+            return Optional.of(eventId);
+        }
+        Optional<Integer> loaded = eventRepository.findIdByQrJoinToken(qrJoinToken);
+        loaded.ifPresent(id -> eventIdByToken.put(qrJoinToken, id));
+        return loaded;
+    }
+
+    public Optional<Integer> findUserIdByEmail(String email) {
+        Integer userId = userIdByEmail.get(email);
+        if (userId != null) {
+            return Optional.of(userId);
+        }
+        Optional<Integer> loaded = userRepository.findIdByEmail(email);
+        loaded.ifPresent(id -> userIdByEmail.put(email, id));
+        return loaded;
+    }
+}
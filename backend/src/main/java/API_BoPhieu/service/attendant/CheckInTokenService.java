@@ -0,0 +1,15 @@
+package API_BoPhieu.service.attendant;
+
+import java.util.List;
+import API_BoPhieu.dto.attendant.CheckInTokenClaims;
+import API_BoPhieu.dto.attendant.CheckInTokenResponse;
+import API_BoPhieu.dto.attendant.ParticipantResponse;
+
+public interface CheckInTokenService {
+
+    List<CheckInTokenResponse> generateTokens(Integer eventId);
+
+    CheckInTokenClaims verify(String token);
+
+    ParticipantResponse checkInWithToken(Integer eventId, String token);
+}
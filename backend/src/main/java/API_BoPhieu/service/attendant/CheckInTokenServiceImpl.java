@@ -0,0 +1,114 @@
+package API_BoPhieu.service.attendant;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import API_BoPhieu.dto.attendant.CheckInTokenClaims;
+import API_BoPhieu.dto.attendant.CheckInTokenResponse;
+import API_BoPhieu.dto.attendant.ParticipantResponse;
+import API_BoPhieu.dto.user.UserResponseDTO;
+import API_BoPhieu.entity.Event;
+import API_BoPhieu.exception.ConflictException;
+import API_BoPhieu.exception.IllegalArgumentException;
+import API_BoPhieu.exception.NotFoundException;
+import API_BoPhieu.repository.AttendantRepository;
+import API_BoPhieu.repository.EventRepository;
+import API_BoPhieu.service.attendant.ParticipantCheckedInEvent.Arrival;
+
+/**
+ * Mã check-in cá nhân cho từng người tham gia. Mã được ký song song trên các lõi khi tạo hàng
+ * loạt; khi quét, mã được kiểm tra bằng một lần tính HMAC và chỉ câu lệnh UPDATE có điều kiện cuối
+ * cùng chạm tới MySQL.
+ */
+@Service
+public class CheckInTokenServiceImpl implements CheckInTokenService {
+    private static final Logger log = LoggerFactory.getLogger(CheckInTokenServiceImpl.class);
+
+    private final CheckInTokenSigner checkInTokenSigner;
+    private final AttendantRepository attendantRepository;
+    private final EventRepository eventRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration validBeforeStart;
+    private final Duration validAfterEnd;
+
+    public CheckInTokenServiceImpl(CheckInTokenSigner checkInTokenSigner,
+            AttendantRepository attendantRepository, EventRepository eventRepository,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${app.checkin.token.valid-before-start:PT2H}") Duration validBeforeStart,
+            @Value("${app.checkin.token.valid-after-end:PT2H}") Duration validAfterEnd) {
+        this.checkInTokenSigner = checkInTokenSigner;
+        this.attendantRepository = attendantRepository;
+        this.eventRepository = eventRepository;
+        this.eventPublisher = eventPublisher;
+        this.validBeforeStart = validBeforeStart;
+        this.validAfterEnd = validAfterEnd;
+    }
+
+    @Override
+    public List<CheckInTokenResponse> generateTokens(Integer eventId) {
+        Event event = eventRepository.findById(eventId).orElseThrow(
+                () -> new NotFoundException("Không tìm thấy sự kiện với ID: " + eventId));
+        Instant validFrom = event.getStartTime().minus(validBeforeStart);
+        Instant validUntil = event.getEndTime().plus(validAfterEnd);
+
+        List<Object[]> participants = attendantRepository.findParticipantIdentities(eventId);
+        // Mỗi mã là một phép HMAC độc lập nên chia đều cho các lõi, thứ tự kết quả vẫn được giữ
+        List<CheckInTokenResponse> tokens = participants.parallelStream().map(row -> {
+            Integer userId = (Integer) row[0];
+            return CheckInTokenResponse.builder().userId(userId).email((String) row[1])
+                    .name((String) row[2])
+                    .token(checkInTokenSigner.sign(eventId, userId, validFrom, validUntil))
+                    .validFrom(validFrom).validUntil(validUntil).build();
+        }).collect(Collectors.toList());
+        log.info("Đã tạo {} mã check-in cá nhân cho sự kiện ID {}", tokens.size(), eventId);
+        return tokens;
+    }
+
+    @Override
+    public CheckInTokenClaims verify(String token) {
+        return checkInTokenSigner.verify(token);
+    }
+
+    @Override
+    public ParticipantResponse checkInWithToken(Integer eventId, String token) {
+        CheckInTokenClaims claims = checkInTokenSigner.verify(token);
+        switch (claims.getStatus()) {
+            case VALID:
+                break;
+            case NOT_YET_VALID:
+                throw new IllegalArgumentException("Mã check-in chưa đến thời gian sử dụng.");
+            case EXPIRED:
+                throw new IllegalArgumentException("Mã check-in đã hết hạn.");
+            default:
+                throw new IllegalArgumentException("Mã check-in không hợp lệ.");
+        }
+        if (!claims.getEventId().equals(eventId)) {
+            throw new IllegalArgumentException("Mã check-in không thuộc sự kiện này.");
+        }
+
+        Integer userId = claims.getUserId();
+        Instant checkedTime = Instant.now();
+        if (attendantRepository.markCheckedIn(eventId, userId, checkedTime) == 0) {
+            if (attendantRepository.existsByEventIdAndUserId(eventId, userId)) {
+                throw new ConflictException("Người tham gia đã check-in sự kiện này rồi.");
+            }
+            throw new NotFoundException("Người dùng chưa đăng ký tham gia sự kiện này.");
+        }
+        log.info("Người dùng ID {} đã check-in sự kiện ID {} bằng mã cá nhân", userId, eventId);
+
+        // Không nạp thông tin người tham gia trên luồng request: nội dung SSE được nạp sau commit
+        // khi có client theo dõi, đơn vị cho thống kê được tra gộp khi tính
+        ParticipantResponse response = ParticipantResponse.builder().eventId(eventId)
+                .checkInTime(checkedTime).user(UserResponseDTO.builder().id(userId).build())
+                .build();
+        eventPublisher.publishEvent(ParticipantCheckedInEvent.pending(eventId, response,
+                new Arrival(userId, null, false, checkedTime)));
+        return response;
+    }
+}
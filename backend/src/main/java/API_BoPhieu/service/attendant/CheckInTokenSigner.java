@@ -0,0 +1,100 @@
+package API_BoPhieu.service.attendant;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import API_BoPhieu.constants.CheckInTokenStatus;
+import API_BoPhieu.dto.attendant.CheckInTokenClaims;
+
+/**
+ * Ký và kiểm tra mã check-in cá nhân. Mã gồm phiên bản, eventId, userId, khoảng hiệu lực (tính
+ * theo phút) và 16 byte đầu của HMAC-SHA256, mã hóa base64url, nên kiểm tra chỉ cần tính lại một
+ * MAC mà không truy vấn DB.
+ */
+@Component
+public class CheckInTokenSigner {
+    private static final byte VERSION = 1;
+    private static final int PAYLOAD_LENGTH = 17;
+    private static final int MAC_LENGTH = 16;
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    // Mac không an toàn luồng, mỗi luồng (kể cả luồng của parallel stream) giữ một bản riêng
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    public CheckInTokenSigner(
+            @Value("${app.checkin.token.secret:${app.jwt.secret}}") String secret) {
+        // Tách khóa riêng cho mã check-in để mã này không thể dùng làm chữ ký JWT và ngược lại
+        try {
+            Mac derive = Mac.getInstance(ALGORITHM);
+            derive.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            this.key = new SecretKeySpec(
+                    derive.doFinal("checkin-token".getBytes(StandardCharsets.UTF_8)), ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Không thể khởi tạo khóa ký mã check-in", e);
+        }
+    }
+
+    public String sign(Integer eventId, Integer userId, Instant validFrom, Instant validUntil) {
+        ByteBuffer buffer = ByteBuffer.allocate(PAYLOAD_LENGTH + MAC_LENGTH);
+        buffer.put(VERSION).putInt(eventId).putInt(userId)
+                .putInt((int) Math.floorDiv(validFrom.getEpochSecond(), 60))
+                .putInt((int) Math.floorDiv(validUntil.getEpochSecond() + 59, 60));
+        byte[] token = buffer.array();
+        System.arraycopy(mac(token), 0, token, PAYLOAD_LENGTH, MAC_LENGTH);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    public CheckInTokenClaims verify(String token) {
+        byte[] decoded;
+        try {
+            decoded = token == null ? null : Base64.getUrlDecoder().decode(token.trim());
+        } catch (IllegalArgumentException e) {
+            decoded = null;
+        }
+        if (decoded == null || decoded.length != PAYLOAD_LENGTH + MAC_LENGTH
+                || decoded[0] != VERSION) {
+            return CheckInTokenClaims.builder().status(CheckInTokenStatus.MALFORMED).build();
+        }
+        byte[] expected = Arrays.copyOf(mac(decoded), MAC_LENGTH);
+        byte[] actual = Arrays.copyOfRange(decoded, PAYLOAD_LENGTH, PAYLOAD_LENGTH + MAC_LENGTH);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return CheckInTokenClaims.builder().status(CheckInTokenStatus.BAD_SIGNATURE).build();
+        }
+
+        ByteBuffer payload = ByteBuffer.wrap(decoded, 1, PAYLOAD_LENGTH - 1);
+        int eventId = payload.getInt();
+        int userId = payload.getInt();
+        Instant validFrom = Instant.ofEpochSecond(payload.getInt() * 60L);
+        Instant validUntil = Instant.ofEpochSecond(payload.getInt() * 60L);
+        Instant now = Instant.now();
+        CheckInTokenStatus status = now.isBefore(validFrom) ? CheckInTokenStatus.NOT_YET_VALID
+                : now.isAfter(validUntil) ? CheckInTokenStatus.EXPIRED : CheckInTokenStatus.VALID;
+        return CheckInTokenClaims.builder().status(status).eventId(eventId).userId(userId)
+                .validFrom(validFrom).validUntil(validUntil).build();
+    }
+
+    private byte[] mac(byte[] token) {
+        Mac mac = macs.get();
+        mac.update(token, 0, PAYLOAD_LENGTH);
+        return mac.doFinal();
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Không thể khởi tạo HMAC cho mã check-in", e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package API_BoPhieu.service.attendant;
+
+import java.time.Instant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import API_BoPhieu.dto.attendant.ParticipantResponse;
+import API_BoPhieu.dto.user.UserResponseDTO;
+import API_BoPhieu.entity.Attendant;
+import API_BoPhieu.exception.ConflictException;
+import API_BoPhieu.exception.NotFoundException;
+import API_BoPhieu.repository.AttendantRepository;
+import API_BoPhieu.service.attendant.ParticipantCheckedInEvent.Arrival;
+
+/**
+ * Check-in bằng một câu UPDATE có điều kiện, không nạp entity và không mở transaction bao ngoài.
+ * Số dòng bị ảnh hưởng phân biệt check-in thành công với trường hợp đã check-in hoặc chưa đăng ký.
+ */
+@Service
+public class FastCheckInService {
+    private static final Logger log = LoggerFactory.getLogger(FastCheckInService.class);
+
+    private final AttendantRepository attendantRepository;
+    private final CheckInLookupIndex checkInLookupIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+
+    public FastCheckInService(AttendantRepository attendantRepository,
+            CheckInLookupIndex checkInLookupIndex, ApplicationEventPublisher eventPublisher,
+            @Value("${app.checkin.fast-mode.enabled:false}") boolean enabled) {
+        this.attendantRepository = attendantRepository;
+        this.checkInLookupIndex = checkInLookupIndex;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Attendant checkIn(String eventToken, String userEmail) {
+        Integer eventId = checkInLookupIndex.findEventIdByToken(eventToken).orElseThrow(
+                () -> new NotFoundException("Không tìm thấy sự kiện với mã QR: " + eventToken));
+        Integer userId = checkInLookupIndex.findUserIdByEmail(userEmail).orElseThrow(
+                () -> new NotFoundException("Không tìm thấy người dùng với email: " + userEmail));
+
+        Instant checkedTime = Instant.now();
+        if (attendantRepository.markCheckedIn(eventId, userId, checkedTime) == 0) {
+            if (attendantRepository.existsByEventIdAndUserId(eventId, userId)) {
+                log.warn("Người dùng '{}' cố gắng check-in lại sự kiện ID {} trong khi đã check-in từ trước.",
+                        userEmail, eventId);
+                throw new ConflictException("Bạn đã check-in sự kiện này rồi.");
+            }
+            throw new NotFoundException("Người dùng chưa đăng ký tham gia sự kiện này.");
+        }
+        log.info("Người dùng '{}' (ID: {}) đã check-in thành công sự kiện ID {}", userEmail, userId,
+                eventId);
+
+        Attendant attendant = new Attendant();
+        attendant.setEventId(eventId);
+        attendant.setUserId(userId);
+        attendant.setCheckedTime(checkedTime);
+
+        UserResponseDTO user = UserResponseDTO.builder().id(userId).email(userEmail).build();
+        // Đường nhanh không nạp user: thông tin cho SSE được nạp sau commit, đơn vị cho thống kê
+        // được tra gộp khi tính
+        eventPublisher.publishEvent(ParticipantCheckedInEvent.pending(eventId,
+                ParticipantResponse.builder().eventId(eventId).checkInTime(checkedTime).user(user)
+                        .build(),
+                new Arrival(userId, null, false, checkedTime)));
+        return attendant;
+    }
+}
@@ -0,0 +1,12 @@
+package API_BoPhieu.service.attendant;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** Phát ra khi có người tham gia mới được thêm vào sự kiện (thêm tay, tự tham gia, nhập file). */
+@Getter
+@AllArgsConstructor
+public class ParticipantAddedEvent {
+    private final Integer eventId;
+    private final int count;
+}
@@ -0,0 +1,40 @@
+package API_BoPhieu.service.attendant;
+
+import java.time.Instant;
+import java.util.List;
+import API_BoPhieu.dto.attendant.ParticipantResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Phát ra khi một hoặc nhiều người tham gia được check-in. {@code participants} là nội dung gửi qua
+ * SSE; {@code arrivals} chỉ gồm các lượt check-in đầu tiên, dùng cho thống kê.
+ */
+@Getter
+@AllArgsConstructor
+public class ParticipantCheckedInEvent {
+    private final Integer eventId;
+    private final List<ParticipantResponse> participants;
+    private final List<Arrival> arrivals;
+    /** Gửi cả danh sách trong một bản tin SSE thay vì từng người một. */
+    private final boolean batch;
+    /** Phía gọi chỉ có userId; nội dung SSE được nạp đầy đủ sau khi commit, ngoài luồng request. */
+    private final boolean detailsPending;
+
+    public static ParticipantCheckedInEvent single(Integer eventId, ParticipantResponse participant,
+            Arrival arrival) {
+        return new ParticipantCheckedInEvent(eventId, List.of(participant), List.of(arrival), false,
+                false);
+    }
+
+    /** Check-in chưa có thông tin người tham gia; {@code participant} chỉ dùng khi nạp thất bại. */
+    public static ParticipantCheckedInEvent pending(Integer eventId, ParticipantResponse participant,
+            Arrival arrival) {
+        return new ParticipantCheckedInEvent(eventId, List.of(participant), List.of(arrival), false,
+                true);
+    }
+
+    /** {@code unitKnown} là false khi phía gọi không có sẵn thông tin user, đơn vị được tra sau. */
+    public record Arrival(Integer userId, Integer unitId, boolean unitKnown, Instant checkedTime) {
+    }
+}
@@ -0,0 +1,71 @@
+package API_BoPhieu.service.attendant;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+import API_BoPhieu.dto.attendant.ParticipantResponse;
+import API_BoPhieu.dto.unit.UnitResponseDTO;
+import API_BoPhieu.dto.user.UserResponseDTO;
+import API_BoPhieu.entity.Attendant;
+import API_BoPhieu.entity.Unit;
+import API_BoPhieu.entity.User;
+import API_BoPhieu.repository.AttendantRepository;
+import API_BoPhieu.repository.UnitRepository;
+import API_BoPhieu.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Dựng {@link ParticipantResponse} đầy đủ (tên, đơn vị...) cho một người tham gia, để mọi đường
+ * check-in gửi cùng một dạng bản tin dù đường đó chỉ có sẵn userId.
+ */
+@Component
+@RequiredArgsConstructor
+class ParticipantDetailsLoader {
+    private final AttendantRepository attendantRepository;
+    private final UserRepository userRepository;
+    private final UnitRepository unitRepository;
+
+    Optional<ParticipantResponse> load(Integer eventId, Integer userId) {
+        Optional<Attendant> attendant = attendantRepository.findByUserIdAndEventId(userId, eventId);
+        Optional<User> user = userRepository.findById(userId);
+        if (attendant.isEmpty() || user.isEmpty()) {
+            return Optional.empty();
+        }
+        Unit unit = user.get().getUnitId() != null
+                ? unitRepository.findById(user.get().getUnitId()).orElse(null)
+                : null;
+        return Optional.of(toResponse(attendant.get(), user.get(), unit));
+    }
+
+    /** Đơn vị của nhiều người dùng trong một truy vấn, theo unit ID. */
+    Map<Integer, Unit> loadUnits(Collection<User> users) {
+        Set<Integer> unitIds = users.stream().map(User::getUnitId).filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (unitIds.isEmpty()) {
+            return Map.of();
+        }
+        return unitRepository.findAllById(unitIds).stream()
+                .collect(Collectors.toMap(Unit::getId, Function.identity()));
+    }
+
+    static ParticipantResponse toResponse(Attendant attendant, User user, Unit unit) {
+        UnitResponseDTO unitResponse = null;
+        if (unit != null) {
+            unitResponse = UnitResponseDTO.builder().id(unit.getId()).unitName(unit.getUnitName())
+                    .unitType(unit.getUnitType()).parentId(unit.getParentId()).build();
+        }
+
+        UserResponseDTO userResponse = UserResponseDTO.builder().id(user.getId())
+                .email(user.getEmail()).name(user.getName()).phoneNumber(user.getPhoneNumber())
+                .enabled(user.getEnabled()).roles(user.getRoles()).unit(unitResponse).build();
+
+        return ParticipantResponse.builder().id(attendant.getId()).eventId(attendant.getEventId())
+                .joinedAt(attendant.getJoinedAt()).checkInTime(attendant.getCheckedTime())
+                .user(userResponse).build();
+    }
+}
@@ -0,0 +1,191 @@
+package API_BoPhieu.service.attendant;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import API_BoPhieu.exception.FileException;
+
+/**
+ * Đọc cột email từ file CSV hoặc XLSX theo kiểu streaming: từng dòng được đẩy cho
+ * {@link RowHandler} ngay khi đọc, không nạp cả file vào bộ nhớ. XLSX được đọc qua SAX nên chỉ
+ * bảng chuỗi dùng chung được giữ trong bộ nhớ. Nếu dòng đầu có ô "email" thì dòng đó là tiêu đề và
+ * quyết định cột email, ngược lại cột đầu tiên được dùng.
+ */
+public final class ParticipantFileReader {
+
+    @FunctionalInterface
+    public interface RowHandler {
+        /** @param rowNumber số thứ tự dòng trong file, bắt đầu từ 1 */
+        void onRow(long rowNumber, String email);
+    }
+
+    private ParticipantFileReader() {
+    }
+
+    public static boolean isSupported(String fileName) {
+        return isCsv(fileName) || isXlsx(fileName);
+    }
+
+    public static void read(Path file, String fileName, RowHandler handler) {
+        try {
+            if (isXlsx(fileName)) {
+                readXlsx(file, handler);
+            } else {
+                readCsv(file, handler);
+            }
+        } catch (FileException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FileException("Không thể đọc file '" + fileName + "': " + e.getMessage());
+        }
+    }
+
+    private static boolean isCsv(String fileName) {
+        return fileName != null && fileName.toLowerCase(Locale.ROOT).endsWith(".csv");
+    }
+
+    private static boolean isXlsx(String fileName) {
+        return fileName != null && fileName.toLowerCase(Locale.ROOT).endsWith(".xlsx");
+    }
+
+    private static void readCsv(Path file, RowHandler handler) throws IOException {
+        HeaderTracker tracker = new HeaderTracker(handler);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            long rowNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                rowNumber++;
+                if (rowNumber == 1 && line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                tracker.accept(rowNumber, splitCsvLine(line));
+            }
+        }
+    }
+
+    /** Tách một dòng CSV theo dấu phẩy hoặc chấm phẩy, hỗ trợ giá trị nằm trong dấu nháy kép. */
+    static List<String> splitCsvLine(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',' || c == ';') {
+                cells.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        cells.add(current.toString());
+        return cells;
+    }
+
+    private static void readXlsx(Path file, RowHandler handler) throws Exception {
+        HeaderTracker tracker = new HeaderTracker(handler);
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            XSSFReader xssfReader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) xssfReader.getSheetsData();
+            if (!sheets.hasNext()) {
+                throw new FileException("File Excel không có trang tính nào.");
+            }
+            // Chỉ đọc trang tính đầu tiên
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(xssfReader.getStylesTable(),
+                        strings, new SheetRowCollector(tracker), new DataFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            }
+        }
+    }
+
+    /** Gom các ô của một dòng Excel rồi chuyển cho {@link HeaderTracker}. */
+    private static final class SheetRowCollector implements SheetContentsHandler {
+        private final HeaderTracker tracker;
+        private final List<String> cells = new ArrayList<>();
+        private int nextColumn;
+
+        private SheetRowCollector(HeaderTracker tracker) {
+            this.tracker = tracker;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells.clear();
+            nextColumn = 0;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            tracker.accept(rowNum + 1L, cells);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? new CellReference(cellReference).getCol()
+                    : nextColumn;
+            while (cells.size() < column) {
+                cells.add("");
+            }
+            cells.add(formattedValue == null ? "" : formattedValue);
+            nextColumn = column + 1;
+        }
+    }
+
+    /** Nhận diện dòng tiêu đề và chọn cột email trước khi chuyển dòng cho phía gọi. */
+    private static final class HeaderTracker {
+        private final RowHandler handler;
+        private int emailColumn;
+        private boolean firstRowSeen;
+
+        private HeaderTracker(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        void accept(long rowNumber, List<String> cells) {
+            if (!firstRowSeen) {
+                firstRowSeen = true;
+                for (int i = 0; i < cells.size(); i++) {
+                    if ("email".equalsIgnoreCase(cells.get(i).trim())) {
+                        emailColumn = i;
+                        return;
+                    }
+                }
+            }
+            String email = emailColumn < cells.size() ? cells.get(emailColumn).trim() : "";
+            if (!email.isEmpty()) {
+                handler.onRow(rowNumber, email);
+            }
+        }
+    }
+}
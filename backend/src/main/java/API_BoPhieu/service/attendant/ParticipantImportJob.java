@@ -0,0 +1,113 @@
+package API_BoPhieu.service.attendant;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import API_BoPhieu.constants.ImportStatus;
+import API_BoPhieu.dto.attendant.ParticipantImportResponse;
+import API_BoPhieu.dto.attendant.ParticipantImportRowError;
+
+/**
+ * Trạng thái của một lần nhập người tham gia. Luồng xử lý cập nhật các bộ đếm, request tra cứu
+ * tiến độ đọc ảnh chụp qua {@link #toResponse()}. Danh sách lỗi được giới hạn để file lỗi hàng loạt
+ * không làm phình bộ nhớ.
+ */
+public class ParticipantImportJob {
+    private final String jobId;
+    private final Integer eventId;
+    private final String fileName;
+    private final String requestedBy;
+    private final int maxErrors;
+
+    private final AtomicLong processedRows = new AtomicLong();
+    private final AtomicLong importedCount = new AtomicLong();
+    private final AtomicLong alreadyRegisteredCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final List<ParticipantImportRowError> errors = new ArrayList<>();
+
+    private volatile ImportStatus status = ImportStatus.QUEUED;
+    private volatile String message;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    public ParticipantImportJob(String jobId, Integer eventId, String fileName, String requestedBy,
+            int maxErrors) {
+        this.jobId = jobId;
+        this.eventId = eventId;
+        this.fileName = fileName;
+        this.requestedBy = requestedBy;
+        this.maxErrors = maxErrors;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public Integer getEventId() {
+        return eventId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getRequestedBy() {
+        return requestedBy;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    void start() {
+        startedAt = Instant.now();
+        status = ImportStatus.RUNNING;
+    }
+
+    void complete() {
+        finishedAt = Instant.now();
+        status = ImportStatus.COMPLETED;
+    }
+
+    void fail(String reason) {
+        message = reason;
+        finishedAt = Instant.now();
+        status = ImportStatus.FAILED;
+    }
+
+    void addProcessed(int rows) {
+        processedRows.addAndGet(rows);
+    }
+
+    void addImported(int count) {
+        importedCount.addAndGet(count);
+    }
+
+    void addAlreadyRegistered(int count) {
+        alreadyRegisteredCount.addAndGet(count);
+    }
+
+    void addError(long rowNumber, String email, String reason) {
+        failedCount.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < maxErrors) {
+                errors.add(new ParticipantImportRowError(rowNumber, email, reason));
+            }
+        }
+    }
+
+    public ParticipantImportResponse toResponse() {
+        List<ParticipantImportRowError> errorSnapshot;
+        synchronized (errors) {
+            errorSnapshot = new ArrayList<>(errors);
+        }
+        return ParticipantImportResponse.builder().jobId(jobId).eventId(eventId)
+                .fileName(fileName).status(status).processedRows(processedRows.get())
+                .importedCount(importedCount.get())
+                .alreadyRegisteredCount(alreadyRegisteredCount.get())
+                .failedCount(failedCount.get()).errors(errorSnapshot)
+                .errorsTruncated(failedCount.get() > errorSnapshot.size()).message(message)
+                .startedAt(startedAt).finishedAt(finishedAt).build();
+    }
+}
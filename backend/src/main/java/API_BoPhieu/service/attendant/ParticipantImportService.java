@@ -0,0 +1,12 @@
+package API_BoPhieu.service.attendant;
+
+import org.springframework.web.multipart.MultipartFile;
+import API_BoPhieu.dto.attendant.ParticipantImportResponse;
+
+public interface ParticipantImportService {
+
+    ParticipantImportResponse startImport(Integer eventId, MultipartFile file,
+            String requesterEmail);
+
+    ParticipantImportResponse getImportJob(Integer eventId, String jobId);
+}
@@ -0,0 +1,316 @@
+package API_BoPhieu.service.attendant;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import API_BoPhieu.constants.EventStatus;
+import API_BoPhieu.dto.attendant.ParticipantImportResponse;
+import API_BoPhieu.entity.Attendant;
+import API_BoPhieu.entity.Event;
+import API_BoPhieu.entity.User;
+import API_BoPhieu.exception.ConflictException;
+import API_BoPhieu.exception.EventException;
+import API_BoPhieu.exception.FileException;
+import API_BoPhieu.exception.NotFoundException;
+import API_BoPhieu.repository.AttendantBatchRepository;
+import API_BoPhieu.repository.AttendantRepository;
+import API_BoPhieu.repository.EventRepository;
+import API_BoPhieu.repository.UserRepository;
+import API_BoPhieu.service.event.EventAdmissionControl;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Nhập người tham gia từ file CSV/XLSX. File được đọc streaming trên luồng nền và xử lý theo từng
+ * khối: mỗi khối tra user bằng một truy vấn IN, lọc người đã đăng ký rồi chèn bằng một lô JDBC
+ * trong transaction riêng. Lỗi được ghi theo từng dòng thay vì hủy cả file.
+ */
+@Service
+public class ParticipantImportServiceImpl implements ParticipantImportService {
+    private static final Logger log = LoggerFactory.getLogger(ParticipantImportServiceImpl.class);
+    private static final String PROGRESS_KEY_PREFIX = "participant-import:";
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+
+    private final EventRepository eventRepository;
+    private final UserRepository userRepository;
+    private final AttendantRepository attendantRepository;
+    private final AttendantBatchRepository attendantBatchRepository;
+    private final EventAdmissionControl eventAdmissionControl;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final int chunkSize;
+    private final int maxErrors;
+    private final Duration jobRetention;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    /** Job đang chạy hoặc vừa xong trên replica này; replica khác đọc tiến độ từ Redis. */
+    private final Map<String, ParticipantImportJob> jobs = new ConcurrentHashMap<>();
+
+    public ParticipantImportServiceImpl(EventRepository eventRepository,
+            UserRepository userRepository, AttendantRepository attendantRepository,
+            AttendantBatchRepository attendantBatchRepository,
+            EventAdmissionControl eventAdmissionControl,
+            ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+            StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+            @Value("${app.participant-import.workers:2}") int workers,
+            @Value("${app.participant-import.chunk-size:500}") int chunkSize,
+            @Value("${app.participant-import.max-errors:1000}") int maxErrors,
+            @Value("${app.participant-import.job-retention:PT1H}") Duration jobRetention) {
+        this.eventRepository = eventRepository;
+        this.userRepository = userRepository;
+        this.attendantRepository = attendantRepository;
+        this.attendantBatchRepository = attendantBatchRepository;
+        this.eventAdmissionControl = eventAdmissionControl;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.executor = Executors.newFixedThreadPool(workers,
+                new CustomizableThreadFactory("participant-import-"));
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+        this.jobRetention = jobRetention;
+    }
+
+    @Override
+    public ParticipantImportResponse startImport(Integer eventId, MultipartFile file,
+            String requesterEmail) {
+        if (file == null || file.isEmpty()) {
+            throw new EventException("File nhập người tham gia đang trống.");
+        }
+        String fileName = file.getOriginalFilename();
+        if (!ParticipantFileReader.isSupported(fileName)) {
+            throw new EventException("Chỉ hỗ trợ file .csv hoặc .xlsx");
+        }
+        checkEventAcceptsParticipants(eventId);
+
+        // File upload chỉ tồn tại trong vòng đời request nên phải sao chép ra file tạm
+        Path tempFile;
+        try {
+            tempFile = Files.createTempFile("participants-import-",
+                    fileName.substring(fileName.lastIndexOf('.')));
+            file.transferTo(tempFile);
+        } catch (IOException e) {
+            throw new FileException("Không thể lưu file nhập tạm thời: " + e.getMessage());
+        }
+
+        ParticipantImportJob job = new ParticipantImportJob(UUID.randomUUID().toString(), eventId,
+                fileName, requesterEmail, maxErrors);
+        jobs.put(job.getJobId(), job);
+        saveProgress(job);
+        executor.submit(() -> run(job, tempFile));
+        log.info("Người dùng '{}' bắt đầu nhập người tham gia cho sự kiện ID {} từ file '{}' (job {})",
+                requesterEmail, eventId, fileName, job.getJobId());
+        return job.toResponse();
+    }
+
+    @Override
+    public ParticipantImportResponse getImportJob(Integer eventId, String jobId) {
+        ParticipantImportJob job = jobs.get(jobId);
+        ParticipantImportResponse progress = job != null ? job.toResponse() : findProgress(jobId);
+        if (progress == null || !progress.getEventId().equals(eventId)) {
+            throw new NotFoundException("Không tìm thấy tiến trình nhập với ID: " + jobId);
+        }
+        return progress;
+    }
+
+    @Scheduled(fixedDelayString = "${app.participant-import.sweep-interval-ms:600000}")
+    public void evictFinishedJobs() {
+        Instant threshold = Instant.now().minus(jobRetention);
+        jobs.values().removeIf(
+                job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(threshold));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(ParticipantImportJob job, Path tempFile) {
+        job.start();
+        saveProgress(job);
+        try {
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+            ParticipantFileReader.read(tempFile, job.getFileName(), (rowNumber, email) -> {
+                chunk.add(new ImportRow(rowNumber, email));
+                if (chunk.size() >= chunkSize) {
+                    importChunk(job, chunk);
+                    chunk.clear();
+                }
+            });
+            if (!chunk.isEmpty()) {
+                importChunk(job, chunk);
+            }
+            job.complete();
+            ParticipantImportResponse result = job.toResponse();
+            log.info(
+                    "Hoàn tất nhập người tham gia cho sự kiện ID {} (job {}): {} dòng, {} thêm mới, {} đã tham gia, {} lỗi",
+                    job.getEventId(), job.getJobId(), result.getProcessedRows(),
+                    result.getImportedCount(), result.getAlreadyRegisteredCount(),
+                    result.getFailedCount());
+        } catch (RuntimeException e) {
+            log.error("Nhập người tham gia cho sự kiện ID {} (job {}) thất bại", job.getEventId(),
+                    job.getJobId(), e);
+            job.fail(e.getMessage());
+        } finally {
+            saveProgress(job);
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException e) {
+                log.warn("Không thể xóa file nhập tạm {}: {}", tempFile, e.getMessage());
+            }
+        }
+    }
+
+    private void importChunk(ParticipantImportJob job, List<ImportRow> rows) {
+        Integer eventId = job.getEventId();
+        Integer imported = transactionTemplate.execute(status -> {
+            Event event = checkEventAcceptsParticipants(eventId);
+
+            List<String> emails = rows.stream().map(row -> row.email).distinct()
+                    .collect(Collectors.toList());
+            Map<String, Integer> userIdByEmail = userRepository.findAllByEmailIn(emails).stream()
+                    .collect(Collectors.toMap(user -> user.getEmail().toLowerCase(Locale.ROOT),
+                            User::getId, (first, second) -> first));
+
+            Map<Integer, ImportRow> candidates = new LinkedHashMap<>();
+            int alreadyRegistered = 0;
+            for (ImportRow row : rows) {
+                if (!EMAIL_PATTERN.matcher(row.email).matches()) {
+                    job.addError(row.rowNumber, row.email, "Email không hợp lệ");
+                    continue;
+                }
+                Integer userId = userIdByEmail.get(row.email.toLowerCase(Locale.ROOT));
+                if (userId == null) {
+                    job.addError(row.rowNumber, row.email, "Email không tồn tại trong hệ thống");
+                } else if (candidates.putIfAbsent(userId, row) != null) {
+                    alreadyRegistered++;
+                }
+            }
+
+            if (!candidates.isEmpty()) {
+                // Đọc có khóa: thấy cả đăng ký vừa commit song song và chặn đăng ký mới của cùng
+                // người tới khi khối này commit
+                Set<Integer> existingUserIds = attendantRepository
+                        .findAllByEventIdAndUserIdInForUpdate(eventId,
+                                new ArrayList<>(candidates.keySet()))
+                        .stream().map(Attendant::getUserId).collect(Collectors.toSet());
+                alreadyRegistered += existingUserIds.size();
+                candidates.keySet().removeAll(existingUserIds);
+            }
+            job.addAlreadyRegistered(alreadyRegistered);
+
+            if (!candidates.isEmpty()) {
+                int remaining = eventAdmissionControl.reserveUpTo(eventId,
+                        event.getMaxParticipants(), candidates.size());
+                Iterator<ImportRow> overflow = candidates.values().iterator();
+                for (int kept = 0; overflow.hasNext(); kept++) {
+                    ImportRow row = overflow.next();
+                    if (kept >= remaining) {
+                        job.addError(row.rowNumber, row.email,
+                                "Số lượng người tham gia vượt quá giới hạn tối đa của sự kiện");
+                        overflow.remove();
+                    }
+                }
+            }
+
+            int inserted = attendantBatchRepository.insertSkippingDuplicates(eventId,
+                    candidates.keySet(), Instant.now());
+            // Dòng trùng bị bỏ qua là người vừa đăng ký song song: trả lại suất đã giữ
+            int skipped = candidates.size() - inserted;
+            if (skipped > 0) {
+                eventAdmissionControl.release(eventId, skipped);
+                job.addAlreadyRegistered(skipped);
+            }
+            return inserted;
+        });
+        job.addProcessed(rows.size());
+        job.addImported(imported);
+        saveProgress(job);
+
+        if (imported > 0) {
+            eventPublisher.publishEvent(new ParticipantAddedEvent(eventId, imported));
+        }
+        log.debug("Job {} đã xử lý khối {} dòng, thêm {} người tham gia vào sự kiện ID {}",
+                job.getJobId(), rows.size(), imported, eventId);
+    }
+
+    /**
+     * Ghi ảnh chụp tiến độ lên Redis để request tra cứu tới replica nào cũng đọc được. Khi Redis
+     * lỗi, chỉ replica đang chạy job trả lời được.
+     */
+    private void saveProgress(ParticipantImportJob job) {
+        try {
+            redisTemplate.opsForValue().set(PROGRESS_KEY_PREFIX + job.getJobId(),
+                    objectMapper.writeValueAsString(job.toResponse()), jobRetention);
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("Không thể lưu tiến độ nhập người tham gia (job {}) lên Redis: {}",
+                    job.getJobId(), e.getMessage());
+        }
+    }
+
+    private ParticipantImportResponse findProgress(String jobId) {
+        try {
+            String progress = redisTemplate.opsForValue().get(PROGRESS_KEY_PREFIX + jobId);
+            return progress != null
+                    ? objectMapper.readValue(progress, ParticipantImportResponse.class)
+                    : null;
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("Không thể đọc tiến độ nhập người tham gia (job {}) từ Redis: {}", jobId,
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    private Event checkEventAcceptsParticipants(Integer eventId) {
+        Event event = eventRepository.findById(eventId).orElseThrow(
+                () -> new NotFoundException("Không tìm thấy sự kiện với ID: " + eventId));
+        if (event.getStartTime().isBefore(Instant.now())) {
+            throw new ConflictException(
+                    "Sự kiện đã bắt đầu hoặc kết thúc, không thể thêm người tham gia.");
+        }
+        if (event.getStatus() == EventStatus.CANCELLED) {
+            throw new ConflictException("Sự kiện đã bị hủy.");
+        }
+        return event;
+    }
+
+    private static final class ImportRow {
+        private final long rowNumber;
+        private final String email;
+
+        private ImportRow(long rowNumber, String email) {
+            this.rowNumber = rowNumber;
+            this.email = email;
+        }
+    }
+}
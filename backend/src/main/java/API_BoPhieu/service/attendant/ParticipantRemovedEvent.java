@@ -0,0 +1,12 @@
+package API_BoPhieu.service.attendant;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** Phát ra khi người tham gia bị xóa khỏi sự kiện (ban tổ chức xóa hoặc tự hủy đăng ký). */
+@Getter
+@AllArgsConstructor
+public class ParticipantRemovedEvent {
+    private final Integer eventId;
+    private final int count;
+}
@@ -1,7 +1,12 @@
 package API_BoPhieu.service.attendant;
 
+import API_BoPhieu.dto.qr.QrImage;
+import API_BoPhieu.dto.qr.QrRenderOptions;
+
 public interface QRCodeService {
     byte[] generateQRCode(String data) throws Exception;
 
+    QrImage render(String data, QrRenderOptions options);
+
     String generateQRToken();
 }
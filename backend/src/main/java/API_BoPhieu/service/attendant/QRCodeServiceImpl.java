@@ -1,28 +1,97 @@
 package API_BoPhieu.service.attendant;
 
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
+import javax.imageio.ImageIO;
 import com.google.zxing.BarcodeFormat;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import API_BoPhieu.constants.QrImageFormat;
+import API_BoPhieu.dto.qr.QrImage;
+import API_BoPhieu.dto.qr.QrRenderOptions;
+import API_BoPhieu.exception.IllegalArgumentException;
 
+/**
+ * Sinh ảnh QR. Ma trận được mã hóa ở kích thước tối thiểu rồi phóng bằng bội số nguyên của module
+ * nên ảnh luôn sắc nét, phần dư được chia đều thành lề trắng để ảnh đúng kích thước yêu cầu; PNG
+ * dùng ảnh 1 bit, SVG gộp các module liền nhau thành một path. Kết quả
+ * được giữ trong LRU giới hạn theo tổng số byte, khóa theo nội dung và tùy chọn hiển thị.
+ */
 @Service
 public class QRCodeServiceImpl implements QRCodeService {
+    private static final int MIN_SIZE = 64;
+    private static final int MAX_SIZE = 2048;
+    private static final int MAX_MARGIN = 10;
 
-    private static final int QR_CODE_SIZE = 300;
+    private final long cacheMaxBytes;
+    private final LinkedHashMap<String, QrImage> cache = new LinkedHashMap<>(256, 0.75f, true);
+    private long cachedBytes;
+
+    public QRCodeServiceImpl(@Value("${app.qr.cache.max-bytes:16777216}") long cacheMaxBytes) {
+        this.cacheMaxBytes = cacheMaxBytes;
+    }
 
     @Override
     public byte[] generateQRCode(String data) throws Exception {
-        QRCodeWriter qrCodeWriter = new QRCodeWriter();
-        BitMatrix bitMatrix =
-                qrCodeWriter.encode(data, BarcodeFormat.QR_CODE, QR_CODE_SIZE, QR_CODE_SIZE);
+        return render(data, QrRenderOptions.builder().build()).getContent();
+    }
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        MatrixToImageWriter.writeToStream(bitMatrix, "PNG", outputStream);
+    @Override
+    public QrImage render(String data, QrRenderOptions options) {
+        QrImageFormat format =
+                options.getFormat() != null ? options.getFormat() : QrImageFormat.PNG;
+        if (options.getSize() < MIN_SIZE || options.getSize() > MAX_SIZE) {
+            throw new IllegalArgumentException(
+                    "Kích thước QR phải nằm trong khoảng " + MIN_SIZE + "-" + MAX_SIZE + " pixel");
+        }
+        if (options.getMargin() < 0 || options.getMargin() > MAX_MARGIN) {
+            throw new IllegalArgumentException("Lề QR phải nằm trong khoảng 0-" + MAX_MARGIN);
+        }
+        String key = format + ":" + options.getSize() + ":" + options.getMargin() + ":" + data;
+        synchronized (cache) {
+            QrImage cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
 
-        return outputStream.toByteArray();
+        BitMatrix matrix = encode(data, options.getMargin());
+        int size = options.getSize();
+        int moduleSize = size / matrix.getWidth();
+        if (moduleSize < 1) {
+            throw new IllegalArgumentException("Kích thước QR quá nhỏ cho nội dung này, tối thiểu "
+                    + matrix.getWidth() + " pixel");
+        }
+        QrImage image;
+        switch (format) {
+            case SVG:
+                image = new QrImage(toSvg(matrix, size, moduleSize), "image/svg+xml", etag(key));
+                break;
+            case MATRIX:
+                image = new QrImage(toText(matrix), "text/plain;charset=UTF-8", etag(key));
+                break;
+            default:
+                image = new QrImage(toPng(matrix, size, moduleSize), "image/png", etag(key));
+        }
+        put(key, image);
+        return image;
     }
 
     @Override
@@ -30,4 +99,112 @@ public class QRCodeServiceImpl implements QRCodeService {
         return UUID.randomUUID().toString().replace("-", "");
     }
 
+    private void put(String key, QrImage image) {
+        synchronized (cache) {
+            QrImage previous = cache.put(key, image);
+            if (previous != null) {
+                cachedBytes -= previous.getContent().length;
+            }
+            cachedBytes += image.getContent().length;
+            Iterator<Map.Entry<String, QrImage>> eldest = cache.entrySet().iterator();
+            while (cachedBytes > cacheMaxBytes && eldest.hasNext()) {
+                cachedBytes -= eldest.next().getValue().getContent().length;
+                eldest.remove();
+            }
+        }
+    }
+
+    private static BitMatrix encode(String data, int margin) {
+        Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+        hints.put(EncodeHintType.CHARACTER_SET, StandardCharsets.UTF_8.name());
+        hints.put(EncodeHintType.MARGIN, margin);
+        try {
+            // Kích thước 0 cho ma trận tối thiểu, mỗi module đúng một ô
+            return new QRCodeWriter().encode(data, BarcodeFormat.QR_CODE, 0, 0, hints);
+        } catch (WriterException e) {
+            throw new IllegalArgumentException("Không thể mã hóa nội dung QR: " + e.getMessage());
+        }
+    }
+
+    /** Ảnh vuông {@code size} pixel, ma trận nằm giữa với phần dư làm lề trắng. */
+    private static byte[] toPng(BitMatrix matrix, int size, int moduleSize) {
+        int offset = (size - matrix.getWidth() * moduleSize) / 2;
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_BYTE_BINARY);
+        WritableRaster raster = image.getRaster();
+        int[] row = new int[size];
+        Arrays.fill(row, 1);
+        for (int y = 0; y < offset; y++) {
+            raster.setSamples(0, y, size, 1, 0, row);
+        }
+        for (int y = offset + matrix.getHeight() * moduleSize; y < size; y++) {
+            raster.setSamples(0, y, size, 1, 0, row);
+        }
+        for (int y = 0; y < matrix.getHeight(); y++) {
+            for (int x = 0; x < matrix.getWidth(); x++) {
+                int value = matrix.get(x, y) ? 0 : 1;
+                for (int i = 0; i < moduleSize; i++) {
+                    row[offset + x * moduleSize + i] = value;
+                }
+            }
+            for (int i = 0; i < moduleSize; i++) {
+                raster.setSamples(0, offset + y * moduleSize + i, size, 1, 0, row);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "PNG", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] toSvg(BitMatrix matrix, int size, int moduleSize) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        StringBuilder path = new StringBuilder();
+        for (int y = 0; y < height; y++) {
+            int x = 0;
+            while (x < width) {
+                if (!matrix.get(x, y)) {
+                    x++;
+                    continue;
+                }
+                int start = x;
+                while (x < width && matrix.get(x, y)) {
+                    x++;
+                }
+                path.append('M').append(start).append(' ').append(y).append('h')
+                        .append(x - start).append("v1h-").append(x - start).append('z');
+            }
+        }
+        int offset = (size - width * moduleSize) / 2;
+        String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + size + "\" height=\""
+                + size + "\" viewBox=\"0 0 " + size + " " + size
+                + "\" shape-rendering=\"crispEdges\"><rect width=\"100%\" height=\"100%\""
+                + " fill=\"#fff\"/><path transform=\"translate(" + offset + " " + offset
+                + ") scale(" + moduleSize + ")\" fill=\"#000\" d=\"" + path + "\"/></svg>";
+        return svg.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] toText(BitMatrix matrix) {
+        StringBuilder text = new StringBuilder(matrix.getHeight() * (matrix.getWidth() + 1));
+        for (int y = 0; y < matrix.getHeight(); y++) {
+            for (int x = 0; x < matrix.getWidth(); x++) {
+                text.append(matrix.get(x, y) ? '1' : '0');
+            }
+            text.append('\n');
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String etag(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(key.getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -0,0 +1,295 @@
+package API_BoPhieu.service.event;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import API_BoPhieu.entity.Event;
+import API_BoPhieu.exception.NotFoundException;
+import API_BoPhieu.repository.AttendantRepository;
+import API_BoPhieu.repository.EventRepository;
+
+/**
+ * Bộ đếm chỗ đã cấp của từng sự kiện, giữ trong Redis và cập nhật nguyên tử bằng script Lua nên
+ * sự kiện đã đầy bị từ chối mà không cần truy vấn MySQL. Khi Redis lỗi, việc cấp chỗ chuyển sang
+ * khóa dòng sự kiện ({@code SELECT ... FOR UPDATE}) rồi đếm bảng attendants; bộ đếm của sự kiện đó
+ * bị xóa khi Redis hoạt động lại để được nạp lại từ DB. Bộ đếm được đối chiếu định kỳ với bảng
+ * attendants để sửa sai lệch.
+ *
+ * <p>Mỗi lần cấp chỗ được ghi vào tập chỗ đang giữ của sự kiện cho tới khi transaction kết thúc.
+ * Chỗ đang giữ chưa có dòng trong attendants nên việc đối chiếu bỏ qua sự kiện còn chỗ đang giữ
+ * thay vì hạ bộ đếm xuống dưới số chỗ đã cấp. Mục của replica chết giữa chừng tự hết hạn sau
+ * {@code app.event.admission.in-flight-grace}.
+ */
+@Component
+public class EventAdmissionControl {
+    private static final Logger log = LoggerFactory.getLogger(EventAdmissionControl.class);
+    private static final String KEY_PREFIX = "event-admission:";
+    private static final String IN_FLIGHT_PREFIX = "event-admission-inflight:";
+    private static final long NOT_INITIALIZED = -1L;
+    private static final int UNLIMITED = -1;
+
+    /**
+     * KEYS[1] bộ đếm, KEYS[2] tập chỗ đang giữ; ARGV: sức chứa (-1 là không giới hạn), số chỗ cần, 1
+     * nếu phải đủ cả hoặc không cấp, TTL giây, mã lần cấp, hạn (ms) của mục đang giữ. Trả về số chỗ
+     * được cấp hoặc -1 khi bộ đếm chưa được nạp.
+     */
+    private static final RedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>(
+            "local current = redis.call('GET', KEYS[1]) "
+                    + "if not current then return -1 end "
+                    + "current = tonumber(current) "
+                    + "local max = tonumber(ARGV[1]) "
+                    + "local granted = tonumber(ARGV[2]) "
+                    + "if max >= 0 then "
+                    + "  local free = math.max(max - current, 0) "
+                    + "  if granted > free then "
+                    + "    if ARGV[3] == '1' then return 0 end "
+                    + "    granted = free "
+                    + "  end "
+                    + "end "
+                    + "if granted > 0 then "
+                    + "  redis.call('INCRBY', KEYS[1], granted) "
+                    + "  redis.call('ZADD', KEYS[2], ARGV[6], ARGV[5]) "
+                    + "  redis.call('EXPIRE', KEYS[2], ARGV[4]) "
+                    + "end "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[4]) "
+                    + "return granted",
+            Long.class);
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end "
+                    + "local remaining = redis.call('DECRBY', KEYS[1], ARGV[1]) "
+                    + "if remaining < 0 then redis.call('INCRBY', KEYS[1], -remaining) remaining = 0 end "
+                    + "return remaining",
+            Long.class);
+
+    /**
+     * KEYS[1] bộ đếm, KEYS[2] tập chỗ đang giữ; ARGV: giá trị đã đọc, giá trị mới, TTL giây, thời
+     * điểm hiện tại (ms). Chỉ ghi khi bộ đếm chưa đổi và không còn chỗ đang giữ chưa hết hạn.
+     */
+    private static final RedisScript<Long> COMPARE_AND_SET_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', ARGV[4]) "
+                    + "if redis.call('ZCARD', KEYS[2]) > 0 then return -1 end "
+                    + "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+                    + "redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3]) return 1 end "
+                    + "return 0",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final EventRepository eventRepository;
+    private final AttendantRepository attendantRepository;
+    private final Duration counterTtl;
+    private final Duration inFlightGrace;
+    /** Sự kiện đã cấp hoặc trả chỗ khi Redis lỗi; bộ đếm của chúng phải được nạp lại từ DB. */
+    private final Set<Integer> staleCounters = ConcurrentHashMap.newKeySet();
+
+    public EventAdmissionControl(StringRedisTemplate redisTemplate,
+            EventRepository eventRepository, AttendantRepository attendantRepository,
+            @Value("${app.event.admission.ttl:P2D}") Duration counterTtl,
+            @Value("${app.event.admission.in-flight-grace:PT2M}") Duration inFlightGrace) {
+        this.redisTemplate = redisTemplate;
+        this.eventRepository = eventRepository;
+        this.attendantRepository = attendantRepository;
+        this.counterTtl = counterTtl;
+        this.inFlightGrace = inFlightGrace;
+    }
+
+    /** Cấp đủ {@code requested} chỗ hoặc không cấp chỗ nào. Phải được gọi trong transaction. */
+    public boolean tryReserve(Integer eventId, Integer maxParticipants, int requested) {
+        return reserve(eventId, maxParticipants, requested, true) == requested;
+    }
+
+    /** Cấp tối đa {@code requested} chỗ, trả về số chỗ thực sự được cấp. */
+    public int reserveUpTo(Integer eventId, Integer maxParticipants, int requested) {
+        return reserve(eventId, maxParticipants, requested, false);
+    }
+
+    /** Trả lại chỗ sau khi transaction xóa người tham gia commit thành công. */
+    public void release(Integer eventId, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager
+                    .registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            releaseNow(eventId, count);
+                        }
+                    });
+        } else {
+            releaseNow(eventId, count);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.event.admission.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        try {
+            dropStaleCounters();
+        } catch (DataAccessException e) {
+            log.warn("Bỏ qua lượt đối chiếu bộ đếm chỗ vì Redis không khả dụng: {}", e.getMessage());
+            return;
+        }
+        ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(500).build();
+        try (Cursor<String> keys = redisTemplate.scan(options)) {
+            while (keys.hasNext()) {
+                String key = keys.next();
+                Integer eventId = Integer.valueOf(key.substring(KEY_PREFIX.length()));
+                String cached = redisTemplate.opsForValue().get(key);
+                if (cached == null) {
+                    continue;
+                }
+                int actual = attendantRepository.countByEventId(eventId);
+                if (Long.parseLong(cached) != actual) {
+                    Long updated = redisTemplate.execute(COMPARE_AND_SET_SCRIPT,
+                            List.of(key, inFlightKey(eventId)), cached, String.valueOf(actual),
+                            String.valueOf(counterTtl.toSeconds()),
+                            String.valueOf(System.currentTimeMillis()));
+                    if (updated != null && updated == 1L) {
+                        log.warn("Bộ đếm chỗ của sự kiện ID {} lệch ({} so với {} trong DB), đã đồng bộ lại",
+                                eventId, cached, actual);
+                    }
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("Bỏ qua lượt đối chiếu bộ đếm chỗ vì Redis không khả dụng: {}", e.getMessage());
+        }
+    }
+
+    private int reserve(Integer eventId, Integer maxParticipants, int requested,
+            boolean allOrNothing) {
+        if (requested <= 0) {
+            return 0;
+        }
+        int max = maxParticipants == null ? UNLIMITED : maxParticipants;
+        String reservationId = UUID.randomUUID().toString();
+        long granted;
+        try {
+            if (staleCounters.contains(eventId)) {
+                dropStaleCounter(eventId);
+            }
+            granted = reserveInRedis(eventId, max, requested, allOrNothing, reservationId);
+            if (granted == NOT_INITIALIZED) {
+                if (max == UNLIMITED) {
+                    // Sự kiện không giới hạn chỉ cần bộ đếm khi sau này được đặt sức chứa
+                    return requested;
+                }
+                redisTemplate.opsForValue().setIfAbsent(key(eventId),
+                        String.valueOf(attendantRepository.countByEventId(eventId)), counterTtl);
+                granted = reserveInRedis(eventId, max, requested, allOrNothing, reservationId);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Redis không khả dụng khi cấp chỗ cho sự kiện ID {}, chuyển sang khóa DB: {}",
+                    eventId, e.getMessage());
+            staleCounters.add(eventId);
+            return reserveWithRowLock(eventId, max, requested, allOrNothing);
+        }
+        if (granted == NOT_INITIALIZED) {
+            return reserveWithRowLock(eventId, max, requested, allOrNothing);
+        }
+        int grantedSeats = (int) granted;
+        completeReservation(eventId, grantedSeats, reservationId);
+        return grantedSeats;
+    }
+
+    private long reserveInRedis(Integer eventId, int max, int requested, boolean allOrNothing,
+            String reservationId) {
+        Long result = redisTemplate.execute(RESERVE_SCRIPT,
+                List.of(key(eventId), inFlightKey(eventId)), String.valueOf(max),
+                String.valueOf(requested), allOrNothing ? "1" : "0",
+                String.valueOf(counterTtl.toSeconds()), reservationId,
+                String.valueOf(System.currentTimeMillis() + inFlightGrace.toMillis()));
+        return result == null ? NOT_INITIALIZED : result;
+    }
+
+    private int reserveWithRowLock(Integer eventId, int max, int requested,
+            boolean allOrNothing) {
+        Event event = eventRepository.findByIdForUpdate(eventId).orElseThrow(
+                () -> new NotFoundException("Không tìm thấy sự kiện với ID: " + eventId));
+        if (max == UNLIMITED) {
+            return requested;
+        }
+        int free = Math.max(max - attendantRepository.countByEventId(event.getId()), 0);
+        if (requested <= free) {
+            return requested;
+        }
+        return allOrNothing ? 0 : free;
+    }
+
+    /**
+     * Khi transaction kết thúc: bỏ mục đang giữ, và trả lại chỗ nếu rollback. Ngoài transaction thì
+     * bỏ mục ngay vì bên gọi đã ghi xong.
+     */
+    private void completeReservation(Integer eventId, int count, String reservationId) {
+        if (count <= 0) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            forgetReservation(eventId, reservationId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    releaseNow(eventId, count);
+                }
+                forgetReservation(eventId, reservationId);
+            }
+        });
+    }
+
+    private void forgetReservation(Integer eventId, String reservationId) {
+        try {
+            redisTemplate.opsForZSet().remove(inFlightKey(eventId), reservationId);
+        } catch (DataAccessException e) {
+            log.debug("Không thể bỏ chỗ đang giữ của sự kiện ID {}, sẽ tự hết hạn: {}", eventId,
+                    e.getMessage());
+        }
+    }
+
+    private void dropStaleCounters() {
+        for (Integer eventId : staleCounters) {
+            dropStaleCounter(eventId);
+        }
+    }
+
+    /** Xóa bộ đếm đã lệch trong lúc Redis lỗi; lần cấp chỗ sau nạp lại nó từ DB. */
+    private void dropStaleCounter(Integer eventId) {
+        redisTemplate.delete(key(eventId));
+        staleCounters.remove(eventId);
+        log.info("Đã xóa bộ đếm chỗ của sự kiện ID {} sau khi Redis hoạt động lại", eventId);
+    }
+
+    private void releaseNow(Integer eventId, int count) {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(key(eventId)), String.valueOf(count));
+        } catch (DataAccessException e) {
+            log.warn("Không thể trả {} chỗ cho sự kiện ID {}, bộ đếm sẽ được nạp lại: {}", count,
+                    eventId, e.getMessage());
+            staleCounters.add(eventId);
+        }
+    }
+
+    private static String key(Integer eventId) {
+        return KEY_PREFIX + eventId;
+    }
+
+    private static String inFlightKey(Integer eventId) {
+        return IN_FLIGHT_PREFIX + eventId;
+    }
+}
@@ -0,0 +1,238 @@
+package API_BoPhieu.service.event;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import API_BoPhieu.constants.EventStatus;
+import API_BoPhieu.repository.EventRepository;
+
+/**
+ * Số sự kiện theo trạng thái và số sự kiện chưa hủy mỗi user quản lý, giữ trong hai hash Redis và
+ * cập nhật tăng dần sau khi transaction commit, để trang danh sách không phải chạy GROUP BY trên
+ * bảng events mỗi lần. Hash trạng thái được nạp từ DB khi chưa có; số liệu của một user được nạp ở
+ * lần đọc đầu tiên. Khi Redis lỗi, số liệu được đếm thẳng từ DB. Bộ đếm được đối chiếu định kỳ với
+ * DB để sửa sai lệch.
+ */
+@Component
+public class EventCounterStore {
+    private static final Logger log = LoggerFactory.getLogger(EventCounterStore.class);
+    private static final String STATUS_KEY = "event-counters:status";
+    private static final String MANAGED_KEY = "event-counters:managed";
+    private static final String IN_FLIGHT_KEY = "event-counters:in-flight";
+
+    /** KEYS[1] hash; ARGV: trường, lượng thay đổi. Bỏ qua khi trường chưa được nạp. */
+    private static final RedisScript<Long> INCREMENT_IF_LOADED_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 0 then return -1 end "
+                    + "return redis.call('HINCRBY', KEYS[1], ARGV[1], ARGV[2])",
+            Long.class);
+
+    /**
+     * KEYS[1] hash, KEYS[2] tập thay đổi đang chờ commit; ARGV: trường, giá trị đã đọc, giá trị
+     * mới, thời điểm hiện tại. Trả về -1 khi còn thay đổi chưa cộng vào bộ đếm.
+     */
+    private static final RedisScript<Long> COMPARE_AND_SET_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', ARGV[4]) "
+                    + "if redis.call('ZCARD', KEYS[2]) > 0 then return -1 end "
+                    + "if redis.call('HGET', KEYS[1], ARGV[1]) == ARGV[2] then "
+                    + "redis.call('HSET', KEYS[1], ARGV[1], ARGV[3]) return 1 end "
+                    + "return 0",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final EventRepository eventRepository;
+    private final Duration inFlightGrace;
+
+    public EventCounterStore(StringRedisTemplate redisTemplate, EventRepository eventRepository,
+            @Value("${app.event.counters.in-flight-grace:PT2M}") Duration inFlightGrace) {
+        this.redisTemplate = redisTemplate;
+        this.eventRepository = eventRepository;
+        this.inFlightGrace = inFlightGrace;
+    }
+
+    public Map<EventStatus, Long> getStatusCounts() {
+        try {
+            Map<Object, Object> cached = redisTemplate.opsForHash().entries(STATUS_KEY);
+            if (!cached.isEmpty()) {
+                Map<EventStatus, Long> counts = new EnumMap<>(EventStatus.class);
+                cached.forEach((status, count) -> counts
+                        .put(EventStatus.valueOf((String) status), Long.parseLong((String) count)));
+                return counts;
+            }
+            Map<EventStatus, Long> counts = countStatusesFromDb();
+            // Mọi trạng thái đều có trường nên các lần tăng sau luôn áp dụng được; HSETNX để không
+            // ghi đè bộ đếm mà replica khác vừa nạp
+            for (EventStatus status : EventStatus.values()) {
+                redisTemplate.opsForHash().putIfAbsent(STATUS_KEY, status.name(),
+                        String.valueOf(counts.getOrDefault(status, 0L)));
+            }
+            return counts;
+        } catch (DataAccessException e) {
+            log.warn("Redis không khả dụng khi đọc số sự kiện theo trạng thái, đếm từ DB: {}",
+                    e.getMessage());
+            return countStatusesFromDb();
+        }
+    }
+
+    public long getManagedCount(Integer userId) {
+        String field = String.valueOf(userId);
+        try {
+            Object cached = redisTemplate.opsForHash().get(MANAGED_KEY, field);
+            if (cached != null) {
+                return Long.parseLong((String) cached);
+            }
+            long count = eventRepository.countManagedEventsByUserId(userId);
+            redisTemplate.opsForHash().putIfAbsent(MANAGED_KEY, field, String.valueOf(count));
+            return count;
+        } catch (DataAccessException e) {
+            log.warn("Redis không khả dụng khi đọc số sự kiện quản lý của user ID {}, đếm từ DB: {}",
+                    userId, e.getMessage());
+            return eventRepository.countManagedEventsByUserId(userId);
+        }
+    }
+
+    /** Ghi nhận sự kiện mới ở trạng thái {@code status}. */
+    public void eventCreated(EventStatus status) {
+        afterCommit(() -> increment(STATUS_KEY, status.name(), 1));
+    }
+
+    /** Ghi nhận {@code count} sự kiện chuyển từ {@code from} sang {@code to}. */
+    public void statusChanged(EventStatus from, EventStatus to, int count) {
+        if (from == to || count <= 0) {
+            return;
+        }
+        afterCommit(() -> {
+            increment(STATUS_KEY, from.name(), -count);
+            increment(STATUS_KEY, to.name(), count);
+        });
+    }
+
+    /** +1 khi user được gán vào một sự kiện chưa hủy, -1 khi bị gỡ hoặc khi sự kiện bị hủy. */
+    public void managedChanged(Integer userId, int delta) {
+        afterCommit(() -> increment(MANAGED_KEY, String.valueOf(userId), delta));
+    }
+
+    /**
+     * Đối chiếu bộ đếm với DB. Giá trị Redis được đọc trước khi đếm trên DB và chỉ được ghi đè khi
+     * không đổi và không còn thay đổi nào đã ghi DB mà chưa cộng vào bộ đếm; nếu không, một thay
+     * đổi commit trước lúc đếm nhưng cộng sau lúc ghi đè sẽ bị tính hai lần.
+     */
+    @Scheduled(fixedDelayString = "${app.event.counters.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        try {
+            Map<Object, Object> statuses = redisTemplate.opsForHash().entries(STATUS_KEY);
+            if (!statuses.isEmpty()) {
+                Map<String, Long> actual = new HashMap<>();
+                countStatusesFromDb().forEach((status, count) -> actual.put(status.name(), count));
+                statuses.forEach((status, cached) -> reconcileField(STATUS_KEY, (String) status,
+                        (String) cached, actual.getOrDefault((String) status, 0L)));
+            }
+            Map<Object, Object> managed = redisTemplate.opsForHash().entries(MANAGED_KEY);
+            if (!managed.isEmpty()) {
+                Map<String, Long> actual = new HashMap<>();
+                for (Object[] row : eventRepository.countManagedEventsGroupByUserId()) {
+                    actual.put(String.valueOf(row[0]), (Long) row[1]);
+                }
+                managed.forEach((userId, cached) -> reconcileField(MANAGED_KEY, (String) userId,
+                        (String) cached, actual.getOrDefault((String) userId, 0L)));
+            }
+        } catch (DataAccessException e) {
+            log.warn("Bỏ qua lượt đối chiếu bộ đếm sự kiện vì Redis không khả dụng: {}",
+                    e.getMessage());
+        }
+    }
+
+    private void reconcileField(String key, String field, String cached, long actual) {
+        if (Long.parseLong(cached) == actual) {
+            return;
+        }
+        Long updated = redisTemplate.execute(COMPARE_AND_SET_SCRIPT, List.of(key, IN_FLIGHT_KEY),
+                field, cached, String.valueOf(actual), String.valueOf(System.currentTimeMillis()));
+        if (updated != null && updated == 1L) {
+            log.warn("Bộ đếm sự kiện '{}' trường {} lệch ({} so với {} trong DB), đã đồng bộ lại", key,
+                    field, cached, actual);
+        } else if (updated != null && updated == -1L) {
+            log.debug("Bộ đếm sự kiện '{}' trường {} còn thay đổi chưa cộng, đối chiếu ở lượt sau",
+                    key, field);
+        }
+    }
+
+    private Map<EventStatus, Long> countStatusesFromDb() {
+        Map<EventStatus, Long> counts = new EnumMap<>(EventStatus.class);
+        eventRepository.countEventsByStatus()
+                .forEach(result -> counts.put((EventStatus) result[0], (Long) result[1]));
+        return counts;
+    }
+
+    private void increment(String key, String field, long delta) {
+        try {
+            redisTemplate.execute(INCREMENT_IF_LOADED_SCRIPT, List.of(key), field,
+                    String.valueOf(delta));
+        } catch (DataAccessException e) {
+            log.warn("Không thể cập nhật bộ đếm sự kiện '{}' trường {}, sẽ được sửa khi đối chiếu: {}",
+                    key, field, e.getMessage());
+        }
+    }
+
+    /**
+     * Cộng vào bộ đếm sau khi transaction commit. Từ lúc thay đổi được ghi DB tới khi cộng xong,
+     * một phần tử trong tập thay đổi đang chờ giữ {@link #reconcile} không ghi đè bộ đếm; phần tử
+     * bị bỏ lại khi replica dừng giữa chừng hết hạn sau {@code app.event.counters.in-flight-grace}.
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        String marker = markInFlight();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                clearInFlight(marker);
+            }
+        });
+    }
+
+    private String markInFlight() {
+        String marker = UUID.randomUUID().toString();
+        try {
+            redisTemplate.opsForZSet().add(IN_FLIGHT_KEY, marker,
+                    System.currentTimeMillis() + inFlightGrace.toMillis());
+            return marker;
+        } catch (DataAccessException e) {
+            log.warn("Không thể đánh dấu thay đổi bộ đếm sự kiện đang chờ commit: {}",
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    private void clearInFlight(String marker) {
+        if (marker == null) {
+            return;
+        }
+        try {
+            redisTemplate.opsForZSet().remove(IN_FLIGHT_KEY, marker);
+        } catch (DataAccessException e) {
+            log.warn("Không thể bỏ đánh dấu thay đổi bộ đếm sự kiện, sẽ hết hạn sau {}: {}",
+                    inFlightGrace, e.getMessage());
+        }
+    }
+}
@@ -2,7 +2,7 @@ package API_BoPhieu.service.event;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.EnumMap;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -12,7 +12,10 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -20,8 +23,10 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import API_BoPhieu.config.CacheGenerations;
 import API_BoPhieu.constants.EventManagement;
 import API_BoPhieu.constants.EventStatus;
 import API_BoPhieu.dto.common.PageResponse;
@@ -38,16 +43,20 @@ import API_BoPhieu.entity.Event;
 import API_BoPhieu.entity.EventManager;
 import API_BoPhieu.entity.User;
 import API_BoPhieu.exception.AuthException;
+import API_BoPhieu.exception.ConflictException;
 import API_BoPhieu.exception.EventException;
 import API_BoPhieu.exception.NotFoundException;
 import API_BoPhieu.mapper.EventMapper;
 import API_BoPhieu.repository.AttendantRepository;
 import API_BoPhieu.repository.EventManagerRepository;
 import API_BoPhieu.repository.EventRepository;
+import API_BoPhieu.repository.EventSearchRepository;
 import API_BoPhieu.repository.UserRepository;
+import API_BoPhieu.service.attendant.ParticipantAddedEvent;
 import API_BoPhieu.service.attendant.QRCodeService;
 import API_BoPhieu.service.file.FileStorageService;
-import API_BoPhieu.service.file.FileStorageServiceImpl;
+import API_BoPhieu.service.search.EventSearchIndex;
+import API_BoPhieu.service.search.SearchHits;
 import API_BoPhieu.specification.EventSpecification;
 import lombok.RequiredArgsConstructor;
 
@@ -56,6 +65,9 @@ import lombok.RequiredArgsConstructor;
 @Transactional(readOnly = true)
 public class EventServiceImpl implements EventService {
     private static final Logger log = LoggerFactory.getLogger(EventServiceImpl.class);
+    /** Giá trị {@code sortBy} để xếp kết quả tìm kiếm theo điểm liên quan. */
+    private static final String RELEVANCE_SORT = "relevance";
+    private static final String RELEVANCE_TIEBREAK = "startTime";
 
     private final EventRepository eventRepository;
     private final EventMapper eventMapper;
@@ -64,14 +76,15 @@ public class EventServiceImpl implements EventService {
     private final QRCodeService qrCodeService;
     private final UserRepository userRepository;
     private final EventManagerRepository eventManagerRepository;
+    private final CacheGenerations cacheGenerations;
+    private final EventAdmissionControl eventAdmissionControl;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EventCounterStore eventCounterStore;
+    private final EventSearchIndex eventSearchIndex;
+    private final EventSearchRepository eventSearchRepository;
 
     @Override
     @Transactional
-    // @Caching(evict = {
-    // @CacheEvict(cacheNames = "EVENT_DETAIL", allEntries = true),
-    // @CacheEvict(cacheNames = "EVENT_LIST", allEntries = true),
-    // @CacheEvict(cacheNames = "MANAGED_EVENTS", allEntries = true)
-    // })
     public EventResponse createEvent(EventDto eventDto, String creatorEmail) {
         User user = userRepository.findByEmail(creatorEmail)
                 .orElseThrow(() -> new AuthException("Người dùng không hợp lệ!"));
@@ -82,6 +95,9 @@ public class EventServiceImpl implements EventService {
         newEvent = eventRepository.save(newEvent);
 
         log.info("Sự kiện '{}' đã được tạo bởi người dùng '{}'", newEvent.getTitle(), creatorEmail);
+        cacheGenerations.bumpLists();
+        eventCounterStore.eventCreated(newEvent.getStatus());
+        eventSearchIndex.indexAfterCommit(newEvent);
 
         EventResponse eventResponse = eventMapper.toEventResponse(newEvent);
         eventResponse.setCurrentParticipants(0);
@@ -89,11 +105,6 @@ public class EventServiceImpl implements EventService {
     }
 
     @Override
-    // @Caching(evict = {
-    // @CacheEvict(cacheNames = "EVENT_LIST", allEntries = true),
-    // @CacheEvict(cacheNames = "MANAGED_EVENTS", allEntries = true),
-    // @CacheEvict(cacheNames = "EVENT_DETAIL", allEntries = true)
-    // })
     @Transactional
     public EventResponse updateEvent(Integer eventId, EventDto eventDto) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -125,6 +136,8 @@ public class EventServiceImpl implements EventService {
         event.setMaxParticipants(eventDto.getMaxParticipants());
         event.setUrlDocs(eventDto.getUrlDocs());
         event = eventRepository.save(event);
+        cacheGenerations.bumpEventAndLists(eventId);
+        eventSearchIndex.indexAfterCommit(event);
 
         EventResponse eventResponse = eventMapper.toEventResponse(event);
 
@@ -133,11 +146,6 @@ public class EventServiceImpl implements EventService {
 
     @Override
     @Transactional
-    // @Caching(evict = {
-    // @CacheEvict(cacheNames = "EVENT_DETAIL", allEntries = true),
-    // @CacheEvict(cacheNames = "EVENT_LIST", allEntries = true),
-    // @CacheEvict(cacheNames = "MANAGED_EVENTS", allEntries = true)
-    // })
     public EventResponse uploadBanner(Integer eventId, MultipartFile file) {
         log.info("Bắt đầu quá trình upload banner cho sự kiện ID: {}", eventId);
 
@@ -153,6 +161,7 @@ public class EventServiceImpl implements EventService {
 
         event.setBanner(uniqueFilename);
         event = eventRepository.save(event);
+        cacheGenerations.bumpEventAndLists(eventId);
 
         log.info("Upload và cập nhật banner thành công cho sự kiện ID {}. Tên file banner mới: {}", eventId,
                 uniqueFilename);
@@ -163,7 +172,7 @@ public class EventServiceImpl implements EventService {
     }
 
     @Override
-    // @Cacheable(cacheNames = "QR_IMAGE", key = "'join:' + #eventId")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public byte[] generateEventQRCode(Integer eventId, String baseUrl, String creatorEmail)
             throws Exception {
         User user = userRepository.findByEmail(creatorEmail)
@@ -188,31 +197,30 @@ public class EventServiceImpl implements EventService {
         Event event = eventRepository.findByQrJoinToken(eventToken).orElseThrow(
                 () -> new EventException("Không tìm thấy sự kiện với token = " + eventToken));
 
-        if (attendantRepository.existsByUserIdAndEventId(event.getId(), user.getId())) {
+        if (attendantRepository.existsByUserIdAndEventId(user.getId(), event.getId())) {
             throw new EventException("Bạn đã tham gia sự kiện này rồi");
         }
 
-        Integer currentParticipants = attendantRepository.countByEventId(event.getId());
-        if (event.getMaxParticipants() != null
-                && currentParticipants >= event.getMaxParticipants()) {
-            throw new EventException("Sự kiện đã đầy");
-        }
-
         if (event.getStatus() != EventStatus.UPCOMING) {
             throw new EventException("Sự kiện không còn khả dụng để tham gia");
         }
 
+        if (!eventAdmissionControl.tryReserve(event.getId(), event.getMaxParticipants(), 1)) {
+            throw new EventException("Sự kiện đã đầy");
+        }
+
         Attendant newAttendant = new Attendant();
         newAttendant.setEventId(event.getId());
         newAttendant.setUserId(user.getId());
 
         log.info("Người dùng '{}' đã tham gia sự kiện '{}'", user.getEmail(), event.getTitle());
-        return attendantRepository.save(newAttendant);
+        Attendant savedAttendant = attendantRepository.save(newAttendant);
+        eventPublisher.publishEvent(new ParticipantAddedEvent(event.getId(), 1));
+        return savedAttendant;
     }
 
     @Override
-    // @Cacheable(cacheNames = "EVENT_DETAIL", key = "'event:' + #eventId + ':user:'
-    // + #email")
+    @Cacheable(cacheNames = "EVENT_DETAIL", keyGenerator = "eventDetailKeyGen")
     public EventDetailResponse getEventById(Integer eventId, String email) {
         log.info("Bắt đầu lấy chi tiết sự kiện ID: {} cho người dùng '{}'", eventId, email);
 
@@ -256,16 +264,14 @@ public class EventServiceImpl implements EventService {
                 managerInfos, secretaryInfos);
 
         if (event.getBanner() != null && !event.getBanner().isEmpty()) {
-            String bannerUrl = ((FileStorageServiceImpl) fileStorageService).getSignedUrl("banners",
-                    event.getBanner());
-            response.setBanner(bannerUrl);
+            response.setBanner(fileStorageService.getSignedUrl("banners", event.getBanner()));
         }
 
         return response;
     }
 
     @Override
-    // @Cacheable(cacheNames = "EVENT_LIST", keyGenerator = "listKeyGen")
+    @Cacheable(cacheNames = "EVENT_LIST", keyGenerator = "eventListKeyGen")
     public EventPageWithCountersResponse getAllEvents(int page, int size, String sortBy,
             String sortDir, EventStatus status, String search, String email) {
 
@@ -276,36 +282,44 @@ public class EventServiceImpl implements EventService {
                 : Sort.by(sortBy).descending();
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        Specification<Event> spec = Specification.where(EventSpecification.hasStatus(status))
-                .and(EventSpecification.searchByKeyword(search));
+        Specification<Event> spec = Specification.where(EventSpecification.hasStatus(status));
 
-        Page<Event> eventPage = eventRepository.findAll(spec, pageable);
-        PageResponse<EventResponse> pageResponse = createPageResponse(eventPage, userOptional);
+        SearchPage eventPage = findEvents(spec, search, pageable);
+        PageResponse<EventResponse> pageResponse =
+                createPageResponse(eventPage.page(), userOptional);
 
         EventCountersResponse counters = createCountersResponse(userOptional);
 
         return EventPageWithCountersResponse.builder().pagination(pageResponse).counters(counters)
-                .build();
+                .searchTruncated(eventPage.truncated()).build();
     }
 
     @Override
     @Transactional
-    // @Caching(evict = {
-    // @CacheEvict(cacheNames = "EVENT_DETAIL", allEntries = true),
-    // @CacheEvict(cacheNames = "EVENT_LIST", allEntries = true),
-    // @CacheEvict(cacheNames = "MANAGED_EVENTS", allEntries = true)
-    // })
     public void cancelEvent(Integer id) {
         log.debug("Nhận yêu cầu hủy sự kiện với ID: {}", id);
         Event event = eventRepository.findById(id)
                 .orElseThrow(() -> new EventException("Không tìm thấy sự kiện với ID: " + id));
-        event.setStatus(EventStatus.CANCELLED);
-        eventRepository.save(event);
+        EventStatus previousStatus = event.getStatus();
+        if (previousStatus == EventStatus.CANCELLED) {
+            log.info("Sự kiện '{}' (ID: {}) đã bị hủy từ trước.", event.getTitle(), id);
+            return;
+        }
+        // Chỉ đổi khi trạng thái chưa bị lịch chuyển trạng thái đổi song song, để bộ đếm trừ đúng
+        // trạng thái cũ
+        if (eventRepository.markCancelled(id, previousStatus) == 0) {
+            throw new ConflictException("Trạng thái sự kiện vừa thay đổi, vui lòng thử lại!");
+        }
+        cacheGenerations.bumpEventAndLists(id);
+        eventCounterStore.statusChanged(previousStatus, EventStatus.CANCELLED, 1);
+        // Sự kiện đã hủy không còn được tính vào số sự kiện quản lý
+        eventManagerRepository.findByEventId(id)
+                .forEach(manager -> eventCounterStore.managedChanged(manager.getUserId(), -1));
         log.info("Sự kiện '{}' (ID: {}) đã được hủy.", event.getTitle(), id);
     }
 
     @Override
-    // @Cacheable(cacheNames = "MANAGED_EVENTS", keyGenerator = "listKeyGen")
+    @Cacheable(cacheNames = "MANAGED_EVENTS", keyGenerator = "managedEventsKeyGen")
     public EventPageWithCountersResponse getManagedEvents(int page, int size, String sortBy,
             String sortDir, EventStatus status, String search, String email) {
 
@@ -318,16 +332,65 @@ public class EventServiceImpl implements EventService {
 
         Specification<Event> spec = Specification
                 .where(EventSpecification.isManagedByUserExists(user.getId()))
-                .and(EventSpecification.isNotCancelled()).and(EventSpecification.hasStatus(status))
-                .and(EventSpecification.searchByKeyword(search));
+                .and(EventSpecification.isNotCancelled()).and(EventSpecification.hasStatus(status));
 
-        Page<Event> eventPage = eventRepository.findAll(spec, pageable);
+        SearchPage eventPage = findEvents(spec, search, pageable);
 
-        PageResponse<EventResponse> pageResponse = createPageResponse(eventPage, Optional.of(user));
+        PageResponse<EventResponse> pageResponse =
+                createPageResponse(eventPage.page(), Optional.of(user));
         EventCountersResponse counters = createCountersResponse(Optional.of(user));
 
         return EventPageWithCountersResponse.builder().pagination(pageResponse).counters(counters)
-                .build();
+                .searchTruncated(eventPage.truncated()).build();
+    }
+
+    /**
+     * Có từ khóa thì lấy id các sự kiện khớp từ chỉ mục tìm kiếm (tối đa
+     * {@code app.search.max-candidates} sự kiện điểm cao nhất), rồi lọc, sắp theo {@code sortBy} và
+     * phân trang trên DB như khi không có từ khóa. Với {@code sortBy=relevance}, chỉ id của các sự
+     * kiện khớp sau khi lọc được đọc lên để xếp giảm dần theo điểm liên quan, cùng điểm thì theo
+     * thời gian bắt đầu; chỉ các sự kiện của trang được nạp đầy đủ. Khi chỉ mục chưa sẵn sàng thì
+     * tìm bằng LIKE như trước.
+     */
+    private SearchPage findEvents(Specification<Event> spec, String search, Pageable pageable) {
+        boolean byRelevance = pageable.getSort().getOrderFor(RELEVANCE_SORT) != null;
+        if (byRelevance) {
+            pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                    Sort.by(RELEVANCE_TIEBREAK).ascending());
+        }
+        if (search == null || search.trim().isEmpty()) {
+            return new SearchPage(eventRepository.findAll(spec, pageable), false);
+        }
+        Optional<SearchHits> hits = eventSearchIndex.search(search);
+        if (hits.isEmpty()) {
+            return new SearchPage(eventRepository
+                    .findAll(spec.and(EventSpecification.searchByKeyword(search)), pageable), false);
+        }
+        Map<Integer, Float> scores = hits.get().scores();
+        boolean truncated = hits.get().truncated();
+        if (scores.isEmpty()) {
+            return new SearchPage(Page.empty(pageable), truncated);
+        }
+        Specification<Event> matching = spec.and(EventSpecification.hasIdIn(scores.keySet()));
+        if (!byRelevance) {
+            return new SearchPage(eventRepository.findAll(matching, pageable), truncated);
+        }
+
+        // Danh sách đã sắp theo thời gian bắt đầu; sắp ổn định theo điểm giữ thứ tự đó khi hòa
+        List<Integer> matchIds =
+                new ArrayList<>(eventSearchRepository.findIds(matching, RELEVANCE_TIEBREAK));
+        matchIds.sort(Comparator.comparing((Integer eventId) -> scores.get(eventId)).reversed());
+        int from = (int) Math.min(pageable.getOffset(), matchIds.size());
+        int to = Math.min(from + pageable.getPageSize(), matchIds.size());
+        List<Integer> pageIds = matchIds.subList(from, to);
+        Map<Integer, Event> eventsById = eventRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(Event::getId, Function.identity()));
+        List<Event> content = pageIds.stream().map(eventsById::get).filter(event -> event != null)
+                .collect(Collectors.toList());
+        return new SearchPage(new PageImpl<>(content, pageable, matchIds.size()), truncated);
+    }
+
+    private record SearchPage(Page<Event> page, boolean truncated) {
     }
 
     private ManagerInfo mapToManagerInfo(User user) {
@@ -380,6 +443,12 @@ public class EventServiceImpl implements EventService {
                 user -> attendantRepository.findRegisteredEventIdsByUserId(user.getId(), eventIds))
                 .orElse(Collections.emptySet());
 
+        // URL banner của cả trang được ký một lần, phần lớn lấy thẳng từ cache
+        Set<String> banners = events.stream().map(Event::getBanner)
+                .filter(banner -> banner != null && !banner.isEmpty()).collect(Collectors.toSet());
+        Map<String, String> bannerUrls = banners.isEmpty() ? Collections.emptyMap()
+                : fileStorageService.getSignedUrls("banners", banners);
+
         Page<EventResponse> responsePage = eventPage.map(event -> {
             EventResponse eventResponse = eventMapper.toEventResponse(event);
             eventResponse.setCurrentParticipants(
@@ -404,9 +473,7 @@ public class EventServiceImpl implements EventService {
                     });
 
             if (event.getBanner() != null && !event.getBanner().isEmpty()) {
-                String bannerUrl = ((FileStorageServiceImpl) fileStorageService).getSignedUrl("banners",
-                        event.getBanner());
-                eventResponse.setBanner(bannerUrl);
+                eventResponse.setBanner(bannerUrls.get(event.getBanner()));
             }
 
             return eventResponse;
@@ -416,10 +483,7 @@ public class EventServiceImpl implements EventService {
     }
 
     private EventCountersResponse createCountersResponse(Optional<User> userOptional) {
-        Map<EventStatus, Long> statusCounts = new EnumMap<>(EventStatus.class);
-        eventRepository.countEventsByStatus().forEach(result -> {
-            statusCounts.put((EventStatus) result[0], (Long) result[1]);
-        });
+        Map<EventStatus, Long> statusCounts = eventCounterStore.getStatusCounts();
 
         EventCountersResponse.EventCountersResponseBuilder builder = EventCountersResponse.builder()
                 .upcoming(statusCounts.getOrDefault(EventStatus.UPCOMING, 0L))
@@ -428,8 +492,7 @@ public class EventServiceImpl implements EventService {
                 .cancelled(statusCounts.getOrDefault(EventStatus.CANCELLED, 0L));
 
         userOptional.ifPresent(user -> {
-            long managedCount = eventRepository.countManagedEventsByUserId(user.getId());
-            builder.manage(managedCount);
+            builder.manage(eventCounterStore.getManagedCount(user.getId()));
         });
 
         return builder.build();
@@ -4,11 +4,11 @@ import java.time.Instant;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import API_BoPhieu.config.CacheGenerations;
 import API_BoPhieu.constants.EventManagement;
+import API_BoPhieu.constants.EventStatus;
 import API_BoPhieu.dto.event_managers.EventManagerDto;
 import API_BoPhieu.dto.event_managers.EventManagerResponse;
 import API_BoPhieu.entity.Event;
@@ -20,6 +20,7 @@ import API_BoPhieu.mapper.EventManagerMapper;
 import API_BoPhieu.repository.EventManagerRepository;
 import API_BoPhieu.repository.EventRepository;
 import API_BoPhieu.repository.UserRepository;
+import API_BoPhieu.service.event.EventCounterStore;
 import lombok.RequiredArgsConstructor;
 
 @Service
@@ -31,12 +32,11 @@ public class EventManagerServiceImpl implements EventManagerService {
     private final UserRepository userRepository;
     private final EventRepository eventRepository;
     private final EventManagerMapper eventManagerMapper;
+    private final CacheGenerations cacheGenerations;
+    private final EventCounterStore eventCounterStore;
 
     @Override
     @Transactional
-    @Caching(evict = {@CacheEvict(cacheNames = "EVENT_DETAIL", allEntries = true),
-            @CacheEvict(cacheNames = "EVENT_LIST", allEntries = true),
-            @CacheEvict(cacheNames = "MANAGED_EVENTS", allEntries = true)})
     public EventManagerResponse assignEventManager(EventManagerDto dto, String assignerEmail) {
         log.debug("Bắt đầu gán vai trò '{}' cho user ID {} vào sự kiện ID {}", dto.getRoleType(),
                 dto.getUserId(), dto.getEventId());
@@ -68,6 +68,10 @@ public class EventManagerServiceImpl implements EventManagerService {
         EventManager eventManager = eventManagerMapper.toEntity(dto);
         eventManager.setAssignedby(assigner.getId());
         eventManager = eventManagerRepository.save(eventManager);
+        cacheGenerations.bumpEventAndLists(event.getId());
+        if (event.getStatus() != EventStatus.CANCELLED) {
+            eventCounterStore.managedChanged(dto.getUserId(), 1);
+        }
 
         log.info(
                 "Người dùng '{}' (ID: {}) đã gán thành công vai trò '{}' cho user ID {} vào sự kiện '{}' (ID: {})",
@@ -96,9 +100,6 @@ public class EventManagerServiceImpl implements EventManagerService {
 
     @Override
     @Transactional
-    @Caching(evict = {@CacheEvict(cacheNames = "EVENT_DETAIL", allEntries = true),
-            @CacheEvict(cacheNames = "EVENT_LIST", allEntries = true),
-            @CacheEvict(cacheNames = "MANAGED_EVENTS", allEntries = true)})
     public String removeEventManager(EventManagerDto dto, String removerEmail) {
         log.debug("Bắt đầu xóa vai trò '{}' của user ID {} khỏi sự kiện ID {}", dto.getRoleType(),
                 dto.getUserId(), dto.getEventId());
@@ -113,6 +114,10 @@ public class EventManagerServiceImpl implements EventManagerService {
                 });
 
         eventManagerRepository.delete(eventManager);
+        cacheGenerations.bumpEventAndLists(dto.getEventId());
+        eventRepository.findById(dto.getEventId())
+                .filter(event -> event.getStatus() != EventStatus.CANCELLED)
+                .ifPresent(event -> eventCounterStore.managedChanged(eventManager.getUserId(), -1));
 
         log.info("Người dùng '{}' đã xóa thành công vai trò của user ID {} khỏi sự kiện ID {}",
                 removerEmail, dto.getUserId(), dto.getEventId());
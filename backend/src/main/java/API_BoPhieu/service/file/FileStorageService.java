@@ -1,5 +1,7 @@
 package API_BoPhieu.service.file;
 
+import java.util.Collection;
+import java.util.Map;
 import org.springframework.web.multipart.MultipartFile;
 
 public interface FileStorageService {
@@ -7,5 +9,8 @@ public interface FileStorageService {
 
     String getSignedUrl(String subDir, String filename);
 
+    /** Ký URL cho nhiều tệp cùng lúc, ví dụ banner của cả một trang sự kiện; khóa là tên tệp. */
+    Map<String, String> getSignedUrls(String subDir, Collection<String> filenames);
+
     void deleteFile(String subDir, String filename);
 }
@@ -2,9 +2,24 @@ package API_BoPhieu.service.file;
 
 import java.io.IOException;
 import java.net.URL;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import API_BoPhieu.exception.FileException;
@@ -12,15 +27,42 @@ import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageOptions;
+import jakarta.annotation.PreDestroy;
 
+/**
+ * Lưu tệp trên Google Cloud Storage. URL ký V4 (phép ký RSA tốn CPU) được giữ trong bộ nhớ theo
+ * tên blob cùng thời điểm hết hạn: URL sắp hết hạn vẫn được trả về trong lúc một luồng nền ký lại,
+ * chỉ URL còn quá ít thời gian sống mới bị ký lại ngay trên luồng gọi.
+ */
 @Service
 public class FileStorageServiceImpl implements FileStorageService {
+    private static final Logger log = LoggerFactory.getLogger(FileStorageServiceImpl.class);
 
     @Value("${gcs.bucket-name}")
     private String bucketName;
 
     private final Storage storage = StorageOptions.getDefaultInstance().getService();
 
+    private final Map<String, SignedUrl> signedUrls = new ConcurrentHashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final ExecutorService refreshExecutor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("signed-url-refresh-"));
+    private final Duration signedUrlTtl;
+    private final Duration refreshBefore;
+    private final Duration minRemaining;
+    private final int maxEntries;
+
+    public FileStorageServiceImpl(
+            @Value("${app.storage.signed-url.ttl:P7D}") Duration signedUrlTtl,
+            @Value("${app.storage.signed-url.refresh-before:P2D}") Duration refreshBefore,
+            @Value("${app.storage.signed-url.min-remaining:PT12H}") Duration minRemaining,
+            @Value("${app.storage.signed-url.cache-max-entries:20000}") int maxEntries) {
+        this.signedUrlTtl = signedUrlTtl;
+        this.refreshBefore = refreshBefore;
+        this.minRemaining = minRemaining;
+        this.maxEntries = maxEntries;
+    }
+
     @Override
     public String storeFile(MultipartFile file, String subDir, String prefix) {
         try {
@@ -48,9 +90,32 @@ public class FileStorageServiceImpl implements FileStorageService {
     @Override
     public String getSignedUrl(String subDir, String filename) {
         String blobName = subDir + "/" + filename;
-        BlobInfo blobInfo = BlobInfo.newBuilder(BlobId.of(bucketName, blobName)).build();
-        URL url = storage.signUrl(blobInfo, 7, TimeUnit.DAYS, Storage.SignUrlOption.withV4Signature());
-        return url.toString();
+        SignedUrl cached = lookup(blobName, System.currentTimeMillis());
+        return cached != null ? cached.url : sign(blobName).url;
+    }
+
+    @Override
+    public Map<String, String> getSignedUrls(String subDir, Collection<String> filenames) {
+        Map<String, String> urls = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        long now = System.currentTimeMillis();
+        for (String filename : filenames) {
+            SignedUrl cached = lookup(subDir + "/" + filename, now);
+            if (cached != null) {
+                urls.put(filename, cached.url);
+            } else {
+                missing.add(filename);
+            }
+        }
+        if (!missing.isEmpty()) {
+            // Các phép ký độc lập nên được chia cho nhiều lõi khi cả trang chưa có trong cache
+            List<String> pending = List.copyOf(missing);
+            Map<String, String> signed = (pending.size() > 1 ? pending.parallelStream()
+                    : pending.stream()).collect(Collectors.toMap(filename -> filename,
+                            filename -> sign(subDir + "/" + filename).url));
+            urls.putAll(signed);
+        }
+        return urls;
     }
 
     @Override
@@ -58,6 +123,7 @@ public class FileStorageServiceImpl implements FileStorageService {
         try {
             String blobName = subDir + "/" + filename;
             BlobId blobId = BlobId.of(bucketName, blobName);
+            signedUrls.remove(blobName);
 
             boolean deleted = storage.delete(blobId);
             if (!deleted) {
@@ -68,6 +134,54 @@ public class FileStorageServiceImpl implements FileStorageService {
         }
     }
 
+    /** Bỏ các URL không còn đủ thời gian sống, ví dụ của banner đã bị thay. */
+    @Scheduled(fixedDelayString = "${app.storage.signed-url.sweep-interval-ms:3600000}")
+    public void evictExpiring() {
+        long threshold = System.currentTimeMillis() + minRemaining.toMillis();
+        signedUrls.values().removeIf(signedUrl -> signedUrl.expiresAt < threshold);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Trả về URL trong cache nếu còn đủ thời gian sống; URL đã vào khoảng làm mới được trả về ngay
+     * và được ký lại ở nền.
+     */
+    private SignedUrl lookup(String blobName, long now) {
+        SignedUrl cached = signedUrls.get(blobName);
+        if (cached == null || cached.expiresAt - now < minRemaining.toMillis()) {
+            return null;
+        }
+        if (cached.expiresAt - now < refreshBefore.toMillis() && refreshing.add(blobName)) {
+            refreshExecutor.execute(() -> {
+                try {
+                    sign(blobName);
+                } catch (RuntimeException e) {
+                    log.warn("Không thể ký lại URL cho '{}': {}", blobName, e.getMessage());
+                } finally {
+                    refreshing.remove(blobName);
+                }
+            });
+        }
+        return cached;
+    }
+
+    private SignedUrl sign(String blobName) {
+        // Tính thời điểm hết hạn trước khi ký để không bao giờ đánh giá dư thời gian sống của URL
+        long expiresAt = System.currentTimeMillis() + signedUrlTtl.toMillis();
+        BlobInfo blobInfo = BlobInfo.newBuilder(BlobId.of(bucketName, blobName)).build();
+        URL url = storage.signUrl(blobInfo, signedUrlTtl.toSeconds(), TimeUnit.SECONDS,
+                Storage.SignUrlOption.withV4Signature());
+        SignedUrl signedUrl = new SignedUrl(url.toString(), expiresAt);
+        if (signedUrls.size() < maxEntries || signedUrls.containsKey(blobName)) {
+            signedUrls.put(blobName, signedUrl);
+        }
+        return signedUrl;
+    }
+
     private String getFileExtension(String filename) {
         if (filename == null || filename.lastIndexOf(".") == -1) {
             return "";
@@ -75,4 +189,13 @@ public class FileStorageServiceImpl implements FileStorageService {
         return filename.substring(filename.lastIndexOf("."));
     }
 
+    private static final class SignedUrl {
+        private final String url;
+        private final long expiresAt;
+
+        private SignedUrl(String url, long expiresAt) {
+            this.url = url;
+            this.expiresAt = expiresAt;
+        }
+    }
 }
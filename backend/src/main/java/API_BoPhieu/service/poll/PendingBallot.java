@@ -0,0 +1,31 @@
+package API_BoPhieu.service.poll;
+
+import java.time.Instant;
+import java.util.List;
+import lombok.Getter;
+
+@Getter
+public class PendingBallot {
+    /** Id dòng trong bảng staged_ballots, null khi phiếu chưa được lưu tạm. */
+    private final Long stagedId;
+    private final Integer eventId;
+    private final Integer pollId;
+    private final Integer userId;
+    private final List<Integer> optionIds;
+    private final Instant acceptedAt;
+
+    public PendingBallot(Integer eventId, Integer pollId, Integer userId, List<Integer> optionIds,
+            Instant acceptedAt) {
+        this(null, eventId, pollId, userId, optionIds, acceptedAt);
+    }
+
+    public PendingBallot(Long stagedId, Integer eventId, Integer pollId, Integer userId,
+            List<Integer> optionIds, Instant acceptedAt) {
+        this.stagedId = stagedId;
+        this.eventId = eventId;
+        this.pollId = pollId;
+        this.userId = userId;
+        this.optionIds = optionIds;
+        this.acceptedAt = acceptedAt;
+    }
+}
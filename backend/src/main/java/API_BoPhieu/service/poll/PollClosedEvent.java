@@ -0,0 +1,14 @@
+package API_BoPhieu.service.poll;
+
+import API_BoPhieu.dto.poll.PollStatsResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** Phát ra một lần khi poll chuyển sang đóng và kết quả cuối cùng đã được chụp. */
+@Getter
+@AllArgsConstructor
+public class PollClosedEvent {
+    private final Integer eventId;
+    private final Integer pollId;
+    private final PollStatsResponse results;
+}
@@ -0,0 +1,165 @@
+package API_BoPhieu.service.poll;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import API_BoPhieu.entity.PollCounter;
+import API_BoPhieu.entity.PollOptionCounter;
+import API_BoPhieu.entity.Vote;
+import API_BoPhieu.repository.PollCounterRepository;
+import API_BoPhieu.repository.PollOptionCounterRepository;
+import API_BoPhieu.repository.VoteRepository;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Bộ đếm phiếu được duy trì tăng dần theo từng poll và từng phương án. Mọi thay đổi phiếu phải
+ * cập nhật bộ đếm trong cùng transaction với thay đổi trên bảng votes.
+ */
+@Component
+@RequiredArgsConstructor
+public class PollCounterStore {
+    private static final Logger log = LoggerFactory.getLogger(PollCounterStore.class);
+
+    private final PollCounterRepository pollCounterRepository;
+    private final PollOptionCounterRepository pollOptionCounterRepository;
+    private final VoteRepository voteRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillMissingCounters() {
+        int optionRows = pollOptionCounterRepository.backfillMissing();
+        int pollRows = pollCounterRepository.backfillMissing();
+        if (pollRows > 0) {
+            log.info("Đã khởi tạo bộ đếm phiếu cho {} poll ({} phương án) từ bảng votes", pollRows,
+                    optionRows);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void initialize(Integer pollId, Collection<Integer> optionIds) {
+        for (Integer optionId : new TreeSet<>(optionIds)) {
+            pollOptionCounterRepository.applyDelta(optionId, pollId, 0);
+        }
+        pollCounterRepository.applyDelta(pollId, 0, 0);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyBallotChange(Integer pollId, List<Integer> oldOptionIds,
+            List<Integer> newOptionIds) {
+        Map<Integer, Integer> optionDeltas = new TreeMap<>();
+        oldOptionIds.forEach(optionId -> optionDeltas.merge(optionId, -1, Integer::sum));
+        newOptionIds.forEach(optionId -> optionDeltas.merge(optionId, 1, Integer::sum));
+        int voterDelta = (newOptionIds.isEmpty() ? 0 : 1) - (oldOptionIds.isEmpty() ? 0 : 1);
+        applyDeltas(pollId, optionDeltas, newOptionIds.size() - oldOptionIds.size(), voterDelta);
+    }
+
+    /**
+     * Cập nhật bộ đếm cho một lô phiếu sẽ thay thế phiếu cũ của từng (poll, user). Phải gọi trước
+     * khi phiếu cũ bị xóa khỏi bảng votes.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyBallotReplacements(Collection<PendingBallot> ballots) {
+        Map<Integer, List<PendingBallot>> ballotsByPoll = ballots.stream()
+                .collect(Collectors.groupingBy(PendingBallot::getPollId, TreeMap::new,
+                        Collectors.toList()));
+
+        ballotsByPoll.forEach((pollId, pollBallots) -> {
+            List<Integer> userIds = pollBallots.stream().map(PendingBallot::getUserId)
+                    .collect(Collectors.toList());
+            Map<Integer, List<Integer>> oldOptionsByUser =
+                    voteRepository.findByPollIdAndUserIdInForUpdate(pollId, userIds).stream()
+                            .collect(Collectors.groupingBy(Vote::getUserId,
+                                    Collectors.mapping(Vote::getOptionId, Collectors.toList())));
+
+            Map<Integer, Integer> optionDeltas = new TreeMap<>();
+            int voteDelta = 0;
+            int voterDelta = 0;
+            for (PendingBallot ballot : pollBallots) {
+                List<Integer> oldOptionIds =
+                        oldOptionsByUser.getOrDefault(ballot.getUserId(), List.of());
+                oldOptionIds.forEach(optionId -> optionDeltas.merge(optionId, -1, Integer::sum));
+                ballot.getOptionIds()
+                        .forEach(optionId -> optionDeltas.merge(optionId, 1, Integer::sum));
+                voteDelta += ballot.getOptionIds().size() - oldOptionIds.size();
+                voterDelta += (ballot.getOptionIds().isEmpty() ? 0 : 1)
+                        - (oldOptionIds.isEmpty() ? 0 : 1);
+            }
+            applyDeltas(pollId, optionDeltas, voteDelta, voterDelta);
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Integer, Integer> getOptionCounts(Integer pollId) {
+        Map<Integer, Integer> optionVoteCounts = new HashMap<>();
+        for (PollOptionCounter counter : pollOptionCounterRepository.findByPollId(pollId)) {
+            optionVoteCounts.put(counter.getOptionId(), counter.getVoteCount());
+        }
+        return optionVoteCounts;
+    }
+
+    /** Số phiếu theo option ID cho nhiều poll trong một truy vấn (option ID là duy nhất). */
+    @Transactional(readOnly = true)
+    public Map<Integer, Integer> getOptionCounts(Collection<Integer> pollIds) {
+        Map<Integer, Integer> optionVoteCounts = new HashMap<>();
+        if (pollIds.isEmpty()) {
+            return optionVoteCounts;
+        }
+        for (PollOptionCounter counter : pollOptionCounterRepository.findByPollIdIn(pollIds)) {
+            optionVoteCounts.put(counter.getOptionId(), counter.getVoteCount());
+        }
+        return optionVoteCounts;
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Integer, Map<Integer, Integer>> getOptionCountsByPoll(Collection<Integer> pollIds) {
+        Map<Integer, Map<Integer, Integer>> countsByPoll = new HashMap<>();
+        for (PollOptionCounter counter : pollOptionCounterRepository.findByPollIdIn(pollIds)) {
+            countsByPoll.computeIfAbsent(counter.getPollId(), pollId -> new HashMap<>())
+                    .put(counter.getOptionId(), counter.getVoteCount());
+        }
+        return countsByPoll;
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Integer, PollCounter> getTotals(Collection<Integer> pollIds) {
+        Map<Integer, PollCounter> totals = new HashMap<>();
+        if (pollIds.isEmpty()) {
+            return totals;
+        }
+        for (PollCounter counter : pollCounterRepository.findAllById(pollIds)) {
+            totals.put(counter.getPollId(), counter);
+        }
+        return totals;
+    }
+
+    @Transactional(readOnly = true)
+    public PollCounter getTotals(Integer pollId) {
+        return pollCounterRepository.findById(pollId)
+                .orElseGet(() -> new PollCounter(pollId, 0, 0));
+    }
+
+    private void applyDeltas(Integer pollId, Map<Integer, Integer> optionDeltas, int voteDelta,
+            int voterDelta) {
+        // optionDeltas là TreeMap: cập nhật theo thứ tự option_id để tránh deadlock giữa các
+        // transaction cùng ghi một poll
+        for (Map.Entry<Integer, Integer> change : optionDeltas.entrySet()) {
+            if (change.getValue() != 0) {
+                pollOptionCounterRepository.applyDelta(change.getKey(), pollId, change.getValue());
+            }
+        }
+        if (voteDelta != 0 || voterDelta != 0) {
+            pollCounterRepository.applyDelta(pollId, voteDelta, voterDelta);
+        }
+    }
+}
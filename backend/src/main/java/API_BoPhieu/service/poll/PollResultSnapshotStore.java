@@ -0,0 +1,92 @@
+package API_BoPhieu.service.poll;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import API_BoPhieu.dto.poll.PollResultSnapshotResponse;
+import API_BoPhieu.dto.poll.PollStatsResponse;
+import API_BoPhieu.entity.Poll;
+import API_BoPhieu.entity.PollResultSnapshot;
+import API_BoPhieu.exception.PollException;
+import API_BoPhieu.repository.PollResultSnapshotRepository;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Ảnh chụp kết quả cuối cùng của poll, được ghi một lần khi poll đóng và không bao giờ thay đổi.
+ */
+@Component
+@RequiredArgsConstructor
+public class PollResultSnapshotStore {
+    private final PollResultSnapshotRepository pollResultSnapshotRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public PollResultSnapshotResponse create(Poll poll, PollStatsResponse results) {
+        String payload = serialize(results);
+        PollResultSnapshot snapshot = new PollResultSnapshot(poll.getId(), poll.getEventId(),
+                results.getTotalVotes(), results.getTotalVoters(), payload, hash(payload),
+                Instant.now());
+        pollResultSnapshotRepository.save(snapshot);
+        return toResponse(snapshot);
+    }
+
+    @Cacheable(cacheNames = "POLL_SNAPSHOT", key = "'poll:' + #pollId", unless = "#result == null")
+    @Transactional(readOnly = true)
+    public PollResultSnapshotResponse find(Integer pollId) {
+        return pollResultSnapshotRepository.findById(pollId).map(this::toResponse).orElse(null);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Integer, PollStatsResponse> findResults(Collection<Integer> pollIds) {
+        Map<Integer, PollStatsResponse> results = new HashMap<>();
+        if (pollIds.isEmpty()) {
+            return results;
+        }
+        for (PollResultSnapshot snapshot : pollResultSnapshotRepository.findAllById(pollIds)) {
+            results.put(snapshot.getPollId(), deserialize(snapshot.getPayload()));
+        }
+        return results;
+    }
+
+    private PollResultSnapshotResponse toResponse(PollResultSnapshot snapshot) {
+        return PollResultSnapshotResponse.builder().etag(snapshot.getEtag())
+                .results(deserialize(snapshot.getPayload())).build();
+    }
+
+    private String serialize(PollStatsResponse results) {
+        try {
+            return objectMapper.writeValueAsString(results);
+        } catch (JsonProcessingException e) {
+            throw new PollException("Không thể lưu kết quả poll: " + e.getMessage());
+        }
+    }
+
+    private PollStatsResponse deserialize(String payload) {
+        try {
+            return objectMapper.readValue(payload, PollStatsResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new PollException("Không thể đọc kết quả poll: " + e.getMessage());
+        }
+    }
+
+    private String hash(String payload) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hashed = digest.digest(payload.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hashed, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
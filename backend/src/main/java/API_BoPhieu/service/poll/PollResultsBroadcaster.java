@@ -0,0 +1,107 @@
+package API_BoPhieu.service.poll;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import API_BoPhieu.dto.poll.PollResultsDelta;
+import API_BoPhieu.entity.PollCounter;
+import API_BoPhieu.service.sse.SseService;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Gom các thay đổi kết quả poll trong một cửa sổ ngắn và đẩy qua SSE dưới dạng delta: mỗi poll
+ * tối đa một thông điệp mỗi chu kỳ, chỉ chứa các phương án có số phiếu thay đổi.
+ */
+@Component
+@RequiredArgsConstructor
+public class PollResultsBroadcaster {
+    public static final String EVENT_NAME = "poll-results-updated";
+
+    private static final Logger log = LoggerFactory.getLogger(PollResultsBroadcaster.class);
+
+    private final PollCounterStore pollCounterStore;
+    private final SseService sseService;
+
+    /** pollId -> eventId của các poll có kết quả thay đổi chưa được gửi. */
+    private final Map<Integer, Integer> dirtyPolls = new ConcurrentHashMap<>();
+    /** Số phiếu theo phương án đã gửi lần gần nhất cho từng poll. */
+    private final Map<Integer, Map<Integer, Integer>> lastSentCounts = new ConcurrentHashMap<>();
+
+    /** Đánh dấu poll có thay đổi; nếu đang trong transaction thì chỉ đánh dấu sau khi commit. */
+    public void markChanged(Integer eventId, Integer pollId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager
+                    .registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            dirtyPolls.put(pollId, eventId);
+                        }
+                    });
+        } else {
+            dirtyPolls.put(pollId, eventId);
+        }
+    }
+
+    public void forget(Integer pollId) {
+        dirtyPolls.remove(pollId);
+        lastSentCounts.remove(pollId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.poll.results-push-interval-ms:250}")
+    public void flush() {
+        if (dirtyPolls.isEmpty()) {
+            return;
+        }
+        Map<Integer, Integer> pending = new HashMap<>();
+        for (Integer pollId : dirtyPolls.keySet()) {
+            Integer eventId = dirtyPolls.remove(pollId);
+            if (eventId != null && sseService.hasClients(eventId)) {
+                pending.put(pollId, eventId);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<Integer> pollIds = new ArrayList<>(pending.keySet());
+            Map<Integer, Map<Integer, Integer>> countsByPoll =
+                    pollCounterStore.getOptionCountsByPoll(pollIds);
+            Map<Integer, PollCounter> totals = pollCounterStore.getTotals(pollIds);
+            pending.forEach((pollId, eventId) -> publish(eventId, pollId,
+                    countsByPoll.getOrDefault(pollId, Map.of()), totals.get(pollId)));
+        } catch (RuntimeException e) {
+            log.warn("Không thể đẩy kết quả poll qua SSE, sẽ thử lại ở chu kỳ sau", e);
+            pending.forEach(dirtyPolls::putIfAbsent);
+        }
+    }
+
+    private void publish(Integer eventId, Integer pollId, Map<Integer, Integer> currentCounts,
+            PollCounter totals) {
+        Map<Integer, Integer> previous = lastSentCounts.getOrDefault(pollId, Map.of());
+        Map<Integer, Integer> changed = new HashMap<>();
+        currentCounts.forEach((optionId, count) -> {
+            if (!count.equals(previous.get(optionId))) {
+                changed.put(optionId, count);
+            }
+        });
+        if (changed.isEmpty() && !previous.isEmpty()) {
+            return;
+        }
+        lastSentCounts.put(pollId, new HashMap<>(currentCounts));
+
+        PollResultsDelta delta = PollResultsDelta.builder().pollId(pollId)
+                .totalVotes(totals != null ? totals.getTotalVotes() : 0)
+                .totalVoters(totals != null ? totals.getTotalVoters() : 0).options(changed)
+                .build();
+        sseService.sendEventToClients(eventId, EVENT_NAME, delta);
+    }
+}
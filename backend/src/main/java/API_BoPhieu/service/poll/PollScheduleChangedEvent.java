@@ -0,0 +1,16 @@
+package API_BoPhieu.service.poll;
+
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** Phát ra khi thời gian mở/đóng của poll thay đổi hoặc poll bị đóng. */
+@Getter
+@AllArgsConstructor
+public class PollScheduleChangedEvent {
+    private final Integer pollId;
+    private final Integer eventId;
+    private final Instant startTime;
+    private final Instant endTime;
+    private final boolean closed;
+}
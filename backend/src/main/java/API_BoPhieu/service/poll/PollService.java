@@ -1,9 +1,11 @@
 package API_BoPhieu.service.poll;
 
 import java.util.List;
+import java.util.Map;
 
 import API_BoPhieu.dto.poll.PollDTO;
 import API_BoPhieu.dto.poll.PollResponse;
+import API_BoPhieu.dto.poll.PollResultSnapshotResponse;
 import API_BoPhieu.dto.poll.PollStatsResponse;
 import API_BoPhieu.dto.poll.UpdatePollDTO;
 import API_BoPhieu.dto.poll.VoteDTO;
@@ -17,10 +19,14 @@ public interface PollService {
 
     List<PollResponse> getPollsByEvent(Integer eventId);
 
+    Map<Integer, Boolean> getVotedPollsByEvent(Integer eventId, Integer userId);
+
     void vote(Integer pollId, VoteDTO voteRequest, String authToken);
 
     PollStatsResponse getPollStats(Integer pollId);
 
+    PollResultSnapshotResponse getPollResults(Integer pollId);
+
     PollResponse closePoll(Integer pollId);
 
     PollResponse updatePoll(UpdatePollDTO pollDto, Integer pollId);
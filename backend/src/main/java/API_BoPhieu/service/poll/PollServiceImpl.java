@@ -1,27 +1,40 @@
 package API_BoPhieu.service.poll;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import API_BoPhieu.constants.PollType;
 import API_BoPhieu.dto.poll.OptionStatsResponse;
 import API_BoPhieu.dto.poll.PollDTO;
 import API_BoPhieu.dto.poll.PollResponse;
+import API_BoPhieu.dto.poll.PollResultSnapshotResponse;
 import API_BoPhieu.dto.poll.PollStatsResponse;
 import API_BoPhieu.dto.poll.UpdatePollDTO;
 import API_BoPhieu.dto.poll.VoteDTO;
 import API_BoPhieu.entity.Event;
 import API_BoPhieu.entity.Option;
 import API_BoPhieu.entity.Poll;
+import API_BoPhieu.entity.PollCounter;
 import API_BoPhieu.entity.User;
 import API_BoPhieu.entity.Vote;
 import API_BoPhieu.exception.AuthException;
+import API_BoPhieu.exception.ConflictException;
 import API_BoPhieu.exception.EventException;
 import API_BoPhieu.exception.PollException;
 import API_BoPhieu.mapper.PollMapper;
@@ -36,9 +49,19 @@ import lombok.RequiredArgsConstructor;
 @Service
 @RequiredArgsConstructor
 public class PollServiceImpl implements PollService {
+    private static final Logger log = LoggerFactory.getLogger(PollServiceImpl.class);
+
     @Override
     @Transactional(readOnly = true)
     public List<Integer> getVotedOptionIdsByUser(Integer pollId, Integer userId) {
+        if (!pollVoterIndex.hasVoted(pollId, userId)) {
+            return new ArrayList<>();
+        }
+        // Phiếu vừa bỏ có thể còn nằm trong staged_ballots và mới hơn phiếu trong votes
+        Optional<List<Integer>> staged = voteWriteBehindBuffer.findStagedOptionIds(pollId, userId);
+        if (staged.isPresent()) {
+            return new ArrayList<>(staged.get());
+        }
         List<Vote> votes = voteRepository.findByPollIdAndUserId(pollId, userId);
         return votes.stream().map(Vote::getOptionId).collect(java.util.stream.Collectors.toList());
     }
@@ -49,11 +72,17 @@ public class PollServiceImpl implements PollService {
     private final UserRepository userRepository;
     private final OptionRepository optionRepository;
     private final VoteRepository voteRepository;
+    private final VoteWriteBehindBuffer voteWriteBehindBuffer;
+    private final PollCounterStore pollCounterStore;
+    private final PollResultsBroadcaster pollResultsBroadcaster;
+    private final PollResultSnapshotStore pollResultSnapshotStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PollVoterIndex pollVoterIndex;
 
     @Override
     @Caching(evict = {
             @CacheEvict(cacheNames = "POLLS_BY_EVENT", key = "'event:' + #pollDTO.eventId"),
-            @CacheEvict(cacheNames = "POLL_STATS", allEntries = true)})
+            @CacheEvict(cacheNames = "POLL_STATS", key = "'event:' + #pollDTO.eventId")})
     @Transactional
     public PollResponse createPoll(PollDTO pollDTO, String authToken) {
         authToken = authToken.replace("Bearer ", "");
@@ -89,6 +118,9 @@ public class PollServiceImpl implements PollService {
         for (Option option : savedOptions) {
             optionVoteCounts.put(option.getId(), 0);
         }
+        pollCounterStore.initialize(poll.getId(),
+                savedOptions.stream().map(Option::getId).collect(Collectors.toList()));
+        publishScheduleChanged(poll);
         return PollMapper.toPollResponse(poll, savedOptions, optionVoteCounts);
     }
 
@@ -99,16 +131,11 @@ public class PollServiceImpl implements PollService {
         Poll poll = pollRepository.findById(pollId)
                 .orElseThrow(() -> new EventException("Không tìm thấy poll với ID: " + pollId));
         List<Option> options = optionRepository.findByPollId(pollId);
-        Map<Integer, Integer> optionVoteCounts = new HashMap<>();
-        for (Object[] row : voteRepository.countVotesByOptionAndPollId(pollId)) {
-            Integer optionId = (Integer) row[0];
-            Long count = (Long) row[1];
-            optionVoteCounts.put(optionId, count != null ? count.intValue() : 0);
-        }
+        Map<Integer, Integer> optionVoteCounts = findOptionCounts(poll);
 
         PollResponse response = PollMapper.toPollResponse(poll, options, optionVoteCounts);
 
-        boolean hasVoted = voteRepository.existsByPollIdAndUserId(pollId, userId);
+        boolean hasVoted = pollVoterIndex.hasVoted(pollId, userId);
         response.setHasVoted(hasVoted);
 
         return response;
@@ -120,14 +147,18 @@ public class PollServiceImpl implements PollService {
     public List<PollResponse> getPollsByEvent(Integer eventId) {
         List<Poll> polls = pollRepository.findByEventId(eventId);
         List<PollResponse> responses = new ArrayList<>();
+        if (polls.isEmpty()) {
+            return responses;
+        }
+        List<Integer> pollIds = polls.stream().map(Poll::getId).collect(Collectors.toList());
+        Map<Integer, List<Option>> optionsByPoll = findOptionsByPoll(pollIds);
+        Map<Integer, PollStatsResponse> snapshots =
+                pollResultSnapshotStore.findResults(closedPollIds(polls));
+        Map<Integer, Integer> optionVoteCounts =
+                pollCounterStore.getOptionCounts(pollIdsWithoutSnapshot(polls, snapshots));
+        snapshots.values().forEach(results -> optionVoteCounts.putAll(toOptionCounts(results)));
         for (Poll poll : polls) {
-            List<Option> options = optionRepository.findByPollId(poll.getId());
-            Map<Integer, Integer> optionVoteCounts = new HashMap<>();
-            for (Object[] row : voteRepository.countVotesByOptionAndPollId(poll.getId())) {
-                Integer optionId = (Integer) row[0];
-                Long count = (Long) row[1];
-                optionVoteCounts.put(optionId, count != null ? count.intValue() : 0);
-            }
+            List<Option> options = optionsByPoll.getOrDefault(poll.getId(), new ArrayList<>());
             responses.add(PollMapper.toPollResponse(poll, options, optionVoteCounts));
         }
         return responses;
@@ -141,22 +172,75 @@ public class PollServiceImpl implements PollService {
         authToken = authToken.replace("Bearer ", "");
         User user = userRepository.findByEmail(jwtTokenProvider.getEmail(authToken))
                 .orElseThrow(() -> new AuthException("Không tìm thấy người dùng!"));
-        Poll poll = pollRepository.findById(pollId)
+        Poll poll = pollRepository.findByIdForShare(pollId)
                 .orElseThrow(() -> new EventException("Không tìm thấy poll với ID: " + pollId));
         if (poll.getIsDelete() == true) {
             throw new PollException("Poll không mở để vote!");
         }
-        List<Vote> oldVotes = voteRepository.findByPollIdAndUserId(pollId, user.getId());
-        if (!oldVotes.isEmpty()) {
-            voteRepository.deleteAll(oldVotes);
+        Instant now = Instant.now();
+        if (now.isBefore(poll.getStartTime())) {
+            throw new PollException("Poll chưa đến thời gian bắt đầu!");
+        }
+        if (now.isAfter(poll.getEndTime())) {
+            throw new PollException("Poll đã hết thời gian vote!");
+        }
+        validateBallot(poll, voteRequest.getOptionIds());
+        pollVoterIndex.markVoted(pollId, user.getId());
+
+        if (voteWriteBehindBuffer.isEnabled()
+                && voteWriteBehindBuffer.offer(new PendingBallot(poll.getEventId(), pollId,
+                        user.getId(), List.copyOf(voteRequest.getOptionIds()), Instant.now()))) {
+            log.debug("Đã lưu tạm phiếu của user ID {} cho poll ID {} để ghi sau", user.getId(),
+                    pollId);
+            return;
+        }
+
+        // Phiếu lưu tạm cũ hơn của cùng người không được ghi đè phiếu này về sau
+        voteWriteBehindBuffer.supersedeStaged(pollId, user.getId());
+        List<Vote> oldVotes;
+        try {
+            oldVotes = voteRepository.findByPollIdAndUserIdForUpdate(pollId, user.getId());
+            if (!oldVotes.isEmpty()) {
+                // Xóa ngay để phiếu mới cùng phương án không vướng ràng buộc unique
+                voteRepository.deleteAllInBatch(oldVotes);
+            }
+            for (Integer optionId : voteRequest.getOptionIds()) {
+                Vote vote = new Vote();
+                vote.setPollId(pollId);
+                vote.setUserId(user.getId());
+                vote.setOptionId(optionId);
+                voteRepository.save(vote);
+            }
+        } catch (DataIntegrityViolationException | PessimisticLockingFailureException e) {
+            // Lần bỏ phiếu đồng thời khác của cùng người đã thắng; transaction này bị hủy
+            throw new ConflictException("Phiếu bầu của bạn đang được ghi nhận, vui lòng thử lại!");
+        }
+        pollCounterStore.applyBallotChange(pollId,
+                oldVotes.stream().map(Vote::getOptionId).collect(Collectors.toList()),
+                voteRequest.getOptionIds());
+        eventPublisher.publishEvent(new VoteCastEvent(poll.getEventId(), pollId, user.getId()));
+    }
+
+    private void validateBallot(Poll poll, List<Integer> optionIds) {
+        if (optionIds == null || optionIds.isEmpty()) {
+            throw new PollException("Vui lòng chọn ít nhất một phương án!");
         }
-        for (Integer optionId : voteRequest.getOptionIds()) {
-            API_BoPhieu.entity.Vote vote = new Vote();
-            vote.setPollId(pollId);
-            vote.setUserId(user.getId());
-            vote.setOptionId(optionId);
-            voteRepository.save(vote);
+        if (poll.getPollType() == PollType.SINGLE_CHOICE && optionIds.size() > 1) {
+            throw new PollException("Poll này chỉ cho phép chọn một phương án!");
         }
+        if (new HashSet<>(optionIds).size() != optionIds.size()) {
+            throw new PollException("Phương án bị trùng lặp!");
+        }
+        List<Integer> validOptionIds = optionRepository.findIdsByPollId(poll.getId());
+        if (!validOptionIds.containsAll(optionIds)) {
+            throw new PollException("Phương án không thuộc poll ID: " + poll.getId());
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Integer, Boolean> getVotedPollsByEvent(Integer eventId, Integer userId) {
+        return pollVoterIndex.hasVoted(pollRepository.findIdsByEventId(eventId), userId);
     }
 
     @Override
@@ -165,9 +249,27 @@ public class PollServiceImpl implements PollService {
     public List<PollStatsResponse> getPollStatsByEvent(Integer eventId) {
         List<Poll> polls = pollRepository.findByEventId(eventId);
         List<PollStatsResponse> statsResponses = new ArrayList<>();
+        if (polls.isEmpty()) {
+            return statsResponses;
+        }
+        List<Integer> pollIds = polls.stream().map(Poll::getId).collect(Collectors.toList());
+        Map<Integer, List<Option>> optionsByPoll = findOptionsByPoll(pollIds);
+        Map<Integer, PollStatsResponse> snapshots =
+                pollResultSnapshotStore.findResults(closedPollIds(polls));
+        List<Integer> counterPollIds = pollIdsWithoutSnapshot(polls, snapshots);
+        Map<Integer, Integer> optionVoteCounts = pollCounterStore.getOptionCounts(counterPollIds);
+        Map<Integer, PollCounter> totalsByPoll = pollCounterStore.getTotals(counterPollIds);
         for (Poll poll : polls) {
-            PollStatsResponse stats = getPollStats(poll.getId());
-            statsResponses.add(stats);
+            PollStatsResponse snapshot = snapshots.get(poll.getId());
+            if (snapshot != null) {
+                statsResponses.add(snapshot);
+                continue;
+            }
+            List<Option> options = optionsByPoll.getOrDefault(poll.getId(), new ArrayList<>());
+            PollCounter totals = totalsByPoll.getOrDefault(poll.getId(),
+                    new PollCounter(poll.getId(), 0, 0));
+            statsResponses.add(PollMapper.toPollStatsResponse(poll, options, optionVoteCounts,
+                    totals.getTotalVotes(), totals.getTotalVoters()));
         }
         return statsResponses;
     }
@@ -178,70 +280,124 @@ public class PollServiceImpl implements PollService {
     public PollStatsResponse getPollStats(Integer pollId) {
         Poll poll = pollRepository.findById(pollId)
                 .orElseThrow(() -> new EventException("Không tìm thấy poll với ID: " + pollId));
+        if (poll.getIsDelete()) {
+            PollResultSnapshotResponse snapshot = pollResultSnapshotStore.find(pollId);
+            if (snapshot != null) {
+                return snapshot.getResults();
+            }
+        }
+        return computePollStats(poll);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PollResultSnapshotResponse getPollResults(Integer pollId) {
+        PollResultSnapshotResponse snapshot = pollResultSnapshotStore.find(pollId);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        Poll poll = pollRepository.findById(pollId)
+                .orElseThrow(() -> new EventException("Không tìm thấy poll với ID: " + pollId));
+        return PollResultSnapshotResponse.builder().results(computePollStats(poll)).build();
+    }
+
+    private PollStatsResponse computePollStats(Poll poll) {
+        Integer pollId = poll.getId();
         List<Option> options = optionRepository.findByPollId(pollId);
-        List<Object[]> voteCounts = voteRepository.countVotesByOptionAndPollId(pollId);
-        int totalVotes = voteRepository.countVotesByPollId(pollId);
-        int totalVoters = voteRepository.countDistinctVotersByPollId(pollId);
-        List<OptionStatsResponse> optionStats = new java.util.ArrayList<>();
-        for (Option option : options) {
-            int voteCount = 0;
-            for (Object[] row : voteCounts) {
-                Integer optionId = (Integer) row[0];
-                Long count = (Long) row[1];
-                if (option.getId().equals(optionId)) {
-                    voteCount = count != null ? count.intValue() : 0;
-                    break;
-                }
+        Map<Integer, Integer> voteCounts = pollCounterStore.getOptionCounts(pollId);
+        PollCounter totals = pollCounterStore.getTotals(pollId);
+        return PollMapper.toPollStatsResponse(poll, options, voteCounts, totals.getTotalVotes(),
+                totals.getTotalVoters());
+    }
+
+    private void publishScheduleChanged(Poll poll) {
+        eventPublisher.publishEvent(new PollScheduleChangedEvent(poll.getId(), poll.getEventId(),
+                poll.getStartTime(), poll.getEndTime(), poll.getIsDelete()));
+    }
+
+    private Map<Integer, List<Option>> findOptionsByPoll(List<Integer> pollIds) {
+        return optionRepository.findByPollIdInOrderByIdAsc(pollIds).stream()
+                .collect(Collectors.groupingBy(Option::getPollId));
+    }
+
+    /** Số phiếu theo phương án: poll đã đóng đọc từ ảnh chụp kết quả, poll đang mở đọc bộ đếm. */
+    private Map<Integer, Integer> findOptionCounts(Poll poll) {
+        if (poll.getIsDelete()) {
+            PollResultSnapshotResponse snapshot = pollResultSnapshotStore.find(poll.getId());
+            if (snapshot != null) {
+                return toOptionCounts(snapshot.getResults());
             }
-            double percentage = totalVotes > 0 ? (voteCount * 100.0 / totalVotes) : 0.0;
-            OptionStatsResponse stat = new OptionStatsResponse();
-            stat.setId(option.getId());
-            stat.setContent(option.getContent());
-            stat.setVoteCount(voteCount);
-            stat.setPercentage(percentage);
-            optionStats.add(stat);
         }
-        PollStatsResponse statsResponse = new PollStatsResponse();
-        statsResponse.setId(poll.getId());
-        statsResponse.setTitle(poll.getTitle());
-        statsResponse.setPollType(poll.getPollType());
-        statsResponse.setIsDelete(poll.getIsDelete());
-        statsResponse.setTotalVotes(totalVotes);
-        statsResponse.setTotalVoters(totalVoters);
-        statsResponse.setOptions(optionStats);
-        statsResponse.setStartTime(poll.getStartTime());
-        statsResponse.setEndTime(poll.getEndTime());
-        return statsResponse;
+        return pollCounterStore.getOptionCounts(poll.getId());
+    }
+
+    private Map<Integer, Integer> toOptionCounts(PollStatsResponse results) {
+        Map<Integer, Integer> optionVoteCounts = new HashMap<>();
+        for (OptionStatsResponse option : results.getOptions()) {
+            optionVoteCounts.put(option.getId(), option.getVoteCount());
+        }
+        return optionVoteCounts;
+    }
+
+    /**
+     * Poll đọc số phiếu từ bộ đếm: poll đang mở và poll đã đóng nhưng chưa có ảnh chụp (đóng trước
+     * khi có ảnh chụp kết quả), giống cách {@link #findOptionCounts(Poll)} xử lý từng poll.
+     */
+    private List<Integer> pollIdsWithoutSnapshot(List<Poll> polls,
+            Map<Integer, PollStatsResponse> snapshots) {
+        return polls.stream().map(Poll::getId).filter(pollId -> !snapshots.containsKey(pollId))
+                .collect(Collectors.toList());
+    }
+
+    private List<Integer> closedPollIds(List<Poll> polls) {
+        return polls.stream().filter(Poll::getIsDelete).map(Poll::getId)
+                .collect(Collectors.toList());
     }
 
     @Override
-    @Caching(evict = {@CacheEvict(cacheNames = "POLL_DETAIL", allEntries = true),
-            @CacheEvict(cacheNames = "POLLS_BY_EVENT", allEntries = true),
-            @CacheEvict(cacheNames = "POLL_STATS", allEntries = true)})
-    @Transactional
+    @Caching(evict = {@CacheEvict(cacheNames = "POLL_STATS", key = "'poll:' + #pollId"),
+            @CacheEvict(cacheNames = "POLL_STATS", key = "'event:' + #result.eventId"),
+            @CacheEvict(cacheNames = "POLLS_BY_EVENT", key = "'event:' + #result.eventId")})
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public PollResponse closePoll(Integer pollId) {
+        // Chỉ lời gọi chuyển được poll từ mở sang đóng mới chốt kết quả: replica khác cùng đến hạn
+        // chờ lệnh này commit rồi thấy 0 dòng. Phiếu đang bỏ giữ khóa chia sẻ trên poll nên lệnh
+        // này cũng chờ chúng commit, phiếu đến sau thấy poll đã đóng
+        boolean closedNow = pollRepository.markClosed(pollId, Instant.now()) == 1;
         Poll poll = pollRepository.findById(pollId)
                 .orElseThrow(() -> new EventException("Không tìm thấy poll với ID: " + pollId));
-        poll.setIsDelete(true);
-        pollRepository.save(poll);
         List<Option> options = optionRepository.findByPollId(pollId);
-        Map<Integer, Integer> optionVoteCounts = new HashMap<>();
-        for (Object[] row : voteRepository.countVotesByOptionAndPollId(pollId)) {
-            Integer optionId = (Integer) row[0];
-            Long count = (Long) row[1];
-            optionVoteCounts.put(optionId, count != null ? count.intValue() : 0);
+        if (!closedNow) {
+            PollResultSnapshotResponse existing = pollResultSnapshotStore.find(pollId);
+            Map<Integer, Integer> optionVoteCounts = existing != null
+                    ? toOptionCounts(existing.getResults())
+                    : pollCounterStore.getOptionCounts(pollId);
+            return PollMapper.toPollResponse(poll, options, optionVoteCounts);
         }
-        return PollMapper.toPollResponse(poll, options, optionVoteCounts);
+
+        // Phiếu đã xác nhận trên mọi replica đều nằm trong staged_ballots; ghi nốt trước khi chụp
+        voteWriteBehindBuffer.flushPoll(pollId);
+        PollStatsResponse results = computePollStats(poll);
+        pollResultSnapshotStore.create(poll, results);
+        pollResultsBroadcaster.forget(pollId);
+        publishScheduleChanged(poll);
+        eventPublisher.publishEvent(new PollClosedEvent(poll.getEventId(), pollId, results));
+        log.info("Đã đóng poll ID {} và lưu kết quả cuối cùng ({} phiếu, {} người bầu)", pollId,
+                results.getTotalVotes(), results.getTotalVoters());
+        return PollMapper.toPollResponse(poll, options, toOptionCounts(results));
     }
 
     @Override
-    @Caching(evict = {@CacheEvict(cacheNames = "POLL_DETAIL", allEntries = true),
-            @CacheEvict(cacheNames = "POLLS_BY_EVENT", allEntries = true),
-            @CacheEvict(cacheNames = "POLL_STATS", allEntries = true)})
+    @Caching(evict = {@CacheEvict(cacheNames = "POLL_STATS", key = "'poll:' + #pollId"),
+            @CacheEvict(cacheNames = "POLL_STATS", key = "'event:' + #result.eventId"),
+            @CacheEvict(cacheNames = "POLLS_BY_EVENT", key = "'event:' + #result.eventId")})
     @Transactional
     public PollResponse updatePoll(UpdatePollDTO pollDto, Integer pollId) {
         Poll poll = pollRepository.findById(pollId)
                 .orElseThrow(() -> new EventException("Không tìm thấy poll với ID: " + pollId));
+        if (poll.getIsDelete()) {
+            throw new PollException("Poll đã đóng, không thể chỉnh sửa!");
+        }
         poll.setTitle(pollDto.getTitle());
         poll.setPollType(pollDto.getPollType());
         poll.setStartTime(pollDto.getStartTime());
@@ -257,6 +413,7 @@ public class PollServiceImpl implements PollService {
             return option;
         }).collect(Collectors.toList());
         optionRepository.saveAll(options);
+        publishScheduleChanged(poll);
         List<Option> savedOptions = optionRepository.findByPollId(poll.getId());
         Map<Integer, Integer> optionVoteCounts = new HashMap<>();
         for (Option option : savedOptions) {
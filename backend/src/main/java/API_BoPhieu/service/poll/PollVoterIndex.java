@@ -0,0 +1,217 @@
+package API_BoPhieu.service.poll;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import API_BoPhieu.repository.VoteBatchRepository;
+
+/**
+ * Chỉ mục trong bộ nhớ các user ID đã bỏ phiếu cho từng poll (nén bằng Roaring bitmap). Chỉ mục
+ * của một poll được dựng lại từ bảng votes và staged_ballots ở lần truy vấn đầu tiên và bị bỏ đi
+ * khi không được dùng quá {@code app.poll.voter-index.ttl}.
+ *
+ * <p>
+ * Bỏ phiếu lại không làm thay đổi tập người đã bỏ phiếu nên chỉ mục chỉ cần thêm phần tử; thêm
+ * trong lúc đang dựng lại vẫn được giữ vì kết quả đọc từ DB được hợp vào bitmap hiện có.
+ *
+ * <p>
+ * Với {@code app.sse.mode=redis}, {@link PollVoterRelay} chuyển lượt bỏ phiếu giữa các replica.
+ * Vì bản tin pub/sub có thể mất, user không có trong bitmap được hỏi lại DB một lần; kết quả âm
+ * được ghi nhớ cho (poll, user) và bị xóa khi user đó bỏ phiếu.
+ */
+@Component
+public class PollVoterIndex {
+    private static final Logger log = LoggerFactory.getLogger(PollVoterIndex.class);
+
+    private final VoteBatchRepository voteBatchRepository;
+    private final PollVoterRelay voterRelay;
+    private final Duration ttl;
+    private final Map<Integer, PollVoters> votersByPoll = new ConcurrentHashMap<>();
+
+    public PollVoterIndex(VoteBatchRepository voteBatchRepository,
+            Optional<PollVoterRelay> voterRelay,
+            @Value("${app.poll.voter-index.ttl:PT30M}") Duration ttl) {
+        this.voteBatchRepository = voteBatchRepository;
+        this.ttl = ttl;
+        this.voterRelay = voterRelay.orElse(null);
+        if (this.voterRelay != null) {
+            this.voterRelay.setLocalDelivery(this::add);
+        }
+    }
+
+    public boolean hasVoted(Integer pollId, Integer userId) {
+        return hasVoted(List.of(pollId), userId).get(pollId);
+    }
+
+    /** Kiểm tra một user đã bỏ phiếu cho từng poll trong danh sách hay chưa. */
+    public Map<Integer, Boolean> hasVoted(Collection<Integer> pollIds, Integer userId) {
+        Map<Integer, Boolean> voted = new HashMap<>();
+        Map<Integer, PollVoters> unknown = new HashMap<>();
+        for (Integer pollId : pollIds) {
+            PollVoters voters = load(pollId);
+            if (voters.contains(userId)) {
+                voted.put(pollId, true);
+            } else if (voters.isConfirmedAbsent(userId)) {
+                voted.put(pollId, false);
+            } else {
+                unknown.put(pollId, voters);
+            }
+        }
+        if (unknown.isEmpty()) {
+            return voted;
+        }
+        // Phiếu có thể đã được bỏ qua replica khác mà bản tin chưa tới
+        Set<Integer> votedPollIds =
+                new HashSet<>(voteBatchRepository.findVotedPollIds(unknown.keySet(), userId));
+        unknown.forEach((pollId, voters) -> {
+            boolean hasVoted = votedPollIds.contains(pollId);
+            if (hasVoted) {
+                voters.add(userId);
+            } else {
+                voters.confirmAbsent(userId);
+            }
+            voted.put(pollId, hasVoted);
+        });
+        return voted;
+    }
+
+    /**
+     * Ghi nhận user đã bỏ phiếu và báo cho các replica khác; nếu đang trong transaction thì chỉ
+     * ghi nhận sau khi commit.
+     */
+    public void markVoted(Integer pollId, Integer userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager
+                    .registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            record(pollId, userId);
+                        }
+                    });
+        } else {
+            record(pollId, userId);
+        }
+    }
+
+    public void forget(Integer pollId) {
+        votersByPoll.remove(pollId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.poll.voter-index.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        Instant threshold = Instant.now().minus(ttl);
+        int before = votersByPoll.size();
+        votersByPoll.values().removeIf(voters -> voters.lastAccess.isBefore(threshold));
+        int evicted = before - votersByPoll.size();
+        if (evicted > 0) {
+            log.debug("Đã bỏ chỉ mục người bỏ phiếu của {} poll không còn được truy cập", evicted);
+        }
+    }
+
+    private void record(Integer pollId, Integer userId) {
+        add(pollId, userId);
+        if (voterRelay != null) {
+            voterRelay.publish(pollId, userId);
+        }
+    }
+
+    private void add(Integer pollId, Integer userId) {
+        // Chỉ cập nhật poll đã có trong bộ nhớ; poll chưa nạp sẽ đọc đủ từ DB khi cần
+        PollVoters voters = votersByPoll.get(pollId);
+        if (voters != null) {
+            voters.add(userId);
+        }
+    }
+
+    private PollVoters load(Integer pollId) {
+        PollVoters voters = votersByPoll.computeIfAbsent(pollId, id -> new PollVoters());
+        voters.lastAccess = Instant.now();
+        if (!voters.loaded) {
+            synchronized (voters) {
+                if (!voters.loaded) {
+                    RoaringBitmap fromDb = new RoaringBitmap();
+                    voteBatchRepository.findVoterIds(pollId).forEach(fromDb::add);
+                    voters.merge(fromDb);
+                    voters.loaded = true;
+                }
+            }
+        }
+        return voters;
+    }
+
+    private static final class PollVoters {
+        private final RoaringBitmap bitmap = new RoaringBitmap();
+        /** User đã được DB xác nhận là chưa bỏ phiếu và chưa bỏ phiếu kể từ đó. */
+        private final RoaringBitmap confirmedAbsent = new RoaringBitmap();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private volatile boolean loaded;
+        private volatile Instant lastAccess = Instant.now();
+
+        private boolean contains(int userId) {
+            lock.readLock().lock();
+            try {
+                return bitmap.contains(userId);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private boolean isConfirmedAbsent(int userId) {
+            lock.readLock().lock();
+            try {
+                return confirmedAbsent.contains(userId);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private void add(int userId) {
+            lock.writeLock().lock();
+            try {
+                bitmap.add(userId);
+                confirmedAbsent.remove(userId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /** Bỏ qua khi user đã được ghi nhận bỏ phiếu trong lúc đang hỏi DB. */
+        private void confirmAbsent(int userId) {
+            lock.writeLock().lock();
+            try {
+                if (!bitmap.contains(userId)) {
+                    confirmedAbsent.add(userId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void merge(RoaringBitmap other) {
+            lock.writeLock().lock();
+            try {
+                bitmap.or(other);
+                bitmap.runOptimize();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package API_BoPhieu.service.poll;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Chuyển các lượt bỏ phiếu đã commit giữa các replica khi {@code app.sse.mode=redis}, để
+ * {@link PollVoterIndex} của mọi replica cùng thấy người đã bỏ phiếu mà không phải hỏi lại DB.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sse.mode", havingValue = "redis")
+public class PollVoterRelay implements MessageListener {
+    private static final Logger log = LoggerFactory.getLogger(PollVoterRelay.class);
+    private static final String CHANNEL = "poll-voters:marks";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer container;
+    private final ExecutorService publishExecutor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("poll-voter-pub-"));
+    private final ExecutorService receiveExecutor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("poll-voter-relay-"));
+    private volatile VoteHandler localDelivery;
+
+    public PollVoterRelay(StringRedisTemplate redisTemplate,
+            RedisConnectionFactory connectionFactory) {
+        this.redisTemplate = redisTemplate;
+        this.container = new RedisMessageListenerContainer();
+        this.container.setConnectionFactory(connectionFactory);
+        this.container.setTaskExecutor(new ConcurrentTaskExecutor(receiveExecutor));
+        this.container.addMessageListener(this, new ChannelTopic(CHANNEL));
+        this.container.afterPropertiesSet();
+        this.container.start();
+    }
+
+    /** Đăng ký nơi nhận lượt bỏ phiếu từ replica khác; được gọi một lần bởi {@link PollVoterIndex}. */
+    void setLocalDelivery(VoteHandler localDelivery) {
+        this.localDelivery = localDelivery;
+    }
+
+    /** Phát lượt bỏ phiếu (đã commit) cho mọi replica, kể cả replica này. */
+    void publish(Integer pollId, Integer userId) {
+        String message = pollId + "," + userId;
+        publishExecutor.execute(() -> {
+            try {
+                redisTemplate.convertAndSend(CHANNEL, message);
+            } catch (DataAccessException e) {
+                log.warn("Không thể phát lượt bỏ phiếu của poll ID {} lên Redis: {}", pollId,
+                        e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        VoteHandler delivery = this.localDelivery;
+        if (delivery == null) {
+            return;
+        }
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(",", -1);
+        try {
+            delivery.onVote(Integer.valueOf(parts[0]), Integer.valueOf(parts[1]));
+        } catch (RuntimeException e) {
+            log.warn("Bỏ qua lượt bỏ phiếu không hợp lệ từ Redis: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws Exception {
+        container.destroy();
+        publishExecutor.shutdown();
+        receiveExecutor.shutdownNow();
+    }
+
+    @FunctionalInterface
+    interface VoteHandler {
+        void onVote(Integer pollId, Integer userId);
+    }
+}
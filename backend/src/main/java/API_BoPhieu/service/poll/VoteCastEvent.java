@@ -0,0 +1,13 @@
+package API_BoPhieu.service.poll;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** Phát ra khi phiếu bầu của một user đã được ghi vào DB. */
+@Getter
+@AllArgsConstructor
+public class VoteCastEvent {
+    private final Integer eventId;
+    private final Integer pollId;
+    private final Integer userId;
+}
@@ -0,0 +1,20 @@
+package API_BoPhieu.service.poll;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import API_BoPhieu.config.DomainEventExecutor;
+import lombok.RequiredArgsConstructor;
+
+/** Đánh dấu kết quả poll cần đẩy qua SSE sau khi phiếu bầu đã commit. */
+@Component
+@RequiredArgsConstructor
+public class VoteEventListener {
+    private final DomainEventExecutor domainEventExecutor;
+    private final PollResultsBroadcaster pollResultsBroadcaster;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVoteCast(VoteCastEvent event) {
+        domainEventExecutor.execute("vote-cast", () -> pollResultsBroadcaster
+                .markChanged(event.getEventId(), event.getPollId()));
+    }
+}
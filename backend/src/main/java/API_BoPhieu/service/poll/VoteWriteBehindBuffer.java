@@ -0,0 +1,291 @@
+package API_BoPhieu.service.poll;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import API_BoPhieu.repository.PollRepository;
+import API_BoPhieu.repository.VoteBatchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Ghi sau (write-behind) cho phiếu bầu. Phiếu hợp lệ được lưu tạm vào bảng staged_ballots trong
+ * transaction của request rồi mới được xác nhận, nên không mất khi replica dừng đột ngột. Mọi
+ * replica cùng dồn bảng này vào votes và bộ đếm theo lô JDBC, theo thứ tự id, nên phiếu mới hơn
+ * của cùng một người luôn được ghi sau phiếu cũ.
+ */
+@Component
+public class VoteWriteBehindBuffer {
+    private static final Logger log = LoggerFactory.getLogger(VoteWriteBehindBuffer.class);
+
+    private final VoteBatchRepository voteBatchRepository;
+    private final PollRepository pollRepository;
+    private final PollCounterStore pollCounterStore;
+    private final PollResultsBroadcaster pollResultsBroadcaster;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final boolean enabled;
+    private final int capacity;
+    private final int batchSize;
+    /** Số phiếu đang lưu tạm trên toàn cụm, đếm lại sau mỗi lần dồn. */
+    private final AtomicLong backlog = new AtomicLong();
+
+    private final Timer flushTimer;
+    private final Counter flushedCounter;
+    private final Counter rejectedCounter;
+    private final Counter closedPollCounter;
+    private final Counter failedCounter;
+
+    public VoteWriteBehindBuffer(VoteBatchRepository voteBatchRepository,
+            PollRepository pollRepository, PollCounterStore pollCounterStore,
+            PollResultsBroadcaster pollResultsBroadcaster,
+            PlatformTransactionManager transactionManager, CacheManager cacheManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.vote.write-behind.enabled:false}") boolean enabled,
+            @Value("${app.vote.write-behind.capacity:10000}") int capacity,
+            @Value("${app.vote.write-behind.batch-size:500}") int batchSize) {
+        this.voteBatchRepository = voteBatchRepository;
+        this.pollRepository = pollRepository;
+        this.pollCounterStore = pollCounterStore;
+        this.pollResultsBroadcaster = pollResultsBroadcaster;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate
+                .setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // Chỉ khóa các dòng đọc được, không khóa khoảng trống sau dòng cuối để request bỏ phiếu
+        // không phải chờ lô đang ghi
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.cacheManager = cacheManager;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+
+        meterRegistry.gauge("votes.write_behind.queue.depth", backlog, AtomicLong::get);
+        this.flushTimer = Timer.builder("votes.write_behind.flush")
+                .description("Thời gian ghi một lô phiếu xuống DB").register(meterRegistry);
+        this.flushedCounter = meterRegistry.counter("votes.write_behind.flushed");
+        this.rejectedCounter = meterRegistry.counter("votes.write_behind.rejected");
+        this.closedPollCounter = meterRegistry.counter("votes.write_behind.closed_poll");
+        this.failedCounter = meterRegistry.counter("votes.write_behind.failed");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Lưu tạm phiếu trong transaction của người gọi; phiếu chỉ được xác nhận sau khi transaction
+     * đó commit. Trả về false khi đang tắt hoặc số phiếu chờ đã vượt hạn mức, khi đó phía gọi phải
+     * ghi phiếu theo đường đồng bộ.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean offer(PendingBallot ballot) {
+        if (!enabled) {
+            return false;
+        }
+        if (backlog.get() >= capacity) {
+            rejectedCounter.increment();
+            log.warn("Đã có {} phiếu chờ ghi, chuyển sang ghi đồng bộ cho poll ID {}",
+                    backlog.get(), ballot.getPollId());
+            return false;
+        }
+        voteBatchRepository.stage(ballot);
+        backlog.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Bỏ các phiếu lưu tạm của (poll, user) vì phiếu mới hơn đang được ghi thẳng vào votes. Nếu
+     * một lô đang giữ các phiếu đó, lệnh xóa chờ lô commit trước nên phiếu đồng bộ luôn ghi sau.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void supersedeStaged(Integer pollId, Integer userId) {
+        voteBatchRepository.discardStaged(pollId, userId);
+    }
+
+    /**
+     * Lựa chọn trong phiếu lưu tạm mới nhất của (poll, user). Phiếu lưu tạm luôn mới hơn phiếu
+     * trong votes của cùng người, nên khi có thì đây là lựa chọn hiện tại.
+     */
+    public Optional<List<Integer>> findStagedOptionIds(Integer pollId, Integer userId) {
+        return voteBatchRepository.findLatestStagedOptionIds(pollId, userId);
+    }
+
+    /**
+     * Ghi mọi phiếu lưu tạm của một poll trong transaction đóng poll, sau khi poll đã được đánh dấu
+     * đóng; phiếu của mọi replica đều nằm trong bảng nên kết quả chốt đủ mọi phiếu đã xác nhận.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int flushPoll(Integer pollId) {
+        List<PendingBallot> staged = voteBatchRepository.lockStagedByPoll(pollId);
+        if (staged.isEmpty()) {
+            return 0;
+        }
+        Collection<PendingBallot> ballots = latestPerVoter(staged);
+        pollCounterStore.applyBallotReplacements(ballots);
+        voteBatchRepository.replaceBallots(ballots);
+        voteBatchRepository.deleteStaged(staged);
+        flushedCounter.increment(ballots.size());
+        log.info("Đã ghi nốt {} phiếu lưu tạm trước khi đóng poll ID {}", ballots.size(), pollId);
+        return ballots.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.vote.write-behind.flush-interval-ms:200}")
+    public void scheduledFlush() {
+        if (enabled && flushLock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    /** Khi write-behind bị tắt, ghi nốt các phiếu còn lưu tạm từ lần chạy trước. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void drainLeftovers() {
+        if (enabled || voteBatchRepository.countStaged() == 0) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            log.info("Write-behind đang tắt, ghi nốt các phiếu còn lưu tạm");
+            drain();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void drain() {
+        int locked;
+        do {
+            locked = writeBatch();
+        } while (locked == batchSize);
+        backlog.set(voteBatchRepository.countStaged());
+    }
+
+    /** Ghi một lô; trả về số dòng lưu tạm đã đọc. */
+    private int writeBatch() {
+        List<PendingBallot> applied = new ArrayList<>();
+        int locked;
+        try {
+            locked = flushTimer.record(() -> transactionTemplate.execute(status -> {
+                List<PendingBallot> staged = voteBatchRepository.lockStaged(batchSize);
+                applied.addAll(apply(staged));
+                return staged.size();
+            }));
+        } catch (RuntimeException e) {
+            log.error("Ghi lô phiếu bầu thất bại, thử ghi lại từng phiếu", e);
+            locked = writeSingly();
+        }
+        afterWrite(applied);
+        return locked;
+    }
+
+    /**
+     * Ghi lần lượt từng phiếu của lô cũ nhất, mỗi phiếu một transaction, để một phiếu lỗi không
+     * chặn các phiếu khác. Phiếu lỗi được giữ lại trong bảng lưu tạm và thử lại ở lượt sau; khi có
+     * phiếu lỗi, lượt dồn hiện tại dừng lại.
+     */
+    private int writeSingly() {
+        List<PendingBallot> staged = transactionTemplate
+                .execute(status -> voteBatchRepository.lockStaged(batchSize));
+        boolean failed = false;
+        for (PendingBallot ballot : staged) {
+            try {
+                afterWrite(transactionTemplate.execute(status -> apply(
+                        voteBatchRepository.lockStagedById(ballot.getStagedId()))));
+            } catch (RuntimeException e) {
+                failed = true;
+                failedCounter.increment();
+                log.error("[AUDIT] Không thể ghi phiếu bầu, giữ lại trong staged_ballots: "
+                        + "stagedId={}, pollId={}, userId={}, optionIds={}, acceptedAt={}",
+                        ballot.getStagedId(), ballot.getPollId(), ballot.getUserId(),
+                        ballot.getOptionIds(), ballot.getAcceptedAt(), e);
+            }
+        }
+        return failed ? 0 : staged.size();
+    }
+
+    /**
+     * Ghi các phiếu lưu tạm đã khóa vào votes và bộ đếm rồi xóa chúng. Phiếu của poll đã đóng bị
+     * loại: poll đóng đã tự ghi nốt phiếu lưu tạm của nó, nên phiếu còn lại đến sau khi chốt kết
+     * quả.
+     */
+    private List<PendingBallot> apply(List<PendingBallot> staged) {
+        if (staged.isEmpty()) {
+            return List.of();
+        }
+        Set<Integer> closedPollIds = new HashSet<>(pollRepository.findClosedIdsByIdIn(
+                staged.stream().map(PendingBallot::getPollId).collect(Collectors.toSet())));
+        List<PendingBallot> open = new ArrayList<>(staged.size());
+        for (PendingBallot ballot : staged) {
+            if (closedPollIds.contains(ballot.getPollId())) {
+                closedPollCounter.increment();
+                log.warn("[AUDIT] Bỏ phiếu đến sau khi poll đã đóng: "
+                        + "stagedId={}, pollId={}, userId={}, optionIds={}, acceptedAt={}",
+                        ballot.getStagedId(), ballot.getPollId(), ballot.getUserId(),
+                        ballot.getOptionIds(), ballot.getAcceptedAt());
+            } else {
+                open.add(ballot);
+            }
+        }
+        Collection<PendingBallot> ballots = latestPerVoter(open);
+        pollCounterStore.applyBallotReplacements(ballots);
+        voteBatchRepository.replaceBallots(ballots);
+        voteBatchRepository.deleteStaged(staged);
+        flushedCounter.increment(ballots.size());
+        return new ArrayList<>(ballots);
+    }
+
+    /** Cùng một người bỏ phiếu lại nhiều lần trong một lô thì chỉ giữ phiếu có id lớn nhất. */
+    private Collection<PendingBallot> latestPerVoter(List<PendingBallot> staged) {
+        Map<String, PendingBallot> latestBallots = new LinkedHashMap<>();
+        for (PendingBallot ballot : staged) {
+            latestBallots.put(ballot.getPollId() + ":" + ballot.getUserId(), ballot);
+        }
+        return latestBallots.values();
+    }
+
+    private void afterWrite(Collection<PendingBallot> ballots) {
+        if (ballots.isEmpty()) {
+            return;
+        }
+        evictPollStats(ballots);
+        ballots.forEach(ballot -> pollResultsBroadcaster.markChanged(ballot.getEventId(),
+                ballot.getPollId()));
+    }
+
+    private void evictPollStats(Collection<PendingBallot> ballots) {
+        Cache pollStats = cacheManager.getCache("POLL_STATS");
+        if (pollStats == null) {
+            return;
+        }
+        Set<Integer> pollIds =
+                ballots.stream().map(PendingBallot::getPollId).collect(Collectors.toSet());
+        pollIds.forEach(pollId -> pollStats.evict("poll:" + pollId));
+    }
+}
@@ -0,0 +1,258 @@
+package API_BoPhieu.service.search;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import API_BoPhieu.entity.Event;
+import API_BoPhieu.repository.EventRepository;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Chỉ mục đảo trong bộ nhớ trên title, location và description của sự kiện, thay cho LIKE
+ * '%x%' trên cột TEXT. Từ được bỏ dấu trước khi đánh chỉ mục; mỗi từ của truy vấn khớp theo tiền
+ * tố và sự kiện phải khớp mọi từ. Điểm của một từ phụ thuộc trường chứa nó (title > location >
+ * description), khớp nguyên từ được điểm cao hơn khớp tiền tố.
+ *
+ * <p>
+ * Chỉ mục được nạp khi ứng dụng khởi động, cập nhật sau commit với các thay đổi trên replica này
+ * và đọc lại định kỳ các sự kiện có update_at mới để nhận thay đổi từ replica khác. Khi chưa nạp
+ * xong, {@link #search} trả về rỗng để bên gọi tìm bằng LIKE.
+ */
+@Component
+public class EventSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(EventSearchIndex.class);
+    private static final float TITLE_WEIGHT = 3f;
+    private static final float LOCATION_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    private static final float PREFIX_MATCH_FACTOR = 0.5f;
+
+    private final EventRepository eventRepository;
+    private final boolean enabled;
+    private final int loadBatchSize;
+    private final int maxCandidates;
+    private final Duration refreshOverlap;
+    private final ExecutorService loadExecutor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("search-index-"));
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    /** Từ -> (id sự kiện -> trọng số); sắp theo từ để khớp tiền tố bằng subMap. */
+    private final NavigableMap<String, Map<Integer, Float>> postings = new TreeMap<>();
+    /** Id sự kiện -> các từ đã đánh chỉ mục, để gỡ khi sự kiện được sửa. */
+    private final Map<Integer, Map<String, Float>> documents = new HashMap<>();
+    private final AtomicBoolean loading = new AtomicBoolean();
+    private volatile boolean ready;
+    private volatile Instant syncedAt;
+
+    public EventSearchIndex(EventRepository eventRepository,
+            @Value("${app.search.enabled:true}") boolean enabled,
+            @Value("${app.search.load-batch-size:1000}") int loadBatchSize,
+            @Value("${app.search.max-candidates:1000}") int maxCandidates,
+            @Value("${app.search.refresh-overlap:PT2M}") Duration refreshOverlap) {
+        this.eventRepository = eventRepository;
+        this.enabled = enabled;
+        this.loadBatchSize = loadBatchSize;
+        this.maxCandidates = maxCandidates;
+        this.refreshOverlap = refreshOverlap;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled) {
+            scheduleLoad();
+        }
+    }
+
+    /**
+     * Id các sự kiện khớp truy vấn kèm điểm liên quan, không sắp: chỉ mục không biết trạng thái hay
+     * quyền quản lý nên việc lọc, sắp và phân trang thuộc về bên gọi. Truy vấn quá rộng chỉ giữ
+     * {@code app.search.max-candidates} sự kiện điểm cao nhất và đánh dấu kết quả bị cắt. Rỗng khi
+     * chỉ mục chưa sẵn sàng hoặc truy vấn không có từ nào.
+     */
+    public Optional<SearchHits> search(String query) {
+        if (!enabled || !ready) {
+            return Optional.empty();
+        }
+        Set<String> terms = SearchText.tokens(query);
+        if (terms.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Map<Integer, Float> scores = null;
+        lock.readLock().lock();
+        try {
+            for (String term : terms) {
+                Map<Integer, Float> termScores = scoreTerm(term);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((eventId, score) -> score + termScores.get(eventId));
+                }
+                if (scores.isEmpty()) {
+                    return Optional.of(new SearchHits(Map.of(), false));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (scores.size() <= maxCandidates) {
+            return Optional.of(new SearchHits(scores, false));
+        }
+        Map<Integer, Float> top = new HashMap<>();
+        scores.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Float>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(maxCandidates).forEach(hit -> top.put(hit.getKey(), hit.getValue()));
+        return Optional.of(new SearchHits(top, true));
+    }
+
+    /** Cập nhật chỉ mục sau khi transaction hiện tại commit; gọi khi tạo hoặc sửa sự kiện. */
+    public void indexAfterCommit(Event event) {
+        if (!enabled) {
+            return;
+        }
+        Integer eventId = event.getId();
+        String title = event.getTitle();
+        String location = event.getLocation();
+        String description = event.getDescription();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(eventId, title, location, description);
+                }
+            });
+        } else {
+            put(eventId, title, location, description);
+        }
+    }
+
+    /**
+     * Đọc lại các sự kiện sửa từ lần đồng bộ trước. Khoảng chồng lấn bù cho transaction commit
+     * chậm và lệch đồng hồ giữa các replica; đánh chỉ mục lại một sự kiện không làm sai kết quả.
+     */
+    @Scheduled(fixedDelayString = "${app.search.refresh-interval-ms:30000}",
+            initialDelayString = "${app.search.refresh-interval-ms:30000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        if (!ready) {
+            scheduleLoad();
+            return;
+        }
+        Instant startedAt = Instant.now();
+        try {
+            List<Object[]> rows = eventRepository
+                    .findSearchDocumentsUpdatedSince(syncedAt.minus(refreshOverlap));
+            rows.forEach(this::put);
+            syncedAt = startedAt;
+            log.debug("Đã cập nhật {} sự kiện vào chỉ mục tìm kiếm", rows.size());
+        } catch (DataAccessException e) {
+            log.warn("Không thể cập nhật chỉ mục tìm kiếm: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loadExecutor.shutdownNow();
+    }
+
+    private void scheduleLoad() {
+        if (loading.compareAndSet(false, true)) {
+            loadExecutor.execute(() -> {
+                try {
+                    load();
+                } finally {
+                    loading.set(false);
+                }
+            });
+        }
+    }
+
+    private void load() {
+        long start = System.currentTimeMillis();
+        Instant startedAt = Instant.now();
+        int loaded = 0;
+        try {
+            Integer afterId = 0;
+            List<Object[]> rows;
+            do {
+                rows = eventRepository.findSearchDocumentsAfterId(afterId,
+                        PageRequest.of(0, loadBatchSize));
+                rows.forEach(this::put);
+                loaded += rows.size();
+                if (!rows.isEmpty()) {
+                    afterId = (Integer) rows.get(rows.size() - 1)[0];
+                }
+            } while (rows.size() == loadBatchSize && !Thread.currentThread().isInterrupted());
+        } catch (DataAccessException e) {
+            log.warn("Không thể nạp chỉ mục tìm kiếm, tạm tìm bằng LIKE: {}", e.getMessage());
+            return;
+        }
+        syncedAt = startedAt;
+        ready = true;
+        log.info("Đã nạp chỉ mục tìm kiếm với {} sự kiện trong {}ms", loaded,
+                System.currentTimeMillis() - start);
+    }
+
+    private Map<Integer, Float> scoreTerm(String term) {
+        Map<Integer, Float> termScores = new HashMap<>();
+        postings.subMap(term, true, term + Character.MAX_VALUE, false).forEach((token, events) -> {
+            float factor = token.equals(term) ? 1f : PREFIX_MATCH_FACTOR;
+            events.forEach((eventId, weight) -> termScores.merge(eventId, weight * factor, Math::max));
+        });
+        return termScores;
+    }
+
+    private void put(Object[] row) {
+        put((Integer) row[0], (String) row[1], (String) row[2], (String) row[3]);
+    }
+
+    private void put(Integer eventId, String title, String location, String description) {
+        Map<String, Float> weights = new HashMap<>();
+        SearchText.tokens(title).forEach(token -> weights.merge(token, TITLE_WEIGHT, Float::sum));
+        SearchText.tokens(location).forEach(token -> weights.merge(token, LOCATION_WEIGHT, Float::sum));
+        SearchText.tokens(description)
+                .forEach(token -> weights.merge(token, DESCRIPTION_WEIGHT, Float::sum));
+
+        lock.writeLock().lock();
+        try {
+            Map<String, Float> previous = documents.put(eventId, weights);
+            if (previous != null) {
+                previous.keySet().forEach(token -> {
+                    Map<Integer, Float> events = postings.get(token);
+                    events.remove(eventId);
+                    if (events.isEmpty()) {
+                        postings.remove(token);
+                    }
+                });
+            }
+            weights.forEach((token, weight) -> postings
+                    .computeIfAbsent(token, key -> new HashMap<>()).put(eventId, weight));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package API_BoPhieu.service.search;
+
+import java.util.Map;
+
+/**
+ * Kết quả tra chỉ mục tìm kiếm: id sự kiện kèm điểm liên quan. {@code truncated} là true khi truy
+ * vấn khớp nhiều hơn {@code app.search.max-candidates} sự kiện và chỉ các sự kiện điểm cao nhất
+ * được giữ lại.
+ */
+public record SearchHits(Map<Integer, Float> scores, boolean truncated) {
+}
@@ -0,0 +1,77 @@
+package API_BoPhieu.service.sse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+
+/**
+ * Một bản tin SSE đã được mã hóa sẵn thành byte theo đúng định dạng {@code text/event-stream}.
+ * Cùng một đối tượng được gửi tới mọi client nên payload chỉ được serialize một lần; byte được ghi
+ * nguyên vẹn qua {@link org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter#send(Set)}.
+ */
+final class PreparedSseEvent {
+    private static final byte[] ID_PREFIX = "id:".getBytes(StandardCharsets.UTF_8);
+
+    private final long id;
+    private final byte[] bytes;
+    private final Set<DataWithMediaType> frame;
+
+    private PreparedSseEvent(long id, byte[] bytes) {
+        this.id = id;
+        this.bytes = bytes;
+        this.frame = Set.of(new DataWithMediaType(bytes, MediaType.TEXT_EVENT_STREAM));
+    }
+
+    /**
+     * {@code json} là payload đã serialize; mỗi dòng của nó trở thành một dòng {@code data:}. Bản
+     * tin có {@code id <= 0} không mang dòng {@code id:} nên không làm thay đổi Last-Event-ID.
+     */
+    static PreparedSseEvent of(long id, String eventName, String json) {
+        StringBuilder text = new StringBuilder(json.length() + eventName.length() + 32);
+        if (id > 0) {
+            text.append("id:").append(id).append('\n');
+        }
+        text.append("event:").append(eventName).append('\n');
+        for (String line : json.split("\n", -1)) {
+            text.append("data:").append(line).append('\n');
+        }
+        text.append('\n');
+        return new PreparedSseEvent(id, text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Dòng chú thích (bắt đầu bằng {@code :}); trình duyệt bỏ qua, dùng làm heartbeat. */
+    static PreparedSseEvent ofComment(String text) {
+        return new PreparedSseEvent(0, (":" + text + "\n\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Dựng lại bản tin từ byte đã mã hóa, ví dụ khi nhận từ replica khác qua Redis. */
+    static PreparedSseEvent ofFrame(byte[] bytes) {
+        long id = 0;
+        if (bytes.length > ID_PREFIX.length
+                && Arrays.equals(bytes, 0, ID_PREFIX.length, ID_PREFIX, 0, ID_PREFIX.length)) {
+            for (int i = ID_PREFIX.length; i < bytes.length && bytes[i] != '\n'; i++) {
+                id = id * 10 + (bytes[i] - '0');
+            }
+        }
+        return new PreparedSseEvent(id, bytes);
+    }
+
+    long id() {
+        return id;
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+
+    int size() {
+        return bytes.length;
+    }
+
+    /** Bản tin ở dạng truyền thẳng cho emitter. */
+    Set<DataWithMediaType> frame() {
+        return frame;
+    }
+}
@@ -0,0 +1,185 @@
+package API_BoPhieu.service.sse;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Một kết nối SSE cùng hàng đợi gửi có giới hạn theo số bản tin và theo số byte. Tại mỗi thời điểm
+ * chỉ có tối đa một tác vụ gửi của client chạy trên executor, nên các bản tin tới client luôn đúng
+ * thứ tự và một client chậm chỉ chiếm một luồng gửi. Khi lệnh ghi bị treo, bên dọn kết nối có thể
+ * {@linkplain #compensate() bù} luồng đó bằng một luồng khác; khoản bù được trả lại qua
+ * {@link SendFailureHandler#onStalledSendEnded} khi lệnh ghi cuối cùng cũng kết thúc.
+ */
+final class SseClient {
+    /** Số bản tin gửi tối đa trong một lượt trước khi nhường luồng cho client khác. */
+    private static final int MAX_BATCH = 64;
+
+    private final Integer eventId;
+    private final SseEmitter emitter;
+    private final BlockingQueue<PreparedSseEvent> queue;
+    private final long maxQueuedBytes;
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final long connectedAt = System.currentTimeMillis();
+    /** Thời điểm bắt đầu lần ghi đang diễn ra, 0 khi không ghi. */
+    private volatile long sendStartedAt;
+    private volatile long lastSentAt;
+    private volatile long sentBytes;
+    /** Lần ghi đang treo đã được bù luồng; đọc/ghi cùng {@link #sendStartedAt} dưới khóa của client. */
+    private boolean compensated;
+
+    SseClient(Integer eventId, SseEmitter emitter, int queueCapacity, long maxQueuedBytes) {
+        this.eventId = eventId;
+        this.emitter = emitter;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxQueuedBytes = maxQueuedBytes;
+        this.lastSentAt = connectedAt;
+    }
+
+    Integer getEventId() {
+        return eventId;
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    boolean isIdle() {
+        return queue.isEmpty() && sendStartedAt == 0;
+    }
+
+    int getQueuedEvents() {
+        return queue.size();
+    }
+
+    /** Số byte bản tin đang chờ gửi cho client này. */
+    long getQueuedBytes() {
+        return queuedBytes.get();
+    }
+
+    long getSentBytes() {
+        return sentBytes;
+    }
+
+    long getConnectedAt() {
+        return connectedAt;
+    }
+
+    long getLastSentAt() {
+        return lastSentAt;
+    }
+
+    /**
+     * Lần ghi hiện tại đã bị chặn từ trước {@code threshold}. Với kết nối half-open, bộ đệm TCP đầy
+     * dần rồi lệnh ghi đứng lại thay vì báo lỗi, nên đây là dấu hiệu để dọn kết nối.
+     */
+    boolean isStalledSince(long threshold) {
+        long startedAt = sendStartedAt;
+        return startedAt != 0 && startedAt < threshold;
+    }
+
+    /**
+     * Trả về false khi hàng đợi đã đầy hoặc vượt hạn mức byte; bên gọi quyết định bỏ bản tin cũ
+     * hay ngắt kết nối. Bản tin luôn được nhận khi hàng đợi rỗng để bản tin lớn vẫn tới được client.
+     */
+    boolean offer(PreparedSseEvent event) {
+        if (!queue.isEmpty() && queuedBytes.get() + event.size() > maxQueuedBytes) {
+            return false;
+        }
+        if (!queue.offer(event)) {
+            return false;
+        }
+        queuedBytes.addAndGet(event.size());
+        return true;
+    }
+
+    /** Bỏ bản tin cũ nhất cho tới khi đủ chỗ rồi thêm bản tin mới, dùng cho chính sách DROP_OLDEST. */
+    void replaceOldest(PreparedSseEvent event) {
+        while (!offer(event)) {
+            PreparedSseEvent dropped = queue.poll();
+            if (dropped != null) {
+                queuedBytes.addAndGet(-dropped.size());
+            }
+        }
+    }
+
+    /** Lên lịch gửi nếu chưa có tác vụ gửi nào của client đang chờ hoặc đang chạy. */
+    void schedule(Executor executor, SendFailureHandler onFailure) {
+        if (!closed.get() && draining.compareAndSet(false, true)) {
+            executor.execute(() -> drain(executor, onFailure));
+        }
+    }
+
+    /** Đánh dấu đóng; trả về true cho lần gọi đầu tiên để chỉ một nơi dọn dẹp kết nối. */
+    boolean markClosed() {
+        if (closed.compareAndSet(false, true)) {
+            queue.clear();
+            queuedBytes.set(0);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Ghi nhận lần ghi đang treo đã được bù bằng một luồng gửi khác. Trả về false khi không có lần
+     * ghi nào đang diễn ra hoặc đã được bù trước đó.
+     */
+    synchronized boolean compensate() {
+        if (sendStartedAt == 0 || compensated) {
+            return false;
+        }
+        compensated = true;
+        return true;
+    }
+
+    private void drain(Executor executor, SendFailureHandler onFailure) {
+        try {
+            for (int sent = 0; sent < MAX_BATCH && !closed.get(); sent++) {
+                PreparedSseEvent event = queue.poll();
+                if (event == null) {
+                    break;
+                }
+                queuedBytes.addAndGet(-event.size());
+                sendStartedAt = System.currentTimeMillis();
+                emitter.send(event.frame());
+                sendStartedAt = 0;
+                lastSentAt = System.currentTimeMillis();
+                sentBytes += event.size();
+            }
+        } catch (IOException | IllegalStateException e) {
+            onFailure.onSendFailure(this, e);
+        } finally {
+            boolean released;
+            synchronized (this) {
+                sendStartedAt = 0;
+                released = compensated;
+                compensated = false;
+            }
+            draining.set(false);
+            if (released) {
+                onFailure.onStalledSendEnded(this);
+            }
+        }
+        // Bản tin có thể đến sau lần poll cuối nhưng trước khi cờ được trả lại
+        if (!queue.isEmpty()) {
+            schedule(executor, onFailure);
+        }
+    }
+
+    interface SendFailureHandler {
+        void onSendFailure(SseClient client, Exception cause);
+
+        /** Lần ghi đã được {@linkplain #compensate() bù luồng} vừa kết thúc, thành công hay lỗi. */
+        void onStalledSendEnded(SseClient client);
+    }
+}
@@ -0,0 +1,204 @@
+package API_BoPhieu.service.sse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Chuyển bản tin SSE giữa các replica qua Redis pub/sub, mỗi sự kiện một kênh. Replica chỉ đăng ký
+ * kênh của sự kiện đang có client kết nối tới nó. Bản tin được publish trên một luồng và nhận trên
+ * một luồng, nên thứ tự bản tin của một sự kiện từ cùng replica được giữ nguyên.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sse.mode", havingValue = "redis")
+public class SseClusterRelay implements MessageListener {
+    private static final Logger log = LoggerFactory.getLogger(SseClusterRelay.class);
+    private static final String CHANNEL_PREFIX = "sse:event:";
+    private static final String SEQUENCE_PREFIX = "sse:seq:";
+
+    /** KEYS[1] bộ đếm id; ARGV: kênh, bản tin chưa có id, TTL giây của bộ đếm. */
+    private static final RedisScript<Long> PUBLISH_SCRIPT = new DefaultRedisScript<>(
+            "local id = redis.call('INCR', KEYS[1]) "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[3]) "
+                    + "redis.call('PUBLISH', ARGV[1], 'id:' .. id .. '\\n' .. ARGV[2]) "
+                    + "return id",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer container;
+    private final ExecutorService publishExecutor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("sse-publish-"));
+    private final ExecutorService receiveExecutor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("sse-relay-"));
+    private final long subscriberCountTtlMillis;
+    private final Duration sequenceTtl;
+    private final Map<Integer, SubscriberCount> subscriberCounts = new ConcurrentHashMap<>();
+    private final ExecutorService subscriptionExecutor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("sse-subscribe-"));
+    /** Sự kiện đã đăng ký kênh; chỉ được đọc ghi trên {@link #subscriptionExecutor}. */
+    private final Set<Integer> subscribedEvents = new HashSet<>();
+    private volatile BiConsumer<Integer, PreparedSseEvent> localDelivery;
+    private volatile Predicate<Integer> localInterest;
+
+    public SseClusterRelay(StringRedisTemplate redisTemplate,
+            RedisConnectionFactory connectionFactory,
+            @Value("${app.sse.cluster.subscriber-count-ttl-ms:1000}") long subscriberCountTtlMillis,
+            @Value("${app.sse.cluster.sequence-ttl:P2D}") Duration sequenceTtl) {
+        this.redisTemplate = redisTemplate;
+        this.subscriberCountTtlMillis = subscriberCountTtlMillis;
+        this.sequenceTtl = sequenceTtl;
+        this.container = new RedisMessageListenerContainer();
+        this.container.setConnectionFactory(connectionFactory);
+        this.container.setTaskExecutor(new ConcurrentTaskExecutor(receiveExecutor));
+        this.container.afterPropertiesSet();
+        this.container.start();
+    }
+
+    /**
+     * Đăng ký nơi nhận bản tin từ Redis và cách biết replica còn giữ luồng của một sự kiện; được
+     * gọi một lần bởi {@link SseServiceImpl}.
+     */
+    void setLocalDelivery(BiConsumer<Integer, PreparedSseEvent> localDelivery,
+            Predicate<Integer> localInterest) {
+        this.localDelivery = localDelivery;
+        this.localInterest = localInterest;
+    }
+
+    /**
+     * Cấp id và gửi bản tin (chưa có id) lên kênh của sự kiện trong cùng một script, nên thứ tự
+     * publish trên kênh trùng với thứ tự id. Replica này cũng nhận lại qua kênh như mọi replica
+     * khác; {@code fallback} chạy khi Redis lỗi để ít nhất client cục bộ vẫn nhận được bản tin.
+     */
+    void publish(Integer eventId, PreparedSseEvent event, Runnable fallback) {
+        publishExecutor.execute(() -> {
+            try {
+                redisTemplate.execute(PUBLISH_SCRIPT, List.of(SEQUENCE_PREFIX + eventId),
+                        channel(eventId), new String(event.bytes(), StandardCharsets.UTF_8),
+                        String.valueOf(sequenceTtl.toSeconds()));
+            } catch (DataAccessException e) {
+                log.warn("SSE: Không thể publish bản tin của sự kiện ID {} lên Redis, chỉ gửi cục bộ: {}",
+                        eventId, e.getMessage());
+                fallback.run();
+            }
+        });
+    }
+
+    /**
+     * Đăng ký hoặc hủy đăng ký kênh của sự kiện cho khớp với việc replica còn giữ luồng SSE của sự
+     * kiện hay không. Việc này gọi Redis nên chạy trên một luồng riêng, ngoài khóa của map luồng;
+     * trạng thái mong muốn được đọc lúc chạy nên các lần gọi đến lệch thứ tự vẫn cho kết quả đúng.
+     * Đăng ký lỗi được thử lại ở lần gọi sau của cùng sự kiện.
+     */
+    void syncSubscription(Integer eventId) {
+        subscriptionExecutor.execute(() -> {
+            Predicate<Integer> interest = this.localInterest;
+            boolean wanted = interest != null && interest.test(eventId);
+            try {
+                if (wanted && !subscribedEvents.contains(eventId)) {
+                    container.addMessageListener(this, new ChannelTopic(channel(eventId)));
+                    subscribedEvents.add(eventId);
+                    log.debug("SSE: Đăng ký kênh Redis của sự kiện ID {}", eventId);
+                } else if (!wanted && subscribedEvents.contains(eventId)) {
+                    container.removeMessageListener(this, new ChannelTopic(channel(eventId)));
+                    subscribedEvents.remove(eventId);
+                    log.debug("SSE: Hủy đăng ký kênh Redis của sự kiện ID {}", eventId);
+                }
+            } catch (RuntimeException e) {
+                log.warn("SSE: Không thể {} kênh Redis của sự kiện ID {}: {}",
+                        wanted ? "đăng ký" : "hủy đăng ký", eventId, e.getMessage());
+            }
+        });
+    }
+
+    /** Có replica nào đang giữ client của sự kiện không; kết quả được nhớ trong thời gian ngắn. */
+    boolean hasSubscribers(Integer eventId) {
+        long now = System.currentTimeMillis();
+        SubscriberCount cached = subscriberCounts.get(eventId);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.count > 0;
+        }
+        long count;
+        try {
+            count = countSubscribers(channel(eventId));
+        } catch (DataAccessException e) {
+            log.warn("SSE: Không thể đếm subscriber của sự kiện ID {}: {}", eventId, e.getMessage());
+            return false;
+        }
+        subscriberCounts.put(eventId, new SubscriberCount(count, now + subscriberCountTtlMillis));
+        return count > 0;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        Integer eventId = Integer.valueOf(channel.substring(CHANNEL_PREFIX.length()));
+        deliverLocally(eventId, PreparedSseEvent.ofFrame(message.getBody()));
+    }
+
+    @PreDestroy
+    public void shutdown() throws Exception {
+        subscriptionExecutor.shutdownNow();
+        container.destroy();
+        publishExecutor.shutdown();
+        receiveExecutor.shutdownNow();
+    }
+
+    private void deliverLocally(Integer eventId, PreparedSseEvent event) {
+        BiConsumer<Integer, PreparedSseEvent> delivery = this.localDelivery;
+        if (delivery != null) {
+            delivery.accept(eventId, event);
+        }
+    }
+
+    private long countSubscribers(String channel) {
+        Object reply = redisTemplate.execute((RedisCallback<Object>) connection -> connection
+                .execute("PUBSUB", "NUMSUB".getBytes(StandardCharsets.UTF_8),
+                        channel.getBytes(StandardCharsets.UTF_8)));
+        // Trả về dạng [tên kênh, số subscriber]
+        if (reply instanceof List<?> values && values.size() >= 2
+                && values.get(1) instanceof Number count) {
+            return count.longValue();
+        }
+        return 0;
+    }
+
+    private static String channel(Integer eventId) {
+        return CHANNEL_PREFIX + eventId;
+    }
+
+    private static final class SubscriberCount {
+        private final long count;
+        private final long expiresAt;
+
+        private SubscriberCount(long count, long expiresAt) {
+            this.count = count;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
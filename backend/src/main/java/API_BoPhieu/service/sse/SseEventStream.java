@@ -0,0 +1,131 @@
+package API_BoPhieu.service.sse;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+/**
+ * Trạng thái SSE của một sự kiện: danh sách client, bộ đếm id tăng dần và vòng đệm các bản tin
+ * gần nhất để phát lại khi client kết nối lại với {@code Last-Event-ID}. Mọi thao tác ghi bản tin
+ * và gắn client đều khóa trên đối tượng này, nên thứ tự bản tin trong hàng đợi của mỗi client trùng
+ * với thứ tự id.
+ */
+final class SseEventStream {
+    private final Integer eventId;
+    private final List<SseClient> clients = new CopyOnWriteArrayList<>();
+    private final PreparedSseEvent[] ring;
+    private final BiConsumer<SseClient, PreparedSseEvent> enqueue;
+    private int next;
+    private int size;
+    private long lastId;
+    private long replayBytes;
+    /** Id cuối cùng trước bản tin gần nhất được phát không kèm id; -1 khi chưa có. */
+    private long unsequencedAfter = -1;
+    private volatile long idleSince;
+
+    SseEventStream(Integer eventId, int replaySize,
+            BiConsumer<SseClient, PreparedSseEvent> enqueue) {
+        this.eventId = eventId;
+        this.ring = new PreparedSseEvent[Math.max(replaySize, 1)];
+        this.enqueue = enqueue;
+        this.idleSince = System.currentTimeMillis();
+    }
+
+    Integer getEventId() {
+        return eventId;
+    }
+
+    List<SseClient> getClients() {
+        return clients;
+    }
+
+    /** Thời điểm client cuối cùng rời đi, 0 khi vẫn còn client. */
+    long getIdleSince() {
+        return idleSince;
+    }
+
+    /** Tổng số byte các bản tin đang giữ trong vòng đệm phát lại. */
+    synchronized long getReplayBytes() {
+        return replayBytes;
+    }
+
+    /** Cấp id tiếp theo cho bản tin sinh ra tại replica này rồi phát cho các client. */
+    synchronized PreparedSseEvent publish(String eventName, String json) {
+        PreparedSseEvent event = PreparedSseEvent.of(lastId + 1, eventName, json);
+        append(event);
+        return event;
+    }
+
+    /**
+     * Phát bản tin không kèm id cho client đang kết nối, dùng khi không lấy được id từ Redis. Bản tin
+     * không vào vòng đệm; client kết nối lại từ id không mới hơn id hiện tại sẽ nhận resync vì có thể
+     * đã lỡ nó.
+     */
+    synchronized void publishUnsequenced(String eventName, String json) {
+        unsequencedAfter = lastId;
+        append(PreparedSseEvent.of(0, eventName, json));
+    }
+
+    /** Nhận bản tin đã có id (từ Redis); bản tin trùng hoặc cũ hơn bản tin cuối bị bỏ qua. */
+    synchronized void accept(PreparedSseEvent event) {
+        if (event.id() > 0 && event.id() <= lastId) {
+            return;
+        }
+        append(event);
+    }
+
+    /**
+     * Gắn client mới, gửi {@code init} rồi phát lại các bản tin sau {@code lastEventId}. Nếu khoảng
+     * bị lỡ đã trôi khỏi vòng đệm, client nhận {@code resyncEvent} để tự tải lại toàn bộ dữ liệu.
+     */
+    synchronized void attach(SseClient client, PreparedSseEvent init, Long lastEventId,
+            PreparedSseEvent resyncEvent) {
+        clients.add(client);
+        idleSince = 0;
+        enqueue.accept(client, init);
+        if (lastEventId == null) {
+            return;
+        }
+        if (lastEventId <= unsequencedAfter) {
+            enqueue.accept(client, resyncEvent);
+            return;
+        }
+        if (lastEventId == lastId) {
+            return;
+        }
+        long oldestId = size == 0 ? lastId + 1 : ring[(next - size + ring.length) % ring.length].id();
+        if (lastEventId > lastId || lastEventId + 1 < oldestId) {
+            enqueue.accept(client, resyncEvent);
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            PreparedSseEvent event = ring[(next - size + i + ring.length) % ring.length];
+            if (event.id() > lastEventId) {
+                enqueue.accept(client, event);
+            }
+        }
+    }
+
+    synchronized void detach(SseClient client) {
+        clients.remove(client);
+        if (clients.isEmpty()) {
+            idleSince = System.currentTimeMillis();
+        }
+    }
+
+    private void append(PreparedSseEvent event) {
+        if (event.id() > 0) {
+            lastId = event.id();
+            if (ring[next] != null) {
+                replayBytes -= ring[next].size();
+            }
+            replayBytes += event.size();
+            ring[next] = event;
+            next = (next + 1) % ring.length;
+            size = Math.min(size + 1, ring.length);
+        }
+        for (SseClient client : clients) {
+            enqueue.accept(client, event);
+        }
+    }
+}
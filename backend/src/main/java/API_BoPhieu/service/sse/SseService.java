@@ -1,9 +1,20 @@
 package API_BoPhieu.service.sse;
 
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import API_BoPhieu.dto.sse.SseConnectionStats;
 
 public interface SseService {
-    void addEmitter(Integer eventId, SseEmitter emitter);
+    /**
+     * Tạo và đăng ký kết nối SSE cho sự kiện; {@code lastEventId} lấy từ header
+     * {@code Last-Event-ID} khi trình duyệt kết nối lại, null với kết nối mới.
+     *
+     * @throws API_BoPhieu.exception.SseCapacityException khi đã đủ số kết nối cho phép
+     */
+    SseEmitter subscribe(Integer eventId, Long lastEventId);
 
     void sendEventToClients(Integer eventId, String eventName, Object data);
+
+    boolean hasClients(Integer eventId);
+
+    SseConnectionStats getStats(boolean includeClients);
 }
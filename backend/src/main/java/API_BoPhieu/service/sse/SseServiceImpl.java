@@ -1,63 +1,410 @@
 package API_BoPhieu.service.sse;
 
-import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import API_BoPhieu.constants.SlowConsumerPolicy;
+import API_BoPhieu.dto.sse.SseClientStats;
+import API_BoPhieu.dto.sse.SseConnectionStats;
+import API_BoPhieu.dto.sse.SseEventConnections;
+import API_BoPhieu.exception.SseCapacityException;
+import jakarta.annotation.PreDestroy;
 
+/**
+ * Phát sự kiện SSE: payload được serialize một lần thành bản tin dùng chung, sau đó mỗi client nhận
+ * bản tin qua hàng đợi riêng có giới hạn và được gửi trên executor riêng. Luồng gọi (thường đang
+ * trong transaction check-in/bỏ phiếu) chỉ xếp hàng rồi trả về, không chờ socket của client nào.
+ * Với {@code app.sse.mode=redis}, bản tin đi qua {@link SseClusterRelay} để tới client của mọi
+ * replica.
+ *
+ * <p>Mỗi bản tin mang id tăng dần theo sự kiện. Các bản tin gần nhất được giữ trong vòng đệm của
+ * {@link SseEventStream} để client kết nối lại với {@code Last-Event-ID} nhận đúng phần bị lỡ;
+ * vòng đệm được giữ thêm một thời gian sau khi client cuối cùng rời đi.
+ *
+ * <p>Số kết nối bị giới hạn trên toàn replica và theo từng sự kiện; kết nối vượt hạn mức bị từ chối
+ * ngay trước khi tạo emitter. Một lượt quét định kỳ gửi heartbeat cho các client đang rảnh và dọn
+ * các kết nối half-open có lệnh ghi bị treo quá lâu.
+ */
 @Service
 public class SseServiceImpl implements SseService {
     private static final Logger log = LoggerFactory.getLogger(SseServiceImpl.class);
-    private final Map<Integer, List<SseEmitter>> EMMITTERS_BY_EVENT_ID = new ConcurrentHashMap<>();
+    static final String RESYNC_EVENT = "resync";
+    private static final PreparedSseEvent HEARTBEAT = PreparedSseEvent.ofComment("hb");
+
+    private final Map<Integer, SseEventStream> streamsByEvent = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor deliveryExecutor;
+    private final int deliveryThreads;
+    private final int maxStalledWriters;
+    /** Số luồng gửi đang bị lệnh ghi treo giữ và đã được bù bằng luồng mới. */
+    private int stalledWriters;
+    private final SseClient.SendFailureHandler deliveryHandler = new SseClient.SendFailureHandler() {
+        @Override
+        public void onSendFailure(SseClient client, Exception cause) {
+            SseServiceImpl.this.onSendFailure(client, cause);
+        }
+
+        @Override
+        public void onStalledSendEnded(SseClient client) {
+            releaseStalledWriter();
+        }
+    };
+    private final int queueCapacity;
+    private final SlowConsumerPolicy slowConsumerPolicy;
+    private final int replaySize;
+    private final Duration replayRetention;
+    private final SseClusterRelay clusterRelay;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final int maxConnections;
+    private final int maxConnectionsPerEvent;
+    private final long clientMaxQueuedBytes;
+    private final Duration emitterTimeout;
+    private final long heartbeatIntervalMillis;
+    private final Duration stallTimeout;
+    private final Duration rejectRetryAfter;
+
+    public SseServiceImpl(ObjectMapper objectMapper, Optional<SseClusterRelay> clusterRelay,
+            @Value("${app.sse.delivery-threads:4}") int deliveryThreads,
+            @Value("${app.sse.max-stalled-writers:32}") int maxStalledWriters,
+            @Value("${app.sse.client-queue-capacity:256}") int queueCapacity,
+            @Value("${app.sse.client-max-queued-bytes:1048576}") long clientMaxQueuedBytes,
+            @Value("${app.sse.slow-consumer-policy:DROP_OLDEST}") SlowConsumerPolicy slowConsumerPolicy,
+            @Value("${app.sse.replay.buffer-size:256}") int replaySize,
+            @Value("${app.sse.replay.retention:PT10M}") Duration replayRetention,
+            @Value("${app.sse.max-connections:10000}") int maxConnections,
+            @Value("${app.sse.max-connections-per-event:2000}") int maxConnectionsPerEvent,
+            @Value("${app.sse.emitter-timeout:PT30M}") Duration emitterTimeout,
+            @Value("${app.sse.heartbeat-interval-ms:15000}") long heartbeatIntervalMillis,
+            @Value("${app.sse.stall-timeout:PT45S}") Duration stallTimeout,
+            @Value("${app.sse.reject-retry-after:PT10S}") Duration rejectRetryAfter) {
+        this.objectMapper = objectMapper;
+        this.deliveryExecutor = new ThreadPoolExecutor(deliveryThreads, deliveryThreads, 0L,
+                TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("sse-delivery-"));
+        this.deliveryThreads = deliveryThreads;
+        this.maxStalledWriters = maxStalledWriters;
+        this.queueCapacity = queueCapacity;
+        this.clientMaxQueuedBytes = clientMaxQueuedBytes;
+        this.slowConsumerPolicy = slowConsumerPolicy;
+        this.replaySize = replaySize;
+        this.replayRetention = replayRetention;
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerEvent = maxConnectionsPerEvent;
+        this.emitterTimeout = emitterTimeout;
+        this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+        this.stallTimeout = stallTimeout;
+        this.rejectRetryAfter = rejectRetryAfter;
+        this.clusterRelay = clusterRelay.orElse(null);
+        if (this.clusterRelay != null) {
+            this.clusterRelay.setLocalDelivery(this::acceptRemote, streamsByEvent::containsKey);
+        }
+    }
 
     @Override
-    public void addEmitter(Integer eventId, SseEmitter emitter) {
-        List<SseEmitter> emitters = this.EMMITTERS_BY_EVENT_ID.computeIfAbsent(eventId,
-                k -> new CopyOnWriteArrayList<>());
-        emitters.add(emitter);
-        log.info("SSE: Client mới đã kết nối tới sự kiện ID {}. Tổng số client: {}", eventId, emitters.size());
+    public SseEmitter subscribe(Integer eventId, Long lastEventId) {
+        // Từ chối sớm, trước khi tạo emitter và chiếm slot async của Tomcat
+        SseEventStream existing = this.streamsByEvent.get(eventId);
+        if (existing != null && existing.getClients().size() >= maxConnectionsPerEvent) {
+            throw rejected("Sự kiện " + eventId + " đã đủ " + maxConnectionsPerEvent
+                    + " kết nối SSE");
+        }
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw rejected("Máy chủ đã đủ " + maxConnections + " kết nối SSE");
+        }
 
-        emitter.onCompletion(() -> removeEmitter(eventId, emitter, "COMPLETED"));
-        emitter.onTimeout(() -> removeEmitter(eventId, emitter, "TIMED_OUT"));
-        emitter.onError(e -> removeEmitter(eventId, emitter, "ERROR"));
+        SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        SseClient client = new SseClient(eventId, emitter, queueCapacity, clientMaxQueuedBytes);
+        PreparedSseEvent init = PreparedSseEvent.of(0, "INIT",
+                "Kết nối SSE thành công tới sự kiện " + eventId);
+        PreparedSseEvent resync = PreparedSseEvent.of(0, RESYNC_EVENT,
+                "{\"last_event_id\":" + lastEventId + "}");
+        AtomicBoolean attached = new AtomicBoolean();
+        // compute giữ khóa theo sự kiện nên việc tạo/dọn luồng và kiểm tra hạn mức không chồng chéo;
+        // đăng ký kênh Redis cần I/O nên chạy sau, ngoài khóa
+        SseEventStream stream = this.streamsByEvent.compute(eventId, (k, current) -> {
+            if (current == null) {
+                current = new SseEventStream(eventId, replaySize, this::enqueue);
+            } else if (current.getClients().size() >= maxConnectionsPerEvent) {
+                return current;
+            }
+            current.attach(client, init, lastEventId, resync);
+            attached.set(true);
+            return current;
+        });
+        if (!attached.get()) {
+            connections.decrementAndGet();
+            throw rejected("Sự kiện " + eventId + " đã đủ " + maxConnectionsPerEvent
+                    + " kết nối SSE");
+        }
+        if (clusterRelay != null) {
+            clusterRelay.syncSubscription(eventId);
+        }
+        log.info("SSE: Client mới đã kết nối tới sự kiện ID {} (Last-Event-ID: {}). Tổng số client: {}",
+                eventId, lastEventId, stream.getClients().size());
+
+        emitter.onCompletion(() -> removeClient(client, "COMPLETED"));
+        emitter.onTimeout(() -> {
+            // Client kết nối lại với Last-Event-ID và nhận phần bị lỡ từ vòng đệm
+            removeClient(client, "TIMED_OUT");
+            emitter.complete();
+        });
+        emitter.onError(e -> removeClient(client, "ERROR"));
+        return emitter;
+    }
+
+    private SseCapacityException rejected(String message) {
+        log.warn("SSE: Từ chối kết nối mới: {}", message);
+        return new SseCapacityException(message, rejectRetryAfter.toSeconds());
     }
 
-    private void removeEmitter(Integer eventId, SseEmitter emitter, String reason) {
-        List<SseEmitter> emitters = this.EMMITTERS_BY_EVENT_ID.get(eventId);
-        if (emitters != null) {
-            emitters.remove(emitter);
-            log.info("SSE: Client đã ngắt kết nối khỏi sự kiện ID {} vì lý do: {}. Số client còn lại: {}", eventId,
-                    reason, emitters.size());
+    private void removeClient(SseClient client, String reason) {
+        if (client.markClosed()) {
+            detach(client, reason);
+        }
+    }
+
+    /** Chỉ được gọi một lần cho mỗi client, sau khi {@link SseClient#markClosed()} trả về true. */
+    private void detach(SseClient client, String reason) {
+        connections.decrementAndGet();
+        SseEventStream stream = this.streamsByEvent.get(client.getEventId());
+        if (stream != null) {
+            stream.detach(client);
+            log.info("SSE: Client đã ngắt kết nối khỏi sự kiện ID {} vì lý do: {}. Số client còn lại: {}",
+                    client.getEventId(), reason, stream.getClients().size());
         }
     }
 
+    @Override
+    public boolean hasClients(Integer eventId) {
+        SseEventStream stream = this.streamsByEvent.get(eventId);
+        if (stream != null && !stream.getClients().isEmpty()) {
+            return true;
+        }
+        return clusterRelay != null && clusterRelay.hasSubscribers(eventId);
+    }
+
     @Override
     public void sendEventToClients(Integer eventId, String eventName, Object data) {
-        List<SseEmitter> emitters = this.EMMITTERS_BY_EVENT_ID.get(eventId);
-        if (emitters == null || emitters.isEmpty()) {
+        // Luồng vẫn còn (dù tạm thời không có client) thì bản tin phải vào vòng đệm để phát lại
+        SseEventStream stream = this.streamsByEvent.get(eventId);
+        if (clusterRelay == null && stream == null) {
+            return;
+        }
+        String json;
+        try {
+            json = data instanceof String text ? text : objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            log.error("SSE: Không thể serialize sự kiện '{}' của sự kiện ID {}", eventName, eventId, e);
             return;
         }
-        log.debug("SSE: Gửi sự kiện '{}' đến {} client của sự kiện ID {}", eventName, emitters.size(), eventId);
+        if (clusterRelay != null) {
+            // Ở chế độ cụm, id do Redis cấp và mọi replica (kể cả replica này) nhận qua kênh Redis.
+            // Khi Redis lỗi, bản tin chỉ tới client của replica này và không kèm id: id tự cấp sẽ
+            // trùng id Redis cấp sau đó và bản tin thật bị bỏ như bản trùng
+            clusterRelay.publish(eventId, PreparedSseEvent.of(0, eventName, json),
+                    () -> publishUnsequenced(eventId, eventName, json));
+        } else {
+            PreparedSseEvent event = stream.publish(eventName, json);
+            log.debug("SSE: Gửi sự kiện '{}' (id {}, {} byte) của sự kiện ID {}", eventName,
+                    event.id(), event.size(), eventId);
+        }
+    }
 
-        List<SseEmitter> deadEmitters = new CopyOnWriteArrayList<>();
-        emitters.forEach(emitter -> {
-            try {
-                emitter.send(SseEmitter.event().name(eventName).data(data));
-            } catch (IOException e) {
-                log.warn("SSE: Không thể gửi sự kiện đến một client, đánh dấu để xóa. Sự kiện ID {}", eventId);
-                deadEmitters.add(emitter);
+    /**
+     * Một lượt quét trên luồng scheduler: client có lệnh ghi bị treo quá {@code stall-timeout} bị
+     * dọn; client rảnh lâu hơn nửa chu kỳ nhận một dòng chú thích để proxy không cắt kết nối và để
+     * kết nối đã chết lộ ra qua lỗi ghi. Việc ghi vẫn diễn ra trên executor gửi.
+     */
+    @Scheduled(fixedDelayString = "${app.sse.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        long stalledBefore = now - stallTimeout.toMillis();
+        long quietBefore = now - heartbeatIntervalMillis / 2;
+        int heartbeats = 0;
+        int reaped = 0;
+        for (SseEventStream stream : streamsByEvent.values()) {
+            for (SseClient client : stream.getClients()) {
+                if (client.isClosed()) {
+                    continue;
+                }
+                if (client.isStalledSince(stalledBefore)) {
+                    reap(client);
+                    reaped++;
+                } else if (client.isIdle() && client.getLastSentAt() < quietBefore) {
+                    enqueue(client, HEARTBEAT);
+                    heartbeats++;
+                }
             }
-        });
+        }
+        if (reaped > 0) {
+            log.warn("SSE: Đã dọn {} kết nối không phản hồi quá {} giây", reaped,
+                    stallTimeout.toSeconds());
+        }
+        log.debug("SSE: Gửi heartbeat tới {} client, tổng số kết nối: {}", heartbeats,
+                connections.get());
+    }
 
-        if (!deadEmitters.isEmpty()) {
-            emitters.removeAll(deadEmitters);
-            log.info("SSE: Đã xóa {} client không hoạt động khỏi sự kiện ID {}", deadEmitters.size(), eventId);
+    @Override
+    public SseConnectionStats getStats(boolean includeClients) {
+        List<SseEventConnections> events = new ArrayList<>();
+        long totalQueued = 0;
+        long totalReplay = 0;
+        for (SseEventStream stream : streamsByEvent.values()) {
+            List<SseClientStats> clients = includeClients ? new ArrayList<>() : null;
+            long queued = 0;
+            int open = 0;
+            for (SseClient client : stream.getClients()) {
+                if (client.isClosed()) {
+                    continue;
+                }
+                open++;
+                long clientQueued = Math.max(client.getQueuedBytes(), 0);
+                queued += clientQueued;
+                if (clients != null) {
+                    clients.add(SseClientStats.builder()
+                            .connectedAt(Instant.ofEpochMilli(client.getConnectedAt()))
+                            .lastSentAt(Instant.ofEpochMilli(client.getLastSentAt()))
+                            .queuedEvents(client.getQueuedEvents()).queuedBytes(clientQueued)
+                            .sentBytes(client.getSentBytes()).build());
+                }
+            }
+            long replay = stream.getReplayBytes();
+            totalQueued += queued;
+            totalReplay += replay;
+            events.add(SseEventConnections.builder().eventId(stream.getEventId())
+                    .connections(open).queuedBytes(queued).replayBytes(replay).clients(clients)
+                    .build());
         }
+        return SseConnectionStats.builder().connections(connections.get())
+                .maxConnections(maxConnections).maxConnectionsPerEvent(maxConnectionsPerEvent)
+                .queuedBytes(totalQueued).replayBytes(totalReplay).events(events).build();
+    }
+
+    @Scheduled(fixedDelayString = "${app.sse.replay.sweep-interval-ms:60000}")
+    public void evictIdleStreams() {
+        long threshold = System.currentTimeMillis() - replayRetention.toMillis();
+        for (Integer eventId : streamsByEvent.keySet()) {
+            SseEventStream remaining = this.streamsByEvent.computeIfPresent(eventId, (k, stream) -> {
+                if (!stream.getClients().isEmpty() || stream.getIdleSince() == 0
+                        || stream.getIdleSince() > threshold) {
+                    return stream;
+                }
+                return null;
+            });
+            if (remaining == null && clusterRelay != null) {
+                clusterRelay.syncSubscription(eventId);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deliveryExecutor.shutdownNow();
+    }
+
+    private void publishUnsequenced(Integer eventId, String eventName, String json) {
+        SseEventStream stream = this.streamsByEvent.get(eventId);
+        if (stream != null) {
+            stream.publishUnsequenced(eventName, json);
+        }
+    }
+
+    private void acceptRemote(Integer eventId, PreparedSseEvent event) {
+        SseEventStream stream = this.streamsByEvent.get(eventId);
+        if (stream != null) {
+            stream.accept(event);
+        }
+    }
+
+    private void enqueue(SseClient client, PreparedSseEvent event) {
+        if (!client.offer(event)) {
+            if (slowConsumerPolicy == SlowConsumerPolicy.DISCONNECT) {
+                log.warn("SSE: Client của sự kiện ID {} đọc quá chậm, đóng kết nối",
+                        client.getEventId());
+                disconnect(client, "SLOW_CONSUMER");
+                return;
+            }
+            client.replaceOldest(event);
+        }
+        client.schedule(deliveryExecutor, deliveryHandler);
+    }
+
+    private void onSendFailure(SseClient client, Exception cause) {
+        log.warn("SSE: Không thể gửi sự kiện đến một client, đánh dấu để xóa. Sự kiện ID {}: {}",
+                client.getEventId(), cause.getMessage());
+        disconnect(client, "SEND_FAILED");
+    }
+
+    /**
+     * Dọn client có lệnh ghi bị treo: gỡ khỏi sự kiện và giải phóng hạn mức ngay. Lệnh ghi giữ khóa
+     * của emitter nên {@code complete()} cũng sẽ bị chặn và không thể gỡ nó; thay vào đó executor
+     * gửi được thêm một luồng để các client khác không phải chờ. Lệnh ghi treo lỗi khi hết write
+     * timeout của Tomcat hoặc khi emitter hết hạn, lúc đó luồng thêm được trả lại.
+     */
+    private void reap(SseClient client) {
+        if (client.markClosed()) {
+            detach(client, "STALLED");
+        }
+        if (client.isStalledSince(System.currentTimeMillis()) && addStalledWriter()
+                && !client.compensate()) {
+            // Lệnh ghi vừa kết thúc hoặc đã được bù trước đó
+            releaseStalledWriter();
+        }
+    }
+
+    private synchronized boolean addStalledWriter() {
+        if (stalledWriters >= maxStalledWriters) {
+            log.warn("SSE: Đã có {} luồng gửi bị treo, không thêm luồng bù", stalledWriters);
+            return false;
+        }
+        stalledWriters++;
+        int size = deliveryThreads + stalledWriters;
+        // Tăng max trước core, giảm core trước max để core không bao giờ vượt max
+        deliveryExecutor.setMaximumPoolSize(size);
+        deliveryExecutor.setCorePoolSize(size);
+        return true;
+    }
+
+    private synchronized void releaseStalledWriter() {
+        stalledWriters--;
+        int size = deliveryThreads + stalledWriters;
+        deliveryExecutor.setCorePoolSize(size);
+        deliveryExecutor.setMaximumPoolSize(size);
+    }
+
+    private void disconnect(SseClient client, String reason) {
+        if (!client.markClosed()) {
+            return;
+        }
+        // Có thể được gọi khi đang giữ khóa của SseEventStream, nên việc gỡ client cũng đẩy sang
+        // luồng gửi; complete() có thể chạm tới socket
+        deliveryExecutor.execute(() -> {
+            detach(client, reason);
+            try {
+                client.getEmitter().complete();
+            } catch (RuntimeException e) {
+                log.debug("SSE: Bỏ qua lỗi khi đóng kết nối: {}", e.getMessage());
+            }
+        });
     }
 }
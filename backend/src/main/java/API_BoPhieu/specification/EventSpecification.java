@@ -1,5 +1,7 @@
 package API_BoPhieu.specification;
 
+import java.util.Collection;
+
 import org.springframework.data.jpa.domain.Specification;
 
 import API_BoPhieu.constants.EventStatus;
@@ -62,6 +64,11 @@ public class EventSpecification {
         };
     }
 
+    public static Specification<Event> hasIdIn(Collection<Integer> ids) {
+        return (root, query, criteriaBuilder) -> root.get("id").in(ids);
+    }
+
+    /** Tìm bằng LIKE trên DB; chỉ dùng khi chỉ mục tìm kiếm chưa sẵn sàng. */
     public static Specification<Event> searchByKeyword(String keyword) {
         return (root, query, criteriaBuilder) -> {
             if (keyword == null || keyword.trim().isEmpty()) {
@@ -0,0 +1,81 @@
+package API_BoPhieu.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class HierarchicalTimingWheelTests {
+    private static final Instant START = Instant.ofEpochMilli(1_000_000);
+
+    /** Ô 100ms, 10 ô mỗi tầng: tầng 2 rộng 1s/ô, tầng 3 rộng 10s/ô. */
+    private final HierarchicalTimingWheel<String> wheel =
+            new HierarchicalTimingWheel<>(100, 10, START);
+
+    @Test
+    void cascadesKeysFromUpperLevelsDownToTheirExactTick() {
+        wheel.schedule("near", at(300));
+        wheel.schedule("second-level", at(2_500));
+        wheel.schedule("third-level", at(15_000));
+
+        assertEquals(List.of("near"), wheel.advance(at(1_000)));
+        assertEquals(List.of(), wheel.advance(at(2_499)));
+        assertEquals(List.of("second-level"), wheel.advance(at(2_500)));
+        assertEquals(List.of(), wheel.advance(at(14_999)));
+        assertEquals(List.of("third-level"), wheel.advance(at(15_000)));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void returnsDueKeysInDeadlineOrder() {
+        wheel.schedule("late", at(2_300));
+        wheel.schedule("early", at(200));
+        wheel.schedule("middle", at(1_200));
+
+        assertEquals(List.of("early", "middle", "late"), wheel.advance(at(5_000)));
+    }
+
+    @Test
+    void roundsDeadlinesUpToTheNextTick() {
+        wheel.schedule("key", at(250));
+
+        assertEquals(List.of(), wheel.advance(at(299)));
+        assertEquals(List.of("key"), wheel.advance(at(300)));
+    }
+
+    @Test
+    void cancelledKeysAreNeverReturned() {
+        wheel.schedule("kept", at(2_500));
+        wheel.schedule("cancelled", at(2_500));
+        wheel.schedule("cancelled-after-cascade", at(2_700));
+
+        wheel.cancel("cancelled");
+        assertEquals(List.of(), wheel.advance(at(2_000)));
+        // Khóa đã được hạ xuống tầng thấp nhất vẫn phải hủy được
+        wheel.cancel("cancelled-after-cascade");
+
+        assertEquals(List.of("kept"), wheel.advance(at(3_000)));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void reschedulingReplacesThePreviousDeadline() {
+        wheel.schedule("key", at(500));
+        wheel.schedule("key", at(1_500));
+
+        assertEquals(List.of(), wheel.advance(at(1_000)));
+        assertEquals(List.of("key"), wheel.advance(at(1_500)));
+    }
+
+    @Test
+    void keysScheduledInThePastAreReturnedOnTheNextAdvance() {
+        wheel.advance(at(1_000));
+        wheel.schedule("overdue", at(200));
+
+        assertEquals(List.of("overdue"), wheel.advance(at(1_000)));
+    }
+
+    private static Instant at(long offsetMillis) {
+        return START.plusMillis(offsetMillis);
+    }
+}
@@ -0,0 +1,244 @@
+package API_BoPhieu.service.attendant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import API_BoPhieu.constants.CheckInOutcome;
+import API_BoPhieu.dto.attendant.BatchCheckInEntry;
+import API_BoPhieu.dto.attendant.BatchCheckInRequest;
+import API_BoPhieu.dto.attendant.BatchCheckInResponse;
+import API_BoPhieu.dto.attendant.BatchCheckInResult;
+import API_BoPhieu.dto.attendant.ParticipantResponse;
+import API_BoPhieu.entity.Attendant;
+import API_BoPhieu.entity.Event;
+import API_BoPhieu.entity.Unit;
+import API_BoPhieu.entity.User;
+import API_BoPhieu.repository.AttendantBatchRepository;
+import API_BoPhieu.repository.AttendantRepository;
+import API_BoPhieu.repository.EventManagerRepository;
+import API_BoPhieu.repository.EventRepository;
+import API_BoPhieu.repository.ParticipantQueryRepository;
+import API_BoPhieu.repository.UnitRepository;
+import API_BoPhieu.repository.UserRepository;
+import API_BoPhieu.service.event.EventAdmissionControl;
+
+class AttendantServiceImplBatchCheckInTests {
+    private static final Integer EVENT_ID = 7;
+
+    private final Instant now = Instant.now();
+    private final CheckInTokenSigner signer = new CheckInTokenSigner("test-secret");
+    private AttendantRepository attendantRepository;
+    private AttendantBatchRepository attendantBatchRepository;
+    private UserRepository userRepository;
+    private EventRepository eventRepository;
+    private ParticipantDetailsLoader participantDetailsLoader;
+    private ApplicationEventPublisher eventPublisher;
+    private AttendantServiceImpl attendantService;
+
+    @BeforeEach
+    void setUp() {
+        attendantRepository = mock(AttendantRepository.class);
+        attendantBatchRepository = mock(AttendantBatchRepository.class);
+        userRepository = mock(UserRepository.class);
+        eventRepository = mock(EventRepository.class);
+        participantDetailsLoader = mock(ParticipantDetailsLoader.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        attendantService = new AttendantServiceImpl(attendantRepository,
+                attendantBatchRepository, mock(QRCodeService.class), userRepository,
+                eventRepository, mock(EventManagerRepository.class), mock(UnitRepository.class),
+                mock(EventAdmissionControl.class), mock(ParticipantQueryRepository.class),
+                new ObjectMapper(), signer, participantDetailsLoader, eventPublisher);
+        ReflectionTestUtils.setField(attendantService, "batchCheckInMaxEntries", 1000);
+        ReflectionTestUtils.setField(attendantService, "batchCheckInMaxClockSkew",
+                Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(attendantService, "checkInValidBeforeStart",
+                Duration.ofHours(2));
+
+        Event event = new Event();
+        event.setId(EVENT_ID);
+        event.setStartTime(now.minus(Duration.ofHours(1)));
+        when(eventRepository.findById(EVENT_ID)).thenReturn(Optional.of(event));
+        when(participantDetailsLoader.loadUnits(any())).thenReturn(Map.of(3, unit(3)));
+    }
+
+    @Test
+    void reportsOutcomeOfEveryScan() {
+        Instant registeredAt = now.minus(Duration.ofMinutes(40));
+        Instant scanned = now.minus(Duration.ofMinutes(30));
+        givenUsers(user(1), user(2), user(3), user(4), user(5));
+        givenAttendants(attendant(1, null), attendant(3, registeredAt),
+                attendant(4, now.minus(Duration.ofMinutes(10))), attendant(5, null));
+
+        BatchCheckInResponse response = batchCheckIn(
+                BatchCheckInEntry.builder().userId(1).scanTime(scanned).build(),
+                BatchCheckInEntry.builder().userId(2).scanTime(scanned).build(),
+                BatchCheckInEntry.builder().userId(3).scanTime(scanned).build(),
+                BatchCheckInEntry.builder().userId(4).scanTime(scanned).build(),
+                BatchCheckInEntry.builder().userId(99).scanTime(scanned).build(),
+                BatchCheckInEntry.builder().token("not-a-token").build(),
+                BatchCheckInEntry.builder().build(),
+                BatchCheckInEntry.builder().token(signer.sign(EVENT_ID, 5,
+                        now.minus(Duration.ofHours(1)), now.plus(Duration.ofHours(1)))).build());
+
+        assertEquals(List.of(CheckInOutcome.CHECKED_IN, CheckInOutcome.NOT_REGISTERED,
+                CheckInOutcome.ALREADY_CHECKED_IN, CheckInOutcome.EARLIER_TIME_RECORDED,
+                CheckInOutcome.USER_NOT_FOUND, CheckInOutcome.INVALID_ENTRY,
+                CheckInOutcome.INVALID_ENTRY, CheckInOutcome.CHECKED_IN), outcomes(response));
+        assertEquals(registeredAt, response.getResults().get(2).getCheckInTime());
+        assertEquals(3, response.getCheckedIn());
+        assertEquals(1, response.getAlreadyCheckedIn());
+        assertEquals(4, response.getFailed());
+        verify(attendantBatchRepository).markCheckedInEarliest(eq(EVENT_ID),
+                eq(List.of(1, 4, 5)), anyList());
+    }
+
+    @Test
+    void keepsEarliestOfRepeatedScans() {
+        Instant first = now.minus(Duration.ofMinutes(20));
+        givenUsers(user(1));
+        givenAttendants(attendant(1, null));
+
+        BatchCheckInResponse response = batchCheckIn(
+                BatchCheckInEntry.builder().userId(1).scanTime(now.minus(Duration.ofMinutes(5)))
+                        .build(),
+                BatchCheckInEntry.builder().userId(1).scanTime(first).build(),
+                BatchCheckInEntry.builder().userId(1).scanTime(now).build());
+
+        assertEquals(List.of(CheckInOutcome.DUPLICATE, CheckInOutcome.CHECKED_IN,
+                CheckInOutcome.DUPLICATE), outcomes(response));
+        assertEquals(first, response.getResults().get(1).getCheckInTime());
+        verify(attendantBatchRepository).markCheckedInEarliest(EVENT_ID, List.of(1),
+                List.of(first));
+    }
+
+    @Test
+    void rejectsScanTimesOutsideTheAcceptedWindow() {
+        givenUsers(user(1), user(2));
+        givenAttendants(attendant(1, null), attendant(2, null));
+
+        BatchCheckInResponse response = batchCheckIn(
+                // Trước khi mã check-in có hiệu lực (bắt đầu 1 giờ trước, nhận sớm 2 giờ)
+                BatchCheckInEntry.builder().userId(1).scanTime(now.minus(Duration.ofHours(4)))
+                        .build(),
+                // Quá độ lệch đồng hồ cho phép
+                BatchCheckInEntry.builder().userId(2).scanTime(now.plus(Duration.ofMinutes(10)))
+                        .build());
+
+        assertEquals(List.of(CheckInOutcome.INVALID_ENTRY, CheckInOutcome.INVALID_ENTRY),
+                outcomes(response));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void rejectsTokenOfAnotherEvent() {
+        givenUsers(user(1));
+        String token = signer.sign(EVENT_ID + 1, 1, now.minus(Duration.ofHours(1)),
+                now.plus(Duration.ofHours(1)));
+
+        BatchCheckInResponse response =
+                batchCheckIn(BatchCheckInEntry.builder().token(token).build());
+
+        assertEquals(List.of(CheckInOutcome.INVALID_ENTRY), outcomes(response));
+        assertNull(response.getResults().get(0).getUserId());
+    }
+
+    @Test
+    void publishesFullParticipantDetailsForCheckedInScans() {
+        Instant scanned = now.minus(Duration.ofMinutes(30));
+        givenUsers(user(1));
+        givenAttendants(attendant(1, null));
+
+        batchCheckIn(BatchCheckInEntry.builder().email(" User1@Example.com ").scanTime(scanned)
+                .build());
+
+        ArgumentCaptor<ParticipantCheckedInEvent> captor =
+                ArgumentCaptor.forClass(ParticipantCheckedInEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        ParticipantCheckedInEvent published = captor.getValue();
+        assertEquals(1, published.getParticipants().size());
+        ParticipantResponse participant = published.getParticipants().get(0);
+        assertEquals(scanned, participant.getCheckInTime());
+        assertEquals("0900000001", participant.getUser().getPhoneNumber());
+        assertEquals("Đơn vị 3", participant.getUser().getUnit().getUnitName());
+        assertEquals(1, published.getArrivals().size());
+    }
+
+    private BatchCheckInResponse batchCheckIn(BatchCheckInEntry... entries) {
+        return attendantService.batchCheckIn(EVENT_ID,
+                BatchCheckInRequest.builder().entries(List.of(entries)).build(),
+                "staff@example.com");
+    }
+
+    private void givenUsers(User... users) {
+        when(userRepository.findAllById(anyList())).thenAnswer(invocation -> {
+            List<Integer> ids = invocation.getArgument(0);
+            return List.of(users).stream().filter(user -> ids.contains(user.getId()))
+                    .collect(Collectors.toList());
+        });
+        when(userRepository.findAllByEmailIn(anyList())).thenAnswer(invocation -> {
+            List<String> emails = invocation.getArgument(0);
+            return List.of(users).stream()
+                    .filter(user -> emails.contains(user.getEmail().toLowerCase()))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    private void givenAttendants(Attendant... attendants) {
+        when(attendantRepository.findAllByEventIdAndUserIdInForUpdate(eq(EVENT_ID), anyList()))
+                .thenAnswer(invocation -> {
+                    List<Integer> userIds = invocation.getArgument(1);
+                    return List.of(attendants).stream()
+                            .filter(attendant -> userIds.contains(attendant.getUserId()))
+                            .collect(Collectors.toList());
+                });
+    }
+
+    private static List<CheckInOutcome> outcomes(BatchCheckInResponse response) {
+        return response.getResults().stream().map(BatchCheckInResult::getOutcome)
+                .collect(Collectors.toList());
+    }
+
+    private static User user(Integer id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail("User" + id + "@example.com");
+        user.setName("Người dùng " + id);
+        user.setPhoneNumber(String.format("09%08d", id));
+        user.setUnitId(3);
+        return user;
+    }
+
+    private static Unit unit(Integer id) {
+        Unit unit = new Unit();
+        unit.setId(id);
+        unit.setUnitName("Đơn vị " + id);
+        return unit;
+    }
+
+    private static Attendant attendant(Integer userId, Instant checkedTime) {
+        Attendant attendant = new Attendant();
+        attendant.setId(100 + userId);
+        attendant.setEventId(EVENT_ID);
+        attendant.setUserId(userId);
+        attendant.setCheckedTime(checkedTime);
+        return attendant;
+    }
+}
@@ -0,0 +1,84 @@
+package API_BoPhieu.service.attendant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import org.junit.jupiter.api.Test;
+import API_BoPhieu.constants.CheckInTokenStatus;
+import API_BoPhieu.dto.attendant.CheckInTokenClaims;
+
+class CheckInTokenSignerTests {
+    private final CheckInTokenSigner signer = new CheckInTokenSigner("test-secret");
+    private final Instant now = Instant.now();
+
+    @Test
+    void acceptsTokenInsideItsValidityWindow() {
+        String token = signer.sign(7, 42, now.minus(Duration.ofHours(1)),
+                now.plus(Duration.ofHours(1)));
+
+        CheckInTokenClaims claims = signer.verify(token);
+
+        assertEquals(CheckInTokenStatus.VALID, claims.getStatus());
+        assertEquals(7, claims.getEventId());
+        assertEquals(42, claims.getUserId());
+    }
+
+    @Test
+    void rejectsTamperedPayload() {
+        byte[] token = decode(signer.sign(7, 42, now.minus(Duration.ofHours(1)),
+                now.plus(Duration.ofHours(1))));
+        // Byte cuối của userId
+        token[8] ^= 1;
+
+        assertEquals(CheckInTokenStatus.BAD_SIGNATURE, signer.verify(encode(token)).getStatus());
+    }
+
+    @Test
+    void rejectsTamperedSignature() {
+        byte[] token = decode(signer.sign(7, 42, now.minus(Duration.ofHours(1)),
+                now.plus(Duration.ofHours(1))));
+        token[token.length - 1] ^= 1;
+
+        assertEquals(CheckInTokenStatus.BAD_SIGNATURE, signer.verify(encode(token)).getStatus());
+    }
+
+    @Test
+    void rejectsTokenSignedWithAnotherSecret() {
+        String token = new CheckInTokenSigner("other-secret").sign(7, 42,
+                now.minus(Duration.ofHours(1)), now.plus(Duration.ofHours(1)));
+
+        assertEquals(CheckInTokenStatus.BAD_SIGNATURE, signer.verify(token).getStatus());
+    }
+
+    @Test
+    void reportsExpiredToken() {
+        String token = signer.sign(7, 42, now.minus(Duration.ofHours(2)),
+                now.minus(Duration.ofMinutes(2)));
+
+        assertEquals(CheckInTokenStatus.EXPIRED, signer.verify(token).getStatus());
+    }
+
+    @Test
+    void reportsNotYetValidToken() {
+        String token = signer.sign(7, 42, now.plus(Duration.ofMinutes(2)),
+                now.plus(Duration.ofHours(2)));
+
+        assertEquals(CheckInTokenStatus.NOT_YET_VALID, signer.verify(token).getStatus());
+    }
+
+    @Test
+    void reportsMalformedToken() {
+        assertEquals(CheckInTokenStatus.MALFORMED, signer.verify(null).getStatus());
+        assertEquals(CheckInTokenStatus.MALFORMED, signer.verify("not a token!").getStatus());
+        assertEquals(CheckInTokenStatus.MALFORMED, signer.verify("AAAA").getStatus());
+    }
+
+    private static byte[] decode(String token) {
+        return Base64.getUrlDecoder().decode(token);
+    }
+
+    private static String encode(byte[] token) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+}
@@ -0,0 +1,209 @@
+package API_BoPhieu.service.attendant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import API_BoPhieu.constants.ImportStatus;
+import API_BoPhieu.dto.attendant.ParticipantImportResponse;
+import API_BoPhieu.dto.attendant.ParticipantImportRowError;
+import API_BoPhieu.entity.Attendant;
+import API_BoPhieu.entity.Event;
+import API_BoPhieu.entity.User;
+import API_BoPhieu.repository.AttendantBatchRepository;
+import API_BoPhieu.repository.AttendantRepository;
+import API_BoPhieu.repository.EventRepository;
+import API_BoPhieu.repository.UserRepository;
+import API_BoPhieu.service.event.EventAdmissionControl;
+
+class ParticipantImportServiceImplTests {
+    private static final Integer EVENT_ID = 7;
+
+    private EventRepository eventRepository;
+    private UserRepository userRepository;
+    private AttendantRepository attendantRepository;
+    private AttendantBatchRepository attendantBatchRepository;
+    private EventAdmissionControl eventAdmissionControl;
+    private ValueOperations<String, String> valueOperations;
+    private StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    /** Người đã có trong bảng attendants của sự kiện, cập nhật theo từng lô chèn. */
+    private final Set<Integer> registered = new HashSet<>();
+    private ParticipantImportServiceImpl importService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        eventRepository = mock(EventRepository.class);
+        userRepository = mock(UserRepository.class);
+        attendantRepository = mock(AttendantRepository.class);
+        attendantBatchRepository = mock(AttendantBatchRepository.class);
+        eventAdmissionControl = mock(EventAdmissionControl.class);
+        valueOperations = mock(ValueOperations.class);
+        redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        Event event = new Event();
+        event.setId(EVENT_ID);
+        event.setStartTime(Instant.now().plus(Duration.ofDays(1)));
+        event.setMaxParticipants(100);
+        when(eventRepository.findById(EVENT_ID)).thenReturn(Optional.of(event));
+        when(userRepository.findAllByEmailIn(anyList())).thenAnswer(invocation -> {
+            List<String> emails = invocation.getArgument(0);
+            return List.of(user(1, "a@example.com"), user(2, "b@example.com"),
+                    user(4, "d@example.com")).stream()
+                    .filter(user -> emails.contains(user.getEmail()))
+                    .collect(Collectors.toList());
+        });
+        when(attendantRepository.findAllByEventIdAndUserIdInForUpdate(eq(EVENT_ID), anyList()))
+                .thenAnswer(invocation -> {
+                    List<Integer> userIds = invocation.getArgument(1);
+                    return userIds.stream().filter(registered::contains)
+                            .map(ParticipantImportServiceImplTests::attendant)
+                            .collect(Collectors.toList());
+                });
+        when(attendantBatchRepository.insertSkippingDuplicates(eq(EVENT_ID), anyCollection(),
+                any(Instant.class))).thenAnswer(invocation -> {
+                    Collection<Integer> userIds = invocation.getArgument(1);
+                    registered.addAll(userIds);
+                    return userIds.size();
+                });
+        when(eventAdmissionControl.reserveUpTo(eq(EVENT_ID), any(), anyInt()))
+                .thenAnswer(invocation -> invocation.getArgument(2));
+
+        importService = newService(3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        importService.shutdown();
+    }
+
+    @Test
+    void importsFileInChunksAndCountsEachOutcome() throws Exception {
+        registered.add(2);
+
+        // Khối 1: a, b, not-an-email; khối 2: c, d, a
+        ParticipantImportResponse result = importAndWait("email\na@example.com\nb@example.com\n"
+                + "not-an-email\nc@example.com\nd@example.com\na@example.com\n");
+
+        assertEquals(ImportStatus.COMPLETED, result.getStatus());
+        assertEquals(6, result.getProcessedRows());
+        assertEquals(2, result.getImportedCount());
+        assertEquals(2, result.getAlreadyRegisteredCount());
+        assertEquals(2, result.getFailedCount());
+        assertEquals(List.of(4L, 5L), result.getErrors().stream()
+                .map(ParticipantImportRowError::getRowNumber).collect(Collectors.toList()));
+        verify(userRepository, times(2)).findAllByEmailIn(anyList());
+        verify(attendantBatchRepository, times(2)).insertSkippingDuplicates(eq(EVENT_ID),
+                anyCollection(), any(Instant.class));
+    }
+
+    @Test
+    void rowsBeyondCapacityAreReportedAsErrors() throws Exception {
+        when(eventAdmissionControl.reserveUpTo(EVENT_ID, 100, 2)).thenReturn(1);
+
+        ParticipantImportResponse result =
+                importAndWait("a@example.com\nd@example.com\n");
+
+        assertEquals(1, result.getImportedCount());
+        assertEquals(1, result.getFailedCount());
+        assertEquals(2L, result.getErrors().get(0).getRowNumber());
+        assertEquals(Set.of(1), registered);
+    }
+
+    @Test
+    void concurrentRegistrationsReturnTheirSeats() throws Exception {
+        // Người 4 vừa được thêm bởi request khác sau khi khối đọc bảng attendants
+        when(attendantBatchRepository.insertSkippingDuplicates(eq(EVENT_ID), anyCollection(),
+                any(Instant.class))).thenReturn(1);
+
+        ParticipantImportResponse result =
+                importAndWait("a@example.com\nd@example.com\n");
+
+        assertEquals(1, result.getImportedCount());
+        assertEquals(1, result.getAlreadyRegisteredCount());
+        verify(eventAdmissionControl).release(EVENT_ID, 1);
+    }
+
+    @Test
+    void progressIsReadFromRedisOnOtherReplicas() throws Exception {
+        ParticipantImportResponse progress = ParticipantImportResponse.builder().jobId("job-1")
+                .eventId(EVENT_ID).status(ImportStatus.RUNNING).processedRows(500).build();
+        when(valueOperations.get("participant-import:job-1"))
+                .thenReturn(objectMapper.writeValueAsString(progress));
+
+        ParticipantImportResponse result = importService.getImportJob(EVENT_ID, "job-1");
+
+        assertEquals(ImportStatus.RUNNING, result.getStatus());
+        assertEquals(500, result.getProcessedRows());
+    }
+
+    private ParticipantImportResponse importAndWait(String csv) throws InterruptedException {
+        ParticipantImportResponse started = importService.startImport(EVENT_ID,
+                new MockMultipartFile("file", "participants.csv", "text/csv",
+                        csv.getBytes(StandardCharsets.UTF_8)),
+                "manager@example.com");
+        // Tiến độ được ghi lên Redis ngay khi tạo job để replica khác tra cứu được
+        verify(valueOperations, atLeastOnce()).set(eq("participant-import:" + started.getJobId()),
+                anyString(), eq(Duration.ofHours(1)));
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (System.nanoTime() < deadline) {
+            ParticipantImportResponse progress =
+                    importService.getImportJob(EVENT_ID, started.getJobId());
+            if (progress.getStatus() == ImportStatus.COMPLETED
+                    || progress.getStatus() == ImportStatus.FAILED) {
+                return progress;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Job nhập chưa xong sau 10 giây");
+    }
+
+    private ParticipantImportServiceImpl newService(int chunkSize) {
+        return new ParticipantImportServiceImpl(eventRepository, userRepository,
+                attendantRepository, attendantBatchRepository, eventAdmissionControl,
+                mock(ApplicationEventPublisher.class), mock(PlatformTransactionManager.class),
+                redisTemplate, objectMapper, 1, chunkSize, 1000, Duration.ofHours(1));
+    }
+
+    private static User user(Integer id, String email) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        return user;
+    }
+
+    private static Attendant attendant(Integer userId) {
+        Attendant attendant = new Attendant();
+        attendant.setEventId(EVENT_ID);
+        attendant.setUserId(userId);
+        return attendant;
+    }
+}
@@ -0,0 +1,223 @@
+package API_BoPhieu.service.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import API_BoPhieu.entity.Event;
+import API_BoPhieu.repository.AttendantRepository;
+import API_BoPhieu.repository.EventRepository;
+
+class EventAdmissionControlTests {
+    private StringRedisTemplate redisTemplate;
+    private ValueOperations<String, String> valueOperations;
+    private ZSetOperations<String, String> zSetOperations;
+    private EventRepository eventRepository;
+    private AttendantRepository attendantRepository;
+    private EventAdmissionControl admissionControl;
+
+    /** Các lần chạy script: đoạn nhận diện script, keys và args. */
+    private final List<ScriptCall> scriptCalls = new ArrayList<>();
+    private Function<ScriptCall, Long> scriptResults = call -> null;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        zSetOperations = mock(ZSetOperations.class);
+        eventRepository = mock(EventRepository.class);
+        attendantRepository = mock(AttendantRepository.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    RedisScript<?> script = invocation.getArgument(0);
+                    Object[] args = Arrays.copyOfRange(invocation.getArguments(), 2,
+                            invocation.getArguments().length);
+                    ScriptCall call = new ScriptCall(script.getScriptAsString(),
+                            invocation.getArgument(1), Arrays.asList(args));
+                    scriptCalls.add(call);
+                    return scriptResults.apply(call);
+                });
+        admissionControl = new EventAdmissionControl(redisTemplate, eventRepository,
+                attendantRepository, Duration.ofDays(2), Duration.ofMinutes(2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reservePassesCapacityAndAllOrNothingFlagToScript() {
+        scriptResults = call -> 2L;
+
+        assertTrue(admissionControl.tryReserve(7, 100, 2));
+
+        ScriptCall reserve = scriptCalls.get(0);
+        assertTrue(reserve.isReserve());
+        assertEquals(List.of("event-admission:7", "event-admission-inflight:7"), reserve.keys());
+        assertEquals(List.of("100", "2", "1", String.valueOf(Duration.ofDays(2).toSeconds())),
+                reserve.args().subList(0, 4));
+        // Ngoài transaction, mục đang giữ được bỏ ngay sau khi cấp
+        verify(zSetOperations).remove("event-admission-inflight:7", reserve.args().get(4));
+    }
+
+    @Test
+    void fullEventIsRejectedWithoutTouchingDatabase() {
+        scriptResults = call -> 0L;
+
+        assertFalse(admissionControl.tryReserve(7, 100, 2));
+        verify(attendantRepository, never()).countByEventId(any());
+        verify(eventRepository, never()).findByIdForUpdate(any());
+    }
+
+    @Test
+    void reserveUpToAcceptsPartialGrant() {
+        scriptResults = call -> 3L;
+
+        assertEquals(3, admissionControl.reserveUpTo(7, 10, 5));
+        assertEquals("0", scriptCalls.get(0).args().get(2));
+    }
+
+    @Test
+    void missingCounterIsLoadedFromDatabaseThenRetried() {
+        List<Long> results = new ArrayList<>(List.of(-1L, 1L));
+        scriptResults = call -> results.remove(0);
+        when(attendantRepository.countByEventId(7)).thenReturn(40);
+
+        assertTrue(admissionControl.tryReserve(7, 100, 1));
+
+        verify(valueOperations).setIfAbsent("event-admission:7", "40", Duration.ofDays(2));
+        assertEquals(2, scriptCalls.size());
+    }
+
+    @Test
+    void unlimitedEventNeedsNoCounter() {
+        scriptResults = call -> -1L;
+
+        assertEquals(5, admissionControl.reserveUpTo(7, null, 5));
+        assertEquals("-1", scriptCalls.get(0).args().get(0));
+        verify(valueOperations, never()).setIfAbsent(any(), any(), any(Duration.class));
+    }
+
+    @Test
+    void redisOutageFallsBackToRowLockAndDropsCounterLater() {
+        scriptResults = call -> {
+            throw new QueryTimeoutException("redis down");
+        };
+        Event event = new Event();
+        event.setId(7);
+        when(eventRepository.findByIdForUpdate(7)).thenReturn(Optional.of(event));
+        when(attendantRepository.countByEventId(7)).thenReturn(99);
+        when(redisTemplate.delete("event-admission:7"))
+                .thenThrow(new QueryTimeoutException("redis down")).thenReturn(true);
+
+        assertTrue(admissionControl.tryReserve(7, 100, 1));
+        assertFalse(admissionControl.tryReserve(7, 100, 2));
+
+        scriptResults = call -> 1L;
+        assertTrue(admissionControl.tryReserve(7, 100, 1));
+        // Bộ đếm lệch trong lúc Redis lỗi bị xóa để nạp lại từ DB
+        verify(redisTemplate, times(2)).delete("event-admission:7");
+    }
+
+    @Test
+    void rollbackReturnsGrantedSeats() {
+        TransactionSynchronizationManager.initSynchronization();
+        scriptResults = call -> call.isReserve() ? 2L : 0L;
+
+        assertTrue(admissionControl.tryReserve(7, 100, 2));
+        List<TransactionSynchronization> synchronizations =
+                TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(synchronization -> synchronization
+                .afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        ScriptCall release = scriptCalls.get(1);
+        assertTrue(release.script().contains("DECRBY"));
+        assertEquals(List.of("event-admission:7"), release.keys());
+        assertEquals(List.of("2"), release.args());
+        verify(zSetOperations).remove(eq("event-admission-inflight:7"), any());
+    }
+
+    @Test
+    void commitKeepsGrantedSeats() {
+        TransactionSynchronizationManager.initSynchronization();
+        scriptResults = call -> 2L;
+
+        admissionControl.tryReserve(7, 100, 2);
+        TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertEquals(1, scriptCalls.size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reconcileComparesAndSetsAgainstCachedValue() {
+        Cursor<String> keys = mock(Cursor.class);
+        when(keys.hasNext()).thenReturn(true, false);
+        when(keys.next()).thenReturn("event-admission:7");
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(keys);
+        when(valueOperations.get("event-admission:7")).thenReturn("12");
+        when(attendantRepository.countByEventId(7)).thenReturn(10);
+        scriptResults = call -> 1L;
+
+        admissionControl.reconcile();
+
+        ScriptCall compareAndSet = scriptCalls.get(0);
+        assertTrue(compareAndSet.script().contains("ZREMRANGEBYSCORE"));
+        assertEquals(List.of("event-admission:7", "event-admission-inflight:7"),
+                compareAndSet.keys());
+        assertEquals(List.of("12", "10"), compareAndSet.args().subList(0, 2));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reconcileSkipsCountersThatMatch() {
+        Cursor<String> keys = mock(Cursor.class);
+        when(keys.hasNext()).thenReturn(true, false);
+        when(keys.next()).thenReturn("event-admission:7");
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(keys);
+        when(valueOperations.get("event-admission:7")).thenReturn("10");
+        when(attendantRepository.countByEventId(7)).thenReturn(10);
+
+        admissionControl.reconcile();
+
+        assertTrue(scriptCalls.isEmpty());
+    }
+
+    private record ScriptCall(String script, List<String> keys, List<Object> args) {
+        boolean isReserve() {
+            return script.contains("INCRBY") && script.contains("ZADD");
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package API_BoPhieu.service.poll;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import API_BoPhieu.entity.Vote;
+import API_BoPhieu.repository.PollCounterRepository;
+import API_BoPhieu.repository.PollOptionCounterRepository;
+import API_BoPhieu.repository.VoteRepository;
+
+class PollCounterStoreTests {
+    private PollCounterRepository pollCounterRepository;
+    private PollOptionCounterRepository pollOptionCounterRepository;
+    private VoteRepository voteRepository;
+    private PollCounterStore store;
+
+    @BeforeEach
+    void setUp() {
+        pollCounterRepository = mock(PollCounterRepository.class);
+        pollOptionCounterRepository = mock(PollOptionCounterRepository.class);
+        voteRepository = mock(VoteRepository.class);
+        store = new PollCounterStore(pollCounterRepository, pollOptionCounterRepository,
+                voteRepository);
+    }
+
+    @Test
+    void firstBallotAddsVotesAndOneVoter() {
+        store.applyBallotChange(5, List.of(), List.of(101, 100));
+
+        InOrder order = inOrder(pollOptionCounterRepository);
+        order.verify(pollOptionCounterRepository).applyDelta(100, 5, 1);
+        order.verify(pollOptionCounterRepository).applyDelta(101, 5, 1);
+        verify(pollCounterRepository).applyDelta(5, 2, 1);
+    }
+
+    @Test
+    void changedBallotMovesVotesWithoutChangingVoterCount() {
+        store.applyBallotChange(5, List.of(100, 101), List.of(101, 102));
+
+        verify(pollOptionCounterRepository).applyDelta(100, 5, -1);
+        verify(pollOptionCounterRepository).applyDelta(102, 5, 1);
+        verify(pollOptionCounterRepository, never()).applyDelta(eq(101), anyInt(), anyInt());
+        verifyNoMoreInteractions(pollCounterRepository);
+    }
+
+    @Test
+    void withdrawnBallotRemovesVoter() {
+        store.applyBallotChange(5, List.of(100), List.of());
+
+        verify(pollOptionCounterRepository).applyDelta(100, 5, -1);
+        verify(pollCounterRepository).applyDelta(5, -1, -1);
+    }
+
+    @Test
+    void replacementsSumDeltasAgainstStoredVotesPerPoll() {
+        when(voteRepository.findByPollIdAndUserIdInForUpdate(eq(5), eq(List.of(42, 43))))
+                .thenReturn(List.of(vote(5, 42, 100)));
+        when(voteRepository.findByPollIdAndUserIdInForUpdate(eq(6), eq(List.of(42))))
+                .thenReturn(List.of());
+
+        store.applyBallotReplacements(List.of(ballot(5, 42, 101), ballot(5, 43, 101, 102),
+                ballot(6, 42, 200)));
+
+        // Poll 5: người 42 đổi 100 -> 101, người 43 bỏ phiếu lần đầu cho 101 và 102
+        verify(pollOptionCounterRepository).applyDelta(100, 5, -1);
+        verify(pollOptionCounterRepository).applyDelta(101, 5, 2);
+        verify(pollOptionCounterRepository).applyDelta(102, 5, 1);
+        verify(pollCounterRepository).applyDelta(5, 2, 1);
+        // Poll 6: phiếu mới hoàn toàn
+        verify(pollOptionCounterRepository).applyDelta(200, 6, 1);
+        verify(pollCounterRepository).applyDelta(6, 1, 1);
+    }
+
+    @Test
+    void replacementWithSameOptionsWritesNothing() {
+        when(voteRepository.findByPollIdAndUserIdInForUpdate(eq(5), eq(List.of(42))))
+                .thenReturn(List.of(vote(5, 42, 100)));
+
+        store.applyBallotReplacements(List.of(ballot(5, 42, 100)));
+
+        verifyNoMoreInteractions(pollOptionCounterRepository, pollCounterRepository);
+    }
+
+    private static Vote vote(Integer pollId, Integer userId, Integer optionId) {
+        return new Vote(null, pollId, userId, optionId, Instant.now());
+    }
+
+    private static PendingBallot ballot(Integer pollId, Integer userId, Integer... optionIds) {
+        return new PendingBallot(7, pollId, userId, List.of(optionIds), Instant.now());
+    }
+}
@@ -0,0 +1,148 @@
+package API_BoPhieu.service.poll;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import API_BoPhieu.repository.PollRepository;
+import API_BoPhieu.repository.VoteBatchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class VoteWriteBehindBufferTests {
+    private VoteBatchRepository voteBatchRepository;
+    private PollRepository pollRepository;
+    private PollCounterStore pollCounterStore;
+    private PollResultsBroadcaster pollResultsBroadcaster;
+    private VoteWriteBehindBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        voteBatchRepository = mock(VoteBatchRepository.class);
+        pollRepository = mock(PollRepository.class);
+        pollCounterStore = mock(PollCounterStore.class);
+        pollResultsBroadcaster = mock(PollResultsBroadcaster.class);
+        buffer = newBuffer(10);
+    }
+
+    @Test
+    void drainKeepsOnlyLatestBallotOfEachVoter() {
+        PendingBallot first = ballot(1L, 5, 42, 100);
+        PendingBallot other = ballot(2L, 5, 43, 101);
+        PendingBallot latest = ballot(3L, 5, 42, 102);
+        List<PendingBallot> staged = List.of(first, other, latest);
+        when(voteBatchRepository.lockStaged(anyInt())).thenReturn(staged);
+
+        buffer.scheduledFlush();
+
+        List<PendingBallot> written = captureReplaced();
+        assertEquals(List.of(latest, other), written);
+        verify(pollCounterStore).applyBallotReplacements(
+                argThat(ballots -> new ArrayList<>(ballots).equals(written)));
+        verify(voteBatchRepository).deleteStaged(staged);
+        verify(pollResultsBroadcaster, times(2)).markChanged(7, 5);
+    }
+
+    @Test
+    void drainDropsBallotsOfClosedPolls() {
+        PendingBallot open = ballot(1L, 5, 42, 100);
+        PendingBallot late = ballot(2L, 6, 42, 200);
+        List<PendingBallot> staged = List.of(open, late);
+        when(voteBatchRepository.lockStaged(anyInt())).thenReturn(staged);
+        when(pollRepository.findClosedIdsByIdIn(anyCollection())).thenReturn(List.of(6));
+
+        buffer.scheduledFlush();
+
+        assertEquals(List.of(open), captureReplaced());
+        // Phiếu đến muộn vẫn bị xóa khỏi bảng lưu tạm để không bị đọc lại
+        verify(voteBatchRepository).deleteStaged(staged);
+        verify(pollResultsBroadcaster, never()).markChanged(7, 6);
+    }
+
+    @Test
+    void failedBatchKeepsOnlyTheFailingBallotStaged() {
+        PendingBallot good = ballot(1L, 5, 42, 100);
+        PendingBallot bad = ballot(2L, 5, 43, 101);
+        when(voteBatchRepository.lockStaged(anyInt())).thenReturn(List.of(good, bad));
+        when(voteBatchRepository.lockStagedById(1L)).thenReturn(List.of(good));
+        when(voteBatchRepository.lockStagedById(2L)).thenReturn(List.of(bad));
+        doAnswer(invocation -> {
+            Collection<PendingBallot> ballots = invocation.getArgument(0);
+            if (ballots.contains(bad)) {
+                throw new IllegalStateException("lỗi ghi");
+            }
+            return null;
+        }).when(voteBatchRepository).replaceBallots(anyCollection());
+
+        buffer.scheduledFlush();
+
+        verify(voteBatchRepository).deleteStaged(List.of(good));
+        verify(voteBatchRepository, never()).deleteStaged(List.of(bad));
+        verify(pollResultsBroadcaster, times(1)).markChanged(7, 5);
+    }
+
+    @Test
+    void offerFallsBackToSynchronousWriteWhenBacklogIsFull() {
+        buffer = newBuffer(1);
+
+        assertTrue(buffer.offer(ballot(null, 5, 42, 100)));
+        assertFalse(buffer.offer(ballot(null, 5, 43, 100)));
+        verify(voteBatchRepository, times(1)).stage(any());
+    }
+
+    @Test
+    void supersedeStagedDiscardsStagedBallotsOfVoter() {
+        buffer.supersedeStaged(5, 42);
+
+        verify(voteBatchRepository).discardStaged(5, 42);
+    }
+
+    @Test
+    void flushPollWritesLatestBallotsEvenIfPollIsClosed() {
+        PendingBallot first = ballot(1L, 5, 42, 100);
+        PendingBallot latest = ballot(2L, 5, 42, 101);
+        List<PendingBallot> staged = List.of(first, latest);
+        when(voteBatchRepository.lockStagedByPoll(5)).thenReturn(staged);
+
+        assertEquals(1, buffer.flushPoll(5));
+        assertEquals(List.of(latest), captureReplaced());
+        verify(voteBatchRepository).deleteStaged(staged);
+        verify(pollRepository, never()).findClosedIdsByIdIn(anyCollection());
+    }
+
+    private VoteWriteBehindBuffer newBuffer(int capacity) {
+        return new VoteWriteBehindBuffer(voteBatchRepository, pollRepository, pollCounterStore,
+                pollResultsBroadcaster, mock(PlatformTransactionManager.class),
+                mock(CacheManager.class), new SimpleMeterRegistry(), true, capacity, 500);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<PendingBallot> captureReplaced() {
+        ArgumentCaptor<Collection<PendingBallot>> captor =
+                ArgumentCaptor.forClass(Collection.class);
+        verify(voteBatchRepository).replaceBallots(captor.capture());
+        return new ArrayList<>(captor.getValue());
+    }
+
+    private static PendingBallot ballot(Long stagedId, Integer pollId, Integer userId,
+            Integer optionId) {
+        return new PendingBallot(stagedId, 7, pollId, userId, List.of(optionId), Instant.now());
+    }
+}
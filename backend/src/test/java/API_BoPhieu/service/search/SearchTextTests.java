@@ -0,0 +1,32 @@
+package API_BoPhieu.service.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SearchTextTests {
+
+    @Test
+    void foldsDStrokeToD() {
+        assertEquals("dai hoi dong", SearchText.fold("Đại Hội Đồng"));
+        assertEquals("dd", SearchText.fold("đĐ"));
+    }
+
+    @Test
+    void stripsCombiningMarksFromPrecomposedText() {
+        assertEquals("hoi nghi", SearchText.fold("Hội Nghị"));
+        assertEquals("nguyen", SearchText.fold("Nguyễn"));
+    }
+
+    @Test
+    void stripsCombiningMarksFromDecomposedText() {
+        // "Việt" ở dạng NFD: e + dấu mũ + dấu nặng
+        assertEquals("viet", SearchText.fold("Vie\u0302\u0323t"));
+    }
+
+    @Test
+    void splitsFoldedTextIntoDistinctTokens() {
+        assertEquals(List.of("hoi", "nghi", "2024"),
+                List.copyOf(SearchText.tokens("Hội nghị, hội-NGHỊ 2024")));
+    }
+}
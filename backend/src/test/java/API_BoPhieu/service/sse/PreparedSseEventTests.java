@@ -0,0 +1,35 @@
+package API_BoPhieu.service.sse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class PreparedSseEventTests {
+
+    @Test
+    void parsesIdFromFrame() {
+        assertEquals(123, frame("id:123\nevent:x\ndata:{}\n\n").id());
+        assertEquals(9_876_543_210L, frame("id:9876543210\nevent:x\ndata:{}\n\n").id());
+    }
+
+    @Test
+    void frameWithoutIdLineHasNoId() {
+        assertEquals(0, frame("event:x\ndata:{}\n\n").id());
+        assertEquals(0, frame(":hb\n\n").id());
+        assertEquals(0, frame("id:").id());
+    }
+
+    @Test
+    void roundTripsEncodedEvents() {
+        PreparedSseEvent event = PreparedSseEvent.of(42, "vote", "{\"a\":1}\n{\"b\":2}");
+
+        assertEquals("id:42\nevent:vote\ndata:{\"a\":1}\ndata:{\"b\":2}\n\n",
+                new String(event.bytes(), StandardCharsets.UTF_8));
+        assertEquals(42, PreparedSseEvent.ofFrame(event.bytes()).id());
+        assertEquals(0, PreparedSseEvent.ofFrame(PreparedSseEvent.of(0, "x", "{}").bytes()).id());
+    }
+
+    private static PreparedSseEvent frame(String text) {
+        return PreparedSseEvent.ofFrame(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -33,9 +33,17 @@ export const attendantApi = rootApi.injectEndpoints({
             signal: controller.signal,
 
             onmessage(event) {
+              // Batch scanner syncs send every participant in one message
+              let updatedParticipants;
               if (event.event === "participant-checked-in") {
-                const updatedParticipant = JSON.parse(event.data);
-                updateCachedData((draft) => {
+                updatedParticipants = [JSON.parse(event.data)];
+              } else if (event.event === "participants-checked-in") {
+                updatedParticipants = JSON.parse(event.data);
+              } else {
+                return;
+              }
+              updateCachedData((draft) => {
+                updatedParticipants.forEach((updatedParticipant) => {
                   const participant = draft.find(
                     (p) => p.user.id === updatedParticipant.user.id,
                   );
@@ -44,7 +52,7 @@ export const attendantApi = rootApi.injectEndpoints({
                       updatedParticipant.check_in_time;
                   }
                 });
-              }
+              });
             },
             onerror(err) {
               console.error("EventSource failed:", err);